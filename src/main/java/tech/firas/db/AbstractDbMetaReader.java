@@ -16,10 +16,98 @@
 
 package tech.firas.db;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.DataTypes;
+import tech.firas.db.datatype.UnknownType;
+import tech.firas.db.vo.Column;
+import tech.firas.db.vo.Index;
+import tech.firas.db.vo.Schema;
 import tech.firas.db.vo.Table;
+import tech.firas.db.vo.TableStatistics;
 
+@Slf4j
 public abstract class AbstractDbMetaReader extends AbstractDbMetaUtil implements DbMetaReader {
 
+    @Getter private final DataTypeRegistry dataTypeRegistry = new DataTypeRegistry();
+
+    protected AbstractDbMetaReader() {
+        this.registerDataTypes(this.dataTypeRegistry);
+    }
+
+    /**
+     * Register the factories of the DataTypes by the names of the data types in the catalog of the DB
+     * @param registry the DataTypeRegistry of this reader
+     */
+    protected abstract void registerDataTypes(DataTypeRegistry registry);
+
+    /**
+     * @param typeName the name of the data type in the catalog of the DB
+     * @param catalogRow the row of the catalog describing the column
+     * @return the DataType from {@link #getDataTypeRegistry()}, or an UnknownType if the type name is not registered
+     * @throws SQLException if it failed to read the catalog row
+     */
+    protected DataType readDataType(final String typeName, final ResultSet catalogRow) throws SQLException {
+        final DataType dataType = this.dataTypeRegistry.create(typeName, catalogRow);
+        if (dataType != null) {
+            return dataType;
+        }
+        log.debug("Unknown type: {}", typeName);
+        return DataTypes.unknown(typeName, this.nativeTypeOf(typeName, catalogRow));
+    }
+
+    /**
+     * @param typeName the name of the data type in the catalog of the DB
+     * @param catalogRow the row of the catalog describing the column
+     * @return the data type as written in the DDL of this DB, kept in {@link UnknownType#getNativeType()}
+     * @throws SQLException if it failed to read the catalog row
+     */
+    protected String nativeTypeOf(final String typeName, final ResultSet catalogRow) throws SQLException {
+        return typeName;
+    }
+
+    /**
+     * Read the columns table by table, for the dialects without a batched catalog query
+     */
+    @Override
+    public Map<Table, Map<String, Column>> readColumns(final Connection connection, final Schema schema,
+            final Collection<Table> tables) throws SQLException {
+        final Map<Table, Map<String, Column>> result = new LinkedHashMap<>();
+        for (final Table table : tables) {
+            final Map<String, Column> columnMap = this.readColumns(connection, table);
+            if (!columnMap.isEmpty()) {
+                result.put(table, columnMap);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Read the indexes table by table, for the dialects without a batched catalog query
+     */
+    @Override
+    public Map<Table, Map<String, Index>> readIndexes(final Connection connection, final Schema schema,
+            final Collection<Table> tables) throws SQLException {
+        final Map<Table, Map<String, Index>> result = new LinkedHashMap<>();
+        for (final Table table : tables) {
+            result.put(table, this.readIndexes(connection, table));
+        }
+        return result;
+    }
+
     @Override
     public String selectAllSqlFor(final Table table) {
         final String tableName = this.tableName(table);
@@ -31,4 +119,127 @@ public abstract class AbstractDbMetaReader extends AbstractDbMetaUtil implements
     public String selectByPrimaryKeySqlFor(final Table table) {
         return this.selectAllSqlFor(table) + ' ' + this.whereSqlForPrimaryKey(table);
     }
+
+    @Override
+    public List<String> selectPartitionSqlsFor(final Connection connection, final Table table,
+            final int partitionCount) throws SQLException {
+        throw new UnsupportedOperationException("Partitioned scan is not supported by " +
+                this.getClass().getSimpleName());
+    }
+
+    @Override
+    public TableStatistics readStatistics(final Connection connection, final Table table) throws SQLException {
+        throw new UnsupportedOperationException("Table statistics is not supported by " +
+                this.getClass().getSimpleName());
+    }
+
+    @Override
+    public boolean isSnapshotSupported() {
+        return false;
+    }
+
+    @Override
+    public String exportSnapshot(final Connection connection) throws SQLException {
+        throw new UnsupportedOperationException("Synchronized snapshot is not supported by " +
+                this.getClass().getSimpleName());
+    }
+
+    @Override
+    public void useSnapshot(final Connection connection, final String snapshotId) throws SQLException {
+        throw new UnsupportedOperationException("Synchronized snapshot is not supported by " +
+                this.getClass().getSimpleName());
+    }
+
+    /**
+     * The JDBC drivers that honour the fetch size of a forward-only Statement need nothing more
+     */
+    @Override
+    public StreamingStatement openStreamingStatement(final Connection connection, final int fetchSize)
+            throws SQLException {
+        final Statement statement = createForwardOnlyStatement(connection);
+        try {
+            statement.setFetchSize(fetchSize);
+            if (statement.getFetchSize() != fetchSize) {
+                log.warn("The fetch size {} is not in effect (got {}), the rows may be buffered in memory",
+                        fetchSize, statement.getFetchSize());
+            }
+        } catch (SQLException | RuntimeException ex) {
+            statement.close();
+            throw ex;
+        }
+        return new StreamingStatement(statement, connection, false);
+    }
+
+    protected static Statement createForwardOnlyStatement(final Connection connection) throws SQLException {
+        return connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    /**
+     * @param columnName the column of the table name in the catalog
+     * @param filter the CatalogFilter
+     * @return the conditions (starting with " AND ") for the table name patterns of the filter,
+     *         whose parameters are set by {@link #setFilterParameters}
+     */
+    protected static String filterSql(final String columnName, final CatalogFilter filter) {
+        final StringBuilder builder = new StringBuilder();
+        final List<String> includes = filter.getIncludeTablePatterns();
+        if (!includes.isEmpty()) {
+            builder.append(" AND (");
+            for (int i = 0; i < includes.size(); i += 1) {
+                builder.append(i == 0 ? "" : " OR ").append(columnName).append(" LIKE ?");
+            }
+            builder.append(')');
+        }
+        for (int i = 0; i < filter.getExcludeTablePatterns().size(); i += 1) {
+            builder.append(" AND ").append(columnName).append(" NOT LIKE ?");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return the index of the next parameter
+     */
+    protected static int setFilterParameters(final PreparedStatement ps, final int startIndex,
+            final CatalogFilter filter) throws SQLException {
+        int index = startIndex;
+        for (final String pattern : filter.getIncludeTablePatterns()) {
+            ps.setString(index++, pattern);
+        }
+        for (final String pattern : filter.getExcludeTablePatterns()) {
+            ps.setString(index++, pattern);
+        }
+        return index;
+    }
+
+    /**
+     * @return "(?, ?, ...)" with <code>count</code> parameters
+     */
+    protected static String inList(final int count) {
+        final StringBuilder builder = new StringBuilder(count * 3 + 1).append('(');
+        for (int i = 0; i < count; i += 1) {
+            builder.append(i == 0 ? "?" : ", ?");
+        }
+        return builder.append(')').toString();
+    }
+
+    /**
+     * Set the names of the tables as the parameters of an IN list
+     * @return a Map with the table name as key and the Table as value
+     */
+    protected static Map<String, Table> setTableNameParameters(final PreparedStatement ps, final int startIndex,
+            final Collection<Table> tables) throws SQLException {
+        final Map<String, Table> result = new HashMap<>(tables.size() * 4 / 3 + 1);
+        int index = startIndex;
+        for (final Table table : tables) {
+            ps.setString(index++, table.getName());
+            result.put(table.getName(), table);
+        }
+        return result;
+    }
+
+    protected static void checkPartitionCount(final int partitionCount) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("partitionCount must be at least 1");
+        }
+    }
 }
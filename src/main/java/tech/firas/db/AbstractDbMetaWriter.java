@@ -21,24 +21,28 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import tech.firas.db.datatype.BigIntType;
 import tech.firas.db.datatype.CharType;
 import tech.firas.db.datatype.DataType;
 import tech.firas.db.datatype.DateType;
+import tech.firas.db.datatype.DecimalType;
 import tech.firas.db.datatype.IntegerType;
 import tech.firas.db.datatype.SmallIntType;
 import tech.firas.db.datatype.TimeType;
 import tech.firas.db.datatype.TimestampType;
 import tech.firas.db.datatype.VarCharType;
 import tech.firas.db.vo.Column;
+import tech.firas.db.vo.ForeignKey;
 import tech.firas.db.vo.Index;
 import tech.firas.db.vo.Index.IndexType;
 import tech.firas.db.vo.Schema;
@@ -47,34 +51,58 @@ import tech.firas.db.vo.Table;
 @Slf4j
 public abstract class AbstractDbMetaWriter extends AbstractDbMetaUtil implements DbMetaWriter {
 
+    @Getter private final DataTypeRegistry dataTypeRegistry = new DataTypeRegistry();
+
+    protected AbstractDbMetaWriter() {
+        this.registerDataTypes(this.dataTypeRegistry);
+    }
+
+    /**
+     * Register the renderers of the DataTypes common to the DBs;
+     * a dialect overrides this method to register its own after calling super
+     * @param registry the DataTypeRegistry of this writer
+     */
+    protected void registerDataTypes(final DataTypeRegistry registry) {
+        registry.registerRenderer(IntegerType.class, dataType -> "INT")
+                .registerRenderer(BigIntType.class, dataType -> "BIGINT")
+                .registerRenderer(SmallIntType.class, dataType -> "SMALLINT")
+
+                .registerRenderer(DateType.class, dataType -> "DATE")
+                .registerRenderer(TimeType.class, timeType ->
+                        "TIME" + (timeType.getPrecision() > 0 ? "(" + timeType.getPrecision() + ')' : ""))
+                .registerRenderer(TimestampType.class, timestampType ->
+                        "TIMESTAMP" + (timestampType.getPrecision() > 0 ? "(" + timestampType.getPrecision() + ')' : ""))
+
+                .registerRenderer(CharType.class, charType ->
+                        "CHAR" + (charType.getLength() > 0 ? "(" + charType.getLength() + ')' : ""))
+                .registerRenderer(VarCharType.class, varCharType ->
+                        "VARCHAR" + (varCharType.getLength() > 0 ? "(" + varCharType.getLength() + ')' : ""));
+    }
+
+    /**
+     * @param typeName e.g. "DECIMAL" or "NUMERIC"
+     * @param decimalType the DecimalType
+     * @return the type name followed by the precision and the scale if they are valid
+     */
+    protected static String decimalToString(final String typeName, final DecimalType decimalType) {
+        final StringBuilder stringBuilder = new StringBuilder(typeName);
+        if (decimalType.getPrecision() > 0) {
+            stringBuilder.append('(').append(decimalType.getPrecision());
+            if (0 <= decimalType.getScale() && decimalType.getScale() <= decimalType.getPrecision()) {
+                stringBuilder.append(", ").append(decimalType.getScale());
+            }
+            stringBuilder.append(')');
+        }
+        return stringBuilder.toString();
+    }
+
     @Override
     public String dataTypeToString(final DataType dataType) {
-        if (dataType instanceof IntegerType) {
-            return "INT";
-        } else if (dataType instanceof BigIntType) {
-            return "BIGINT";
-        } else if (dataType instanceof SmallIntType) {
-            return "SMALLINT";
-
-        } else if (dataType instanceof DateType) {
-            return "DATE";
-        } else if (dataType instanceof TimeType) {
-            final TimeType timeType = (TimeType) dataType;
-            return "TIME" + (timeType.getPrecision() > 0 ? "(" + timeType.getPrecision() + ')' : "");
-        } else if (dataType instanceof TimestampType) {
-            final TimestampType timestampType = (TimestampType) dataType;
-            return "TIMESTAMP" + (timestampType.getPrecision() > 0 ? "(" + timestampType.getPrecision() + ')' : "");
-
-        } else if (dataType instanceof CharType) {
-            final CharType charType = (CharType) dataType;
-            return "CHAR" + (charType.getLength() > 0 ? "(" + charType.getLength() + ')' : "");
-        } else if (dataType instanceof VarCharType) {
-            final VarCharType varCharType = (VarCharType) dataType;
-            return "VARCHAR" + (varCharType.getLength() > 0 ? "(" + varCharType.getLength() + ')' : "");
-
-        } else {
+        final String result = this.dataTypeRegistry.render(dataType);
+        if (result == null) {
             throw new UnsupportedOperationException(dataType + " is not supported");
         }
+        return result;
     }
 
     @Override
@@ -231,6 +259,35 @@ public abstract class AbstractDbMetaWriter extends AbstractDbMetaUtil implements
                 (column.isNotNull() ? " NOT NULL" : "");
     }
 
+    @Override
+    public String alterColumnTypeSqlFor(final Column column) {
+        return "ALTER TABLE " + this.tableName(column.getTable()) + " ALTER COLUMN " +
+                this.quote(column.getName()) + " SET DATA TYPE " + this.dataTypeToString(column.getDataType());
+    }
+
+    @Override
+    public String alterColumnNullabilitySqlFor(final Column column) {
+        return "ALTER TABLE " + this.tableName(column.getTable()) + " ALTER COLUMN " +
+                this.quote(column.getName()) + (column.isNotNull() ? " SET NOT NULL" : " DROP NOT NULL");
+    }
+
+    @Override
+    public String dropColumnSqlFor(final Column column) {
+        return "ALTER TABLE " + this.tableName(column.getTable()) + " DROP COLUMN " + this.quote(column.getName());
+    }
+
+    @Override
+    public String dropIndexSqlFor(final Index index) {
+        Objects.requireNonNull(index, "index must not be null");
+        Objects.requireNonNull(index.getTable(), "index.table must not be null");
+        if (index.getIndexType() == IndexType.PRIMARY_KEY) {
+            return "ALTER TABLE " + this.tableName(index.getTable()) + " DROP PRIMARY KEY";
+        }
+        final Schema schema = index.getTable().getSchema();
+        return "DROP INDEX " + (schema == null ? "" : this.quote(schema.getName()) + '.') +
+                this.quote(index.getName());
+    }
+
     @Override
     public void createSchema(final Connection connection, final Schema schema) throws SQLException {
         try (final Statement statement = connection.createStatement()) {
@@ -282,6 +339,30 @@ public abstract class AbstractDbMetaWriter extends AbstractDbMetaUtil implements
                 columnNames.stream().map(c -> "?").collect(Collectors.joining(", ")) + ')';
     }
 
+    @Override
+    public String upsertSqlFor(final Table table) {
+        throw new UnsupportedOperationException("Upsert is not supported by " + this.getClass().getSimpleName());
+    }
+
+    /**
+     * {@link Table#getPrimaryKeyColumns()} falls back to all the columns, which is no conflict target
+     * of an upsert unless a unique index happens to cover exactly them
+     * @param table the Table to be upserted
+     * @return the columns of the primary key of the table
+     * @throws IllegalArgumentException if the table has no primary key
+     */
+    protected Collection<Column> upsertKeyColumnsOf(final Table table) {
+        if (table.getIndexMap() != null) {
+            for (final Index index : table.getIndexMap().values()) {
+                if (index.getIndexType() == IndexType.PRIMARY_KEY) {
+                    return index.getColumns();
+                }
+            }
+        }
+        throw new IllegalArgumentException("An upsert needs a primary key but the table " + this.tableName(table) +
+                " has none");
+    }
+
     @Override
     public String updateByPrimaryKeySqlFor(final Table table) {
         final Collection<Column> primaryKeyColumns = table.getPrimaryKeyColumns();
@@ -298,6 +379,85 @@ public abstract class AbstractDbMetaWriter extends AbstractDbMetaUtil implements
         return "TRUNCATE TABLE " + this.tableName(table);
     }
 
+    @Override
+    public String beginUnloggedLoadSqlFor(final Table table) {
+        throw new UnsupportedOperationException("An unlogged load is not supported");
+    }
+
+    @Override
+    public String unloggedTransactionSqlFor(final Table table) {
+        return null;
+    }
+
+    @Override
+    public String endUnloggedLoadSqlFor(final Table table) {
+        return null;
+    }
+
+    @Override
+    public String unloggedLoadBlockerSqlFor(final Table table) {
+        return null;
+    }
+
+    @Override
+    public List<String> beginBulkLoadSessionSqls() {
+        throw new UnsupportedOperationException("A bulk load session is not supported");
+    }
+
+    @Override
+    public List<String> endBulkLoadSessionSqls() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> suspendForeignKeysSqlsFor(final Collection<ForeignKey> foreignKeys) {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public List<String> resumeForeignKeysSqlsFor(final Collection<ForeignKey> foreignKeys) {
+        return Collections.emptyList();
+    }
+
+    /**
+     * @param tables the tables loaded
+     * @param foreignKeys the foreign keys of the tables loaded
+     * @return a count of the rows referencing no row of the referenced table for every foreign key
+     */
+    @Override
+    public List<String> verifyBulkLoadSqlsFor(final Collection<Table> tables,
+            final Collection<ForeignKey> foreignKeys) {
+        return foreignKeys.stream().map(this::countOrphansSqlFor).collect(Collectors.toList());
+    }
+
+    /**
+     * A row with a null in any column of the foreign key references nothing (MATCH SIMPLE)
+     * @param foreignKey the foreign key to be verified
+     * @return a count of the rows of the referencing table which have no referenced row
+     */
+    protected String countOrphansSqlFor(final ForeignKey foreignKey) {
+        final StringBuilder builder = new StringBuilder("SELECT COUNT(*) FROM ")
+                .append(this.tableName(foreignKey.getTable())).append(" c WHERE ");
+        for (final String columnName : foreignKey.getColumnNames()) {
+            builder.append("c.").append(this.quote(columnName)).append(" IS NOT NULL AND ");
+        }
+        builder.append("NOT EXISTS (SELECT 1 FROM ").append(this.tableName(foreignKey.getReferencedTable()))
+                .append(" p WHERE ");
+        for (int i = 0; i < foreignKey.getColumnNames().size(); i += 1) {
+            if (i > 0) {
+                builder.append(" AND ");
+            }
+            builder.append("p.").append(this.quote(foreignKey.getReferencedColumnNames().get(i)))
+                    .append(" = c.").append(this.quote(foreignKey.getColumnNames().get(i)));
+        }
+        return builder.append(')').toString();
+    }
+
+    @Override
+    public boolean isTransactionalDdl() {
+        return false;
+    }
+
     private void constraintInCreateTable(final StringBuilder createTable, final String indexName,
             final String constraintType, final List<Column> columns) {
         createTable.append(",\n  ");
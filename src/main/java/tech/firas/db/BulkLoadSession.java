@@ -0,0 +1,247 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import tech.firas.db.vo.ForeignKey;
+import tech.firas.db.vo.Schema;
+import tech.firas.db.vo.Table;
+
+/**
+ * Load rows into existing tables of the target DB without checking the foreign keys row by row
+ * (and without firing the triggers where the DB can suspend them), then check them again at the end:
+ * <ul>
+ *     <li>PostgreSQL: session_replication_role = replica, which also suspends the triggers</li>
+ *     <li>MySQL: foreign_key_checks = 0 and unique_checks = 0</li>
+ *     <li>DB2: the foreign keys altered to NOT ENFORCED, then ENFORCED and "SET INTEGRITY ... IMMEDIATE CHECKED"</li>
+ * </ul>
+ * The triggers suspended are not fired later for the rows loaded.
+ * Every connection which inserts rows must {@link #join} the session and {@link #leave} it afterwards;
+ * the connection which opened the session joins it and leaves it on {@link #close()}.
+ */
+@Slf4j
+public class BulkLoadSession implements AutoCloseable {
+
+    private final DbMetaWriter writer;
+    private final DbMetaReader reader;
+    private final Connection connection;
+
+    @Getter private final Collection<Table> tables;
+
+    /**
+     * The foreign keys of the tables, read when the session was opened
+     */
+    @Getter private final List<ForeignKey> foreignKeys;
+
+    private boolean loaded;
+
+    private BulkLoadSession(final DbMetaWriter writer, final DbMetaReader reader, final Connection connection,
+            final Collection<Table> tables, final List<ForeignKey> foreignKeys) {
+        this.writer = writer;
+        this.reader = reader;
+        this.connection = connection;
+        this.tables = tables;
+        this.foreignKeys = foreignKeys;
+    }
+
+    /**
+     * Stop checking the foreign keys of the tables and join the session on the connection
+     * @param writer the DbMetaWriter of the target DB
+     * @param reader the DbMetaReader of the target DB, to read the indexes of the tables to be verified
+     * @param connection the connection to the target DB
+     * @param tables the tables to be loaded
+     * @return the BulkLoadSession, to be closed after the load
+     * @throws SQLException if it failed to read the foreign keys or stop checking them
+     * @throws UnsupportedOperationException if the target DB does not support a bulk load session
+     */
+    public static BulkLoadSession open(final DbMetaWriter writer, final DbMetaReader reader,
+            final Connection connection, final Collection<Table> tables) throws SQLException {
+        final List<String> sessionSqls = writer.beginBulkLoadSessionSqls(); // unsupported before anything done
+        final BulkLoadSession result = new BulkLoadSession(writer, reader, connection, tables,
+                readForeignKeys(connection, tables));
+        if (log.isInfoEnabled()) {
+            log.info("Bulk load session of {} table(s) with {} foreign key(s)",
+                    tables.size(), result.foreignKeys.size());
+        }
+        execute(connection, writer.suspendForeignKeysSqlsFor(result.foreignKeys));
+        try {
+            execute(connection, sessionSqls);
+        } catch (SQLException | RuntimeException ex) {
+            try {
+                execute(connection, writer.resumeForeignKeysSqlsFor(result.foreignKeys));
+            } catch (SQLException | RuntimeException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+        return result;
+    }
+
+    /**
+     * Read the foreign keys of the tables by {@link DatabaseMetaData#getImportedKeys}
+     * @param connection the connection to the DB
+     * @param tables the referencing tables
+     * @return the foreign keys, with their columns in the order of the keys
+     * @throws SQLException if it failed to read the metadata
+     */
+    public static List<ForeignKey> readForeignKeys(final Connection connection, final Collection<Table> tables)
+            throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        // e.g. MySQL Connector/J reports a database as a catalog rather than a schema
+        final boolean schemas = metaData.supportsSchemasInDataManipulation();
+        final List<ForeignKey> result = new ArrayList<>();
+        for (final Table table : tables) {
+            final String schemaName = table.getSchema().getName();
+            final Map<String, ForeignKey> foreignKeys = new LinkedHashMap<>();
+            try (final ResultSet rs = schemas ? metaData.getImportedKeys(null, schemaName, table.getName()) :
+                    metaData.getImportedKeys(schemaName, null, table.getName())) {
+                while (rs.next()) {
+                    final String referencedSchemaName = rs.getString(schemas ? "PKTABLE_SCHEM" : "PKTABLE_CAT");
+                    final String referencedTableName = rs.getString("PKTABLE_NAME");
+                    final String name = rs.getString("FK_NAME");
+                    final ForeignKey foreignKey = foreignKeys.computeIfAbsent(
+                            referencedSchemaName + '.' + referencedTableName + '.' + name,
+                            key -> new ForeignKey(table, name, new ArrayList<>(),
+                                    new Table(new Schema(referencedSchemaName), referencedTableName),
+                                    new ArrayList<>()));
+                    foreignKey.getColumnNames().add(rs.getString("FKCOLUMN_NAME"));
+                    foreignKey.getReferencedColumnNames().add(rs.getString("PKCOLUMN_NAME"));
+                }
+            }
+            result.addAll(foreignKeys.values());
+        }
+        return result;
+    }
+
+    /**
+     * Stop checking the constraints on another connection which inserts rows into the tables
+     * @param other the connection to the target DB
+     * @throws SQLException if it failed to execute the statements of the session
+     */
+    public void join(final Connection other) throws SQLException {
+        execute(other, this.writer.beginBulkLoadSessionSqls());
+    }
+
+    /**
+     * Restore the checks on a connection which joined the session, before it is closed or returned to a pool;
+     * if it fails, the connection is aborted, so that a pool does not reuse it without the checks
+     * @param other the connection to the target DB
+     * @throws SQLException if it failed to execute the statements of the session
+     */
+    public void leave(final Connection other) throws SQLException {
+        try {
+            execute(other, this.writer.endBulkLoadSessionSqls());
+        } catch (SQLException | RuntimeException ex) {
+            try {
+                other.abort(Runnable::run);
+            } catch (SQLException | RuntimeException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Mark all the rows loaded, so that {@link #close()} verifies them;
+     * without it (e.g. the load failed) the checks are restored but the rows are not verified
+     */
+    public void loaded() {
+        this.loaded = true;
+    }
+
+    /**
+     * Restore the checks, and verify the rows if {@link #loaded()}
+     * @throws SQLIntegrityConstraintViolationException if any row loaded violates a constraint
+     * @throws SQLException if it failed to restore the checks or verify the rows
+     */
+    @Override
+    public void close() throws SQLException {
+        try {
+            this.leave(this.connection);
+        } finally {
+            execute(this.connection, this.writer.resumeForeignKeysSqlsFor(this.foreignKeys));
+        }
+        if (!this.loaded) {
+            return;
+        }
+        final List<Table> targetTables = this.readTargetTables();
+        try (final Statement statement = this.connection.createStatement()) {
+            for (final String sql : this.writer.verifyBulkLoadSqlsFor(targetTables, this.foreignKeys)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Before verify: {}", sql);
+                }
+                try (final ResultSet rs = statement.executeQuery(sql)) {
+                    final long count = rs.next() ? rs.getLong(1) : 0L;
+                    if (count > 0) {
+                        throw new SQLIntegrityConstraintViolationException(
+                                count + " row(s) loaded violate a constraint: " + sql);
+                    }
+                }
+            }
+        }
+        log.info("Bulk load session of {} table(s) verified", this.tables.size());
+    }
+
+    /**
+     * The indexes of the tables in the target DB may differ from those in the source DB
+     * @return the tables with their columns and indexes read from the target DB
+     */
+    private List<Table> readTargetTables() throws SQLException {
+        final List<Table> result = new ArrayList<>(this.tables.size());
+        for (final Table table : this.tables) {
+            final Table targetTable = new Table(new Schema(table.getSchema().getName()), table.getName());
+            targetTable.setColumnMap(this.reader.readColumns(this.connection, targetTable));
+            targetTable.setIndexMap(this.reader.readIndexes(this.connection, targetTable));
+            result.add(targetTable);
+        }
+        return result;
+    }
+
+    /**
+     * Execute the statements and commit them if the connection is not in the auto-commit mode
+     */
+    private static void execute(final Connection connection, final List<String> sqls) throws SQLException {
+        if (sqls.isEmpty()) {
+            return;
+        }
+        try (final Statement statement = connection.createStatement()) {
+            for (final String sql : sqls) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Before execute on target: {}", sql);
+                }
+                statement.execute(sql);
+            }
+        }
+        if (!connection.getAutoCommit()) {
+            connection.commit();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Which schemas and tables to read from the catalog of a DB.
+ * The table name patterns are those of SQL "LIKE" ('%' for any characters, '_' for one character)
+ * so that they can be pushed down into the catalog queries.
+ */
+public final class CatalogFilter {
+
+    public static final CatalogFilter ALL = new CatalogFilter(
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+    /**
+     * The names of the schemas to be read, empty for all the schemas
+     */
+    @Getter private final List<String> schemaNames;
+
+    /**
+     * A table is read only if its name is "LIKE" any of these patterns, empty for all the tables
+     */
+    @Getter private final List<String> includeTablePatterns;
+
+    /**
+     * A table is not read if its name is "LIKE" any of these patterns
+     */
+    @Getter private final List<String> excludeTablePatterns;
+
+    public CatalogFilter(final Collection<String> schemaNames, final Collection<String> includeTablePatterns,
+            final Collection<String> excludeTablePatterns) {
+        this.schemaNames = Collections.unmodifiableList(new ArrayList<>(schemaNames));
+        this.includeTablePatterns = Collections.unmodifiableList(new ArrayList<>(includeTablePatterns));
+        this.excludeTablePatterns = Collections.unmodifiableList(new ArrayList<>(excludeTablePatterns));
+    }
+
+    /**
+     * @param schemaName the name of a schema in the DB
+     * @return whether the schema is to be read (compared case-insensitively)
+     */
+    public boolean acceptsSchema(final String schemaName) {
+        if (this.schemaNames.isEmpty()) {
+            return true;
+        }
+        for (final String name : this.schemaNames) {
+            if (name.equalsIgnoreCase(schemaName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogFilter{" +
+                "schemaNames=" + this.schemaNames +
+                ", includeTablePatterns=" + this.includeTablePatterns +
+                ", excludeTablePatterns=" + this.excludeTablePatterns +
+                '}';
+    }
+}
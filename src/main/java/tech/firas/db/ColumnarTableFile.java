@@ -0,0 +1,517 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.Buffer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import tech.firas.db.datatype.BigIntType;
+import tech.firas.db.datatype.BlobType;
+import tech.firas.db.datatype.CharType;
+import tech.firas.db.datatype.ColumnBuffer;
+import tech.firas.db.datatype.ClobType;
+import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.DateType;
+import tech.firas.db.datatype.DecimalType;
+import tech.firas.db.datatype.DoubleType;
+import tech.firas.db.datatype.FloatType;
+import tech.firas.db.datatype.IntegerType;
+import tech.firas.db.datatype.JavaTimeType;
+import tech.firas.db.datatype.SmallIntType;
+import tech.firas.db.datatype.TimeType;
+import tech.firas.db.datatype.TimestampType;
+import tech.firas.db.datatype.UnknownType;
+import tech.firas.db.datatype.VarCharType;
+import tech.firas.db.vo.Column;
+
+/**
+ * A self-describing columnar file for analytics, laid out like Parquet:
+ * the rows are split into row groups of bounded size, each row group stores the values column by column
+ * in separately compressed chunks, and the footer at the end describes the columns and locates the chunks,
+ * so that a reader can read only the columns it needs, as {@link #read} does.
+ * <pre>
+ * file      := "DBMC" rowGroup* footer footerLength:int "DBMC"
+ * rowGroup  := chunk*  (one for each column, a deflated {@link tech.firas.db.datatype.ColumnBuffer})
+ * footer    := columnCount:int column* rowGroupCount:int rowGroupMeta*
+ * column    := name:string logicalType:string encoding:string precision:int scale:int nullable:boolean
+ * rowGroupMeta := rowCount:int (offset:long compressedLength:int rawLength:int)*
+ * string    := length:int UTF-8 bytes
+ * </pre>
+ * The logical types are those of Parquet, e.g. DECIMAL, TIMESTAMP, STRING;
+ * the encoding tells how a non-null value is kept in the ColumnBuffer, e.g. INT64, INT64_INT32, BYTES.
+ */
+@Slf4j
+public final class ColumnarTableFile {
+
+    private static final int MAGIC = 0x44424D43; // "DBMC"
+
+    private ColumnarTableFile() throws IllegalAccessException {
+        throw new IllegalAccessException();
+    }
+
+    /**
+     * Write all the rows remaining in the ResultSet to the file
+     * @param resultSet the source ResultSet with the columns in the same order as <code>columns</code>
+     * @param columns the columns of the table
+     * @param file the file to be created or overwritten
+     * @param maxRowsPerGroup the maximum number of rows in a row group
+     * @param maxBytesPerGroup the number of bytes (before compression) at which a row group is closed
+     * @return the number of rows written
+     * @throws SQLException if it failed to read from the ResultSet
+     * @throws IOException if it failed to write the file
+     */
+    public static long write(final ResultSet resultSet, final Collection<Column> columns, final Path file,
+            final int maxRowsPerGroup, final long maxBytesPerGroup) throws SQLException, IOException {
+        final OffHeapRowBatch rowGroup = new OffHeapRowBatch(columns, maxRowsPerGroup);
+        final List<long[]> rowGroupMetas = new ArrayList<>();
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            long offset = Integer.BYTES;
+            long total = 0L;
+            ByteBuffer raw = ByteBuffer.allocate(1024);
+            final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+            while (rowGroup.fill(resultSet, maxBytesPerGroup) > 0) {
+                // rowCount, then (offset, compressedLength, rawLength) for each column
+                final long[] meta = new long[1 + columns.size() * 3];
+                meta[0] = rowGroup.getRowCount();
+                for (int i = 0; i < columns.size(); i += 1) {
+                    final int rawLength = rowGroup.getColumnBuffer(i).getSerializedSize();
+                    if (raw.capacity() < rawLength) {
+                        raw = ByteBuffer.allocate(rawLength);
+                    }
+                    ((Buffer) raw).clear();
+                    rowGroup.getColumnBuffer(i).writeTo(raw);
+
+                    chunk.reset();
+                    deflater.reset();
+                    try (final DeflaterOutputStream deflaterOut = new DeflaterOutputStream(chunk, deflater)) {
+                        deflaterOut.write(raw.array(), 0, rawLength);
+                    }
+                    chunk.writeTo(out);
+                    meta[1 + i * 3] = offset;
+                    meta[2 + i * 3] = chunk.size();
+                    meta[3 + i * 3] = rawLength;
+                    offset += chunk.size();
+                }
+                rowGroupMetas.add(meta);
+                total += rowGroup.getRowCount();
+                if (log.isDebugEnabled()) {
+                    log.debug("A row group of {} row(s) written to {}", rowGroup.getRowCount(), file);
+                }
+            }
+            // DataOutputStream.size() overflows after 2 GB, so the footer is written to memory first
+            final ByteArrayOutputStream footer = new ByteArrayOutputStream();
+            writeFooter(new DataOutputStream(footer), columns, rowGroupMetas);
+            footer.writeTo(out);
+            out.writeInt(footer.size());
+            out.writeInt(MAGIC);
+            return total;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Read the columns described in the footer of the file
+     * @param file the file written by {@link #write}
+     * @return the columns in the order of the file
+     * @throws IOException if it failed to read the file or the file is not a columnar table file
+     */
+    public static List<ColumnMeta> readColumns(final Path file) throws IOException {
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readFooter(channel, file).columns;
+        }
+    }
+
+    /**
+     * Read the rows of the file, with the values of the columns decoded by their logical types:
+     * INT16 as Short, INT32 as Integer, INT64 as Long, FLOAT as Float, DOUBLE as Double,
+     * DECIMAL as BigDecimal (with the scale written), DATE as LocalDate, TIME as LocalTime,
+     * TIMESTAMP as LocalDateTime, STRING as String and BINARY as byte[]; a null value as null
+     * @param file the file written by {@link #write}
+     * @param columnNames the names of the columns to be read (case-insensitive) in the order of the values,
+     *                    null for all the columns in the order of the file;
+     *                    only the chunks of these columns are read and decompressed
+     * @param consumer receives the values of each row, in an array which is not reused
+     * @return the number of rows read
+     * @throws IOException if it failed to read the file, the file is corrupted, or a column is not in the file
+     */
+    public static long read(final Path file, final List<String> columnNames, final Consumer<Object[]> consumer)
+            throws IOException {
+        final Inflater inflater = new Inflater();
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final Footer footer = readFooter(channel, file);
+            final int[] indexes = indexesOf(footer.columns, columnNames, file);
+            final ColumnBuffer[] buffers = new ColumnBuffer[indexes.length];
+            byte[] compressed = new byte[1024];
+            byte[] raw = new byte[1024];
+            long total = 0L;
+            for (final long[] meta : footer.rowGroupMetas) {
+                final int rowCount = (int) meta[0];
+                for (int i = 0; i < indexes.length; i += 1) {
+                    final long offset = meta[1 + indexes[i] * 3];
+                    final int compressedLength = (int) meta[2 + indexes[i] * 3];
+                    final int rawLength = (int) meta[3 + indexes[i] * 3];
+                    if (compressed.length < compressedLength) {
+                        compressed = new byte[compressedLength];
+                    }
+                    if (raw.length < rawLength) {
+                        raw = new byte[rawLength];
+                    }
+                    readFully(channel, ByteBuffer.wrap(compressed, 0, compressedLength), offset, file);
+                    inflater.reset();
+                    inflater.setInput(compressed, 0, compressedLength);
+                    try {
+                        if (inflater.inflate(raw, 0, rawLength) != rawLength) {
+                            throw new IOException("Truncated chunk in " + file);
+                        }
+                    } catch (DataFormatException ex) {
+                        throw new IOException("Corrupted chunk in " + file, ex);
+                    }
+                    if (buffers[i] == null || buffers[i].getCapacity() < rowCount) {
+                        buffers[i] = new ColumnBuffer(rowCount, rawLength);
+                    }
+                    buffers[i].readFrom(ByteBuffer.wrap(raw, 0, rawLength));
+                    if (buffers[i].getRowCount() != rowCount) {
+                        throw new IOException("Row count mismatch in " + file);
+                    }
+                }
+                for (int row = 0; row < rowCount; row += 1) {
+                    final Object[] values = new Object[indexes.length];
+                    for (int i = 0; i < indexes.length; i += 1) {
+                        values[i] = buffers[i].isNull(row) ? null :
+                                decode(footer.columns.get(indexes[i]), buffers[i], row, file);
+                    }
+                    consumer.accept(values);
+                }
+                total += rowCount;
+                if (log.isDebugEnabled()) {
+                    log.debug("A row group of {} row(s) read from {}", rowCount, file);
+                }
+            }
+            return total;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * A column described in the footer of a columnar table file
+     */
+    @Getter
+    public static final class ColumnMeta {
+        private final String name;
+        private final String logicalType;
+        private final String encoding;
+        /**
+         * the precision of DECIMAL, TIMESTAMP and TIME, the length of STRING from CHAR or VARCHAR; otherwise 0
+         */
+        private final int precision;
+        /**
+         * the scale of DECIMAL; otherwise 0
+         */
+        private final int scale;
+        private final boolean nullable;
+
+        ColumnMeta(final String name, final String logicalType, final String encoding, final int precision,
+                final int scale, final boolean nullable) {
+            this.name = name;
+            this.logicalType = logicalType;
+            this.encoding = encoding;
+            this.precision = precision;
+            this.scale = scale;
+            this.nullable = nullable;
+        }
+
+        @Override
+        public String toString() {
+            return this.name + ' ' + this.logicalType + '(' + this.precision + ", " + this.scale + ')';
+        }
+    }
+
+    /**
+     * Map the DataType to the logical type of Parquet
+     * @param columnType the DataType of a column, a JavaTimeType is taken as its temporal type
+     * @return the name of the logical type
+     */
+    public static String logicalTypeOf(final DataType columnType) {
+        final DataType dataType = JavaTimeType.unwrap(columnType);
+        if (dataType instanceof SmallIntType) {
+            return "INT16";
+        } else if (dataType instanceof IntegerType) {
+            return "INT32";
+        } else if (dataType instanceof BigIntType) {
+            return "INT64";
+        } else if (dataType instanceof FloatType) {
+            return "FLOAT";
+        } else if (dataType instanceof DoubleType) {
+            return "DOUBLE";
+        } else if (dataType instanceof DecimalType) {
+            return "DECIMAL";
+        } else if (dataType instanceof DateType) {
+            return "DATE";
+        } else if (dataType instanceof TimeType) {
+            return "TIME";
+        } else if (dataType instanceof TimestampType) {
+            return "TIMESTAMP";
+        } else if (dataType instanceof BlobType) {
+            return "BINARY";
+        } else if (dataType instanceof CharType || dataType instanceof VarCharType ||
+                dataType instanceof ClobType || dataType instanceof UnknownType) {
+            return "STRING";
+        } else {
+            throw new UnsupportedOperationException(dataType + " is not supported");
+        }
+    }
+
+    /**
+     * @param columnType the DataType of a column
+     * @return how a non-null value of the DataType is kept by {@link DataType#writeToBuffer}
+     */
+    private static String encodingOf(final DataType columnType) {
+        final DataType dataType = JavaTimeType.unwrap(columnType);
+        if (dataType instanceof SmallIntType) {
+            return "INT16";
+        } else if (dataType instanceof IntegerType) {
+            return "INT32";
+        } else if (dataType instanceof BigIntType) {
+            return "INT64";
+        } else if (dataType instanceof FloatType) {
+            return "FLOAT";
+        } else if (dataType instanceof DoubleType) {
+            return "DOUBLE";
+        } else if (dataType instanceof DecimalType) {
+            return "INT32_BYTES"; // scale, unscaled value in two's-complement
+        } else if (dataType instanceof DateType) {
+            return "INT64"; // epoch day
+        } else if (dataType instanceof TimeType) {
+            return "INT64"; // nanosecond of day
+        } else if (dataType instanceof TimestampType) {
+            return "INT64_INT32"; // epoch second as if in UTC, nanosecond
+        } else {
+            return "BYTES"; // UTF-8 for STRING
+        }
+    }
+
+    private static void writeFooter(final DataOutputStream out, final Collection<Column> columns,
+            final List<long[]> rowGroupMetas) throws IOException {
+        out.writeInt(columns.size());
+        for (final Column column : columns) {
+            final DataType dataType = JavaTimeType.unwrap(column.getDataType());
+            writeString(out, column.getName());
+            writeString(out, logicalTypeOf(dataType));
+            writeString(out, encodingOf(dataType));
+            if (dataType instanceof DecimalType) {
+                out.writeInt(((DecimalType) dataType).getPrecision());
+                out.writeInt(((DecimalType) dataType).getScale());
+            } else if (dataType instanceof TimestampType) {
+                out.writeInt(((TimestampType) dataType).getPrecision());
+                out.writeInt(0);
+            } else if (dataType instanceof TimeType) {
+                out.writeInt(((TimeType) dataType).getPrecision());
+                out.writeInt(0);
+            } else if (dataType instanceof VarCharType) {
+                out.writeInt(((VarCharType) dataType).getLength());
+                out.writeInt(0);
+            } else if (dataType instanceof CharType) {
+                out.writeInt(((CharType) dataType).getLength());
+                out.writeInt(0);
+            } else {
+                out.writeInt(0);
+                out.writeInt(0);
+            }
+            out.writeBoolean(!column.isNotNull());
+        }
+        out.writeInt(rowGroupMetas.size());
+        for (final long[] meta : rowGroupMetas) {
+            out.writeInt((int) meta[0]);
+            for (int i = 1; i < meta.length; i += 3) {
+                out.writeLong(meta[i]);
+                out.writeInt((int) meta[i + 1]);
+                out.writeInt((int) meta[i + 2]);
+            }
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static final class Footer {
+        private final List<ColumnMeta> columns;
+        private final List<long[]> rowGroupMetas; // in the same layout as written by write
+
+        Footer(final List<ColumnMeta> columns, final List<long[]> rowGroupMetas) {
+            this.columns = columns;
+            this.rowGroupMetas = rowGroupMetas;
+        }
+    }
+
+    private static Footer readFooter(final FileChannel channel, final Path file) throws IOException {
+        final long size = channel.size();
+        if (size < Integer.BYTES * 3) {
+            throw new IOException("Not a columnar table file: " + file);
+        }
+        final ByteBuffer head = ByteBuffer.allocate(Integer.BYTES);
+        readFully(channel, head, 0L, file);
+        final ByteBuffer tail = ByteBuffer.allocate(Integer.BYTES * 2);
+        readFully(channel, tail, size - Integer.BYTES * 2, file);
+        final int footerLength = tail.getInt(0);
+        if (head.getInt(0) != MAGIC || tail.getInt(Integer.BYTES) != MAGIC ||
+                footerLength < 0 || footerLength > size - Integer.BYTES * 3) {
+            throw new IOException("Not a columnar table file: " + file);
+        }
+        final ByteBuffer in = ByteBuffer.allocate(footerLength);
+        readFully(channel, in, size - Integer.BYTES * 2 - footerLength, file);
+        ((Buffer) in).flip();
+        try {
+            final int columnCount = in.getInt();
+            final List<ColumnMeta> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i += 1) {
+                columns.add(new ColumnMeta(readString(in), readString(in), readString(in), in.getInt(), in.getInt(),
+                        in.get() != 0));
+            }
+            final int rowGroupCount = in.getInt();
+            final List<long[]> rowGroupMetas = new ArrayList<>(rowGroupCount);
+            for (int i = 0; i < rowGroupCount; i += 1) {
+                final long[] meta = new long[1 + columnCount * 3];
+                meta[0] = in.getInt();
+                for (int j = 1; j < meta.length; j += 3) {
+                    meta[j] = in.getLong();
+                    meta[j + 1] = in.getInt();
+                    meta[j + 2] = in.getInt();
+                }
+                rowGroupMetas.add(meta);
+            }
+            return new Footer(columns, rowGroupMetas);
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            throw new IOException("Corrupted footer in " + file, ex);
+        }
+    }
+
+    private static String readString(final ByteBuffer in) {
+        final byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(final FileChannel channel, final ByteBuffer out, final long position,
+            final Path file) throws IOException {
+        long current = position;
+        while (out.hasRemaining()) {
+            final int count = channel.read(out, current);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of " + file);
+            }
+            current += count;
+        }
+    }
+
+    /**
+     * @return the indexes in the file of the columns named, or of all the columns if columnNames is null
+     */
+    private static int[] indexesOf(final List<ColumnMeta> columns, final List<String> columnNames, final Path file)
+            throws IOException {
+        if (columnNames == null) {
+            final int[] result = new int[columns.size()];
+            for (int i = 0; i < result.length; i += 1) {
+                result[i] = i;
+            }
+            return result;
+        }
+        final int[] result = new int[columnNames.size()];
+        for (int i = 0; i < result.length; i += 1) {
+            result[i] = -1;
+            for (int j = 0; j < columns.size(); j += 1) {
+                if (columns.get(j).getName().equalsIgnoreCase(columnNames.get(i))) {
+                    result[i] = j;
+                    break;
+                }
+            }
+            if (result[i] < 0) {
+                throw new IOException("No column " + columnNames.get(i) + " in " + file);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decode a non-null value written by {@link DataType#writeToBuffer}, the reverse of {@link #encodingOf}
+     */
+    private static Object decode(final ColumnMeta column, final ColumnBuffer buffer, final int row,
+            final Path file) throws IOException {
+        switch (column.getLogicalType()) {
+            case "INT16":
+                return buffer.getShort(row);
+            case "INT32":
+                return buffer.getInt(row);
+            case "INT64":
+                return buffer.getLong(row);
+            case "FLOAT":
+                return buffer.getFloat(row);
+            case "DOUBLE":
+                return buffer.getDouble(row);
+            case "DECIMAL":
+                return new BigDecimal(new BigInteger(buffer.getBytesAfterInt(row)), buffer.getInt(row));
+            case "DATE":
+                return LocalDate.ofEpochDay(buffer.getLong(row));
+            case "TIME":
+                return LocalTime.ofNanoOfDay(buffer.getLong(row));
+            case "TIMESTAMP":
+                return LocalDateTime.ofEpochSecond(buffer.getLong(row), buffer.getIntAfterLong(row), ZoneOffset.UTC);
+            case "BINARY":
+                return buffer.getBytes(row);
+            case "STRING":
+                return buffer.getString(row);
+            default:
+                throw new IOException("Unsupported logical type " + column.getLogicalType() + " in " + file);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * When a copy commits the rows written to the target DB: every N batches and / or every M bytes,
+ * instead of every batch (slow with a flush of the log per batch) or the whole table in one transaction
+ * (which bloats the undo / WAL and holds the locks until the end).
+ * The copy turns off the auto-commit mode of the target connection and restores it at the end.
+ */
+@Slf4j
+public class CommitPolicy {
+
+    /**
+     * 0 for no limit by batches
+     */
+    @Getter private final int batchesPerCommit;
+
+    /**
+     * 0 for no limit by bytes
+     */
+    @Getter private final long bytesPerCommit;
+
+    /**
+     * @param batchesPerCommit commit after this number of batches, 0 for no limit by batches
+     * @param bytesPerCommit commit after this (estimated) number of bytes, 0 for no limit by bytes;
+     *                       if both are 0, the whole copy is one transaction
+     */
+    public CommitPolicy(final int batchesPerCommit, final long bytesPerCommit) {
+        if (batchesPerCommit < 0 || bytesPerCommit < 0) {
+            throw new IllegalArgumentException("batchesPerCommit and bytesPerCommit must not be negative");
+        }
+        this.batchesPerCommit = batchesPerCommit;
+        this.bytesPerCommit = bytesPerCommit;
+    }
+
+    /**
+     * Start a copy on the connection
+     * @param connection the connection to the target DB
+     * @param transactionSql a statement executed at the beginning of every transaction,
+     *                       e.g. {@link DbMetaWriter#unloggedTransactionSqlFor}; null for none
+     * @return the Committer of the copy
+     * @throws SQLException if it failed to turn off the auto-commit mode or execute the transactionSql
+     */
+    public Committer begin(final Connection connection, final String transactionSql) throws SQLException {
+        final Committer result = new Committer(connection, transactionSql);
+        result.beginTransaction();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CommitPolicy{" +
+                "batchesPerCommit=" + this.batchesPerCommit +
+                ", bytesPerCommit=" + this.bytesPerCommit +
+                '}';
+    }
+
+    /**
+     * Counts the batches and the bytes of a copy since the last commit
+     */
+    public final class Committer {
+
+        private final Connection connection;
+        private final String transactionSql;
+        private final boolean autoCommit;
+
+        private int batches;
+        private long bytes;
+
+        @Getter private int commitCount;
+
+        private Committer(final Connection connection, final String transactionSql) throws SQLException {
+            this.connection = connection;
+            this.transactionSql = transactionSql;
+            this.autoCommit = connection.getAutoCommit();
+            if (this.autoCommit) {
+                connection.setAutoCommit(false);
+            }
+        }
+
+        /**
+         * Called after every batch executed, commits if the batches or the bytes reach the policy
+         * @param batchBytes the (estimated) number of bytes of the batch
+         * @throws SQLException if it failed to commit
+         */
+        public void afterBatch(final long batchBytes) throws SQLException {
+            this.batches += 1;
+            this.bytes += batchBytes;
+            if ((CommitPolicy.this.batchesPerCommit > 0 && this.batches >= CommitPolicy.this.batchesPerCommit) ||
+                    (CommitPolicy.this.bytesPerCommit > 0 && this.bytes >= CommitPolicy.this.bytesPerCommit)) {
+                this.commit();
+                this.beginTransaction();
+            }
+        }
+
+        /**
+         * Commit the rest and restore the auto-commit mode
+         * @throws SQLException if it failed to commit
+         */
+        public void finish() throws SQLException {
+            try {
+                this.commit();
+            } finally {
+                this.restoreAutoCommit();
+            }
+        }
+
+        /**
+         * Roll back the rows since the last commit and restore the auto-commit mode
+         * @throws SQLException if it failed to roll back
+         */
+        public void abort() throws SQLException {
+            try {
+                this.connection.rollback();
+            } finally {
+                this.restoreAutoCommit();
+            }
+        }
+
+        private void commit() throws SQLException {
+            this.connection.commit();
+            this.commitCount += 1;
+            if (log.isDebugEnabled()) {
+                log.debug("Committed after {} batch(es), {} byte(s)", this.batches, this.bytes);
+            }
+            this.batches = 0;
+            this.bytes = 0L;
+        }
+
+        private void beginTransaction() throws SQLException {
+            if (this.transactionSql != null) {
+                try (final Statement statement = this.connection.createStatement()) {
+                    statement.execute(this.transactionSql);
+                }
+            }
+        }
+
+        private void restoreAutoCommit() throws SQLException {
+            if (this.autoCommit) {
+                this.connection.setAutoCommit(true);
+            }
+        }
+    }
+}
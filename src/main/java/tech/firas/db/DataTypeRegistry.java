@@ -0,0 +1,133 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import tech.firas.db.datatype.DataType;
+
+/**
+ * The table-driven mapping between the data types of a DB and the DataTypes, replacing the if / else chains:
+ * a {@link DbMetaReader} looks up a factory by the name of the data type in the catalog,
+ * and a {@link DbMetaWriter} looks up a renderer by the class of the DataType to write the DDL.
+ * The dialects register their defaults; the users may register more, e.g. for a type read as
+ * {@link tech.firas.db.datatype.UnknownType}, or override a default.
+ */
+public class DataTypeRegistry {
+
+    /**
+     * Create a DataType from a row of the catalog of columns, e.g. information_schema.columns
+     */
+    @FunctionalInterface
+    public interface Factory {
+        DataType create(ResultSet catalogRow) throws SQLException;
+    }
+
+    /**
+     * Render a DataType as the data type in the DDL of a DB
+     */
+    @FunctionalInterface
+    public interface Renderer<T extends DataType> {
+        String render(T dataType);
+    }
+
+    private final Map<String, Factory> factories = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Renderer<?>> renderers = new ConcurrentHashMap<>();
+
+    /**
+     * @param typeName the name of the data type in the catalog of the DB, case-sensitive
+     * @param factory creates the DataType from the row of the catalog
+     * @return this
+     */
+    public DataTypeRegistry register(final String typeName, final Factory factory) {
+        this.factories.put(Objects.requireNonNull(typeName, "typeName must not be null"),
+                Objects.requireNonNull(factory, "factory must not be null"));
+        return this;
+    }
+
+    /**
+     * @param typeName the name of the data type in the catalog of the DB, case-sensitive
+     * @param dataType the DataType without parameters, e.g. {@link tech.firas.db.datatype.IntegerType#instance}
+     * @return this
+     */
+    public DataTypeRegistry register(final String typeName, final DataType dataType) {
+        Objects.requireNonNull(dataType, "dataType must not be null");
+        return this.register(typeName, catalogRow -> dataType);
+    }
+
+    /**
+     * @param type the class of the DataType, which also covers its subclasses without their own renderers
+     * @param renderer renders the DataType in the DDL
+     * @return this
+     */
+    public <T extends DataType> DataTypeRegistry registerRenderer(final Class<T> type,
+            final Renderer<? super T> renderer) {
+        this.renderers.put(Objects.requireNonNull(type, "type must not be null"),
+                Objects.requireNonNull(renderer, "renderer must not be null"));
+        return this;
+    }
+
+    /**
+     * @param type the class of the DataType
+     * @return the renderer registered for exactly the class, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends DataType> Renderer<? super T> getRenderer(final Class<T> type) {
+        return (Renderer<? super T>) this.renderers.get(type);
+    }
+
+    /**
+     * @param type the class of the DataType whose renderer is to be removed
+     * @return this
+     */
+    public DataTypeRegistry removeRenderer(final Class<? extends DataType> type) {
+        this.renderers.remove(type);
+        return this;
+    }
+
+    /**
+     * @param typeName the name of the data type in the catalog of the DB
+     * @param catalogRow the row of the catalog describing the column
+     * @return the DataType, or null if there is no factory registered for the type name
+     * @throws SQLException if the factory failed to read the catalog row
+     */
+    public DataType create(final String typeName, final ResultSet catalogRow) throws SQLException {
+        final Factory factory = typeName == null ? null : this.factories.get(typeName);
+        return factory == null ? null : factory.create(catalogRow);
+    }
+
+    /**
+     * @param dataType a DataType
+     * @return the data type in the DDL, or null if there is no renderer for the class of the DataType
+     *         or any of its superclasses
+     */
+    @SuppressWarnings("unchecked")
+    public String render(final DataType dataType) {
+        for (Class<?> type = dataType.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            final Renderer<DataType> renderer = (Renderer<DataType>) this.renderers.get(type);
+            if (renderer != null) {
+                return renderer.render(dataType);
+            }
+        }
+        return null;
+    }
+}
@@ -18,6 +18,8 @@ package tech.firas.db;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -25,16 +27,118 @@ import tech.firas.db.vo.Column;
 import tech.firas.db.vo.Index;
 import tech.firas.db.vo.Schema;
 import tech.firas.db.vo.Table;
+import tech.firas.db.vo.TableStatistics;
 
 public interface DbMetaReader extends DbMetaUtil {
 
+    /**
+     * @return the mapping from the names of the data types in the catalog of the DB to the DataTypes,
+     *         to which more mappings can be registered before reading
+     */
+    DataTypeRegistry getDataTypeRegistry();
+
     Set<Schema> read(Connection connection) throws SQLException;
 
     Set<Table> readTables(Connection connection, Schema schema) throws SQLException;
 
+    /**
+     * @param connection the DB Connection
+     * @return the schemas in the DB, without reading their tables
+     * @throws SQLException if it failed to query the DB
+     */
+    Set<Schema> readSchemas(Connection connection) throws SQLException;
+
+    /**
+     * @param connection the DB Connection
+     * @param schema the Schema
+     * @param filter the table name patterns, pushed down into the catalog query
+     * @return the tables in the schema accepted by the filter, without reading their columns and indexes
+     * @throws SQLException if it failed to query the DB
+     */
+    Set<Table> readTables(Connection connection, Schema schema, CatalogFilter filter) throws SQLException;
+
+    /**
+     * Read the columns of several tables of the same schema in as few queries as possible
+     * @param connection the DB Connection
+     * @param schema the Schema of the tables
+     * @param tables the Tables
+     * @return a Map with the Table as key and its columns (see {@link #readColumns(Connection, Table)}) as value,
+     *         without the tables that do not exist
+     * @throws SQLException if it failed to query the DB
+     */
+    Map<Table, Map<String, Column>> readColumns(Connection connection, Schema schema, Collection<Table> tables)
+            throws SQLException;
+
+    /**
+     * Read the indexes of several tables of the same schema in as few queries as possible
+     * @param connection the DB Connection
+     * @param schema the Schema of the tables
+     * @param tables the Tables, whose columns are used to resolve the columns of the indexes
+     * @return a Map with the Table as key and its indexes (see {@link #readIndexes(Connection, Table)}) as value
+     * @throws SQLException if it failed to query the DB
+     */
+    Map<Table, Map<String, Index>> readIndexes(Connection connection, Schema schema, Collection<Table> tables)
+            throws SQLException;
+
     Map<String, Column> readColumns(Connection connection, Table table) throws SQLException;
     Map<String, Index> readIndexes(Connection connection, Table table) throws SQLException;
 
     String selectAllSqlFor(Table table);
     String selectByPrimaryKeySqlFor(Table table);
+
+    /**
+     * Split the full scan of a table into disjoint slices by the physical location or the hash of the rows,
+     * so that a table without a usable primary key can still be read in parallel
+     * @param connection the DB Connection, used to read the statistics of the table if necessary
+     * @param table the Table
+     * @param partitionCount the number of slices
+     * @return a List of "SELECT" statements, one for each slice, which together return all the rows
+     * @throws SQLException if it failed to query the DB
+     */
+    List<String> selectPartitionSqlsFor(Connection connection, Table table, int partitionCount) throws SQLException;
+
+    /**
+     * Read the number of rows and the size of the data of a table from the statistics kept by the DB,
+     * without scanning the table
+     * @param connection the DB Connection
+     * @param table the Table
+     * @return the TableStatistics, whose values are {@link TableStatistics#UNKNOWN} if there is no statistics
+     * @throws SQLException if it failed to query the DB
+     */
+    TableStatistics readStatistics(Connection connection, Table table) throws SQLException;
+
+    /**
+     * Start a transaction on the coordinator connection and export its snapshot,
+     * so that other connections can see exactly the same data by {@link #useSnapshot}.
+     * The snapshot is valid only until the transaction on the coordinator connection ends,
+     * so the transaction must be kept open until all the other connections have used the snapshot.
+     * @param connection the coordinator DB Connection, whose auto-commit mode is turned off
+     * @return the ID of the snapshot
+     * @throws SQLException if it failed to export the snapshot
+     */
+    String exportSnapshot(Connection connection) throws SQLException;
+
+    /**
+     * @return whether {@link #exportSnapshot} and {@link #useSnapshot} are supported
+     */
+    boolean isSnapshotSupported();
+
+    /**
+     * Create a Statement whose queries stream the rows from a server-side cursor,
+     * configuring the connection as the JDBC driver requires, so that the memory in use
+     * does not grow with the size of the table. A warning is logged if streaming cannot be guaranteed.
+     * @param connection the DB Connection
+     * @param fetchSize the number of rows fetched in a round trip
+     * @return the StreamingStatement, which must be closed to restore the connection
+     * @throws SQLException if it failed to create the Statement
+     */
+    StreamingStatement openStreamingStatement(Connection connection, int fetchSize) throws SQLException;
+
+    /**
+     * Start a transaction that sees the data in the snapshot exported by {@link #exportSnapshot}
+     * @param connection the worker DB Connection, whose auto-commit mode is turned off
+     * @param snapshotId the ID of the snapshot
+     * @throws SQLException if it failed to use the snapshot
+     */
+    void useSnapshot(Connection connection, String snapshotId) throws SQLException;
 }
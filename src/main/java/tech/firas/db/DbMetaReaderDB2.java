@@ -22,6 +22,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -32,21 +33,19 @@ import org.apache.commons.lang3.StringUtils;
 
 import tech.firas.db.datatype.BigIntType;
 import tech.firas.db.datatype.BlobType;
-import tech.firas.db.datatype.CharType;
 import tech.firas.db.datatype.ClobType;
-import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.DataTypes;
 import tech.firas.db.datatype.DateType;
-import tech.firas.db.datatype.DecimalType;
+import tech.firas.db.datatype.DoubleType;
+import tech.firas.db.datatype.FloatType;
 import tech.firas.db.datatype.IntegerType;
-import tech.firas.db.datatype.TimeType;
-import tech.firas.db.datatype.TimestampType;
-import tech.firas.db.datatype.UnknownType;
-import tech.firas.db.datatype.VarCharType;
+import tech.firas.db.datatype.SmallIntType;
 import tech.firas.db.vo.Column;
 import tech.firas.db.vo.Index;
 import tech.firas.db.vo.Index.IndexType;
 import tech.firas.db.vo.Schema;
 import tech.firas.db.vo.Table;
+import tech.firas.db.vo.TableStatistics;
 
 public class DbMetaReaderDB2 extends AbstractDbMetaReader {
 
@@ -59,6 +58,21 @@ public class DbMetaReaderDB2 extends AbstractDbMetaReader {
      */
     @Override
     public Set<Schema> read(final Connection connection) throws SQLException {
+        final Set<Schema> result = this.readSchemas(connection);
+        for (final Schema schema : result) {
+            schema.setTables(this.readTables(connection, schema));
+        }
+        return result;
+    }
+
+    /**
+     * Refer to https://www.ibm.com/docs/en/db2/11.1?topic=views-syscatschemata
+     * @param connection the DB Connection
+     * @return a Set of Schema in the DB2 database, without the tables
+     * @throws SQLException if it failed to query DB2
+     */
+    @Override
+    public Set<Schema> readSchemas(final Connection connection) throws SQLException {
         try (final Statement statement = connection.createStatement()) {
             try (final ResultSet resultSet = statement.executeQuery(
                     "select schemaName, REMARKS from SYSCAT.SCHEMATA " +
@@ -69,7 +83,6 @@ public class DbMetaReaderDB2 extends AbstractDbMetaReader {
                     final Schema schema = new Schema();
                     schema.setName(resultSet.getString("schemaName"));
                     schema.setComment(resultSet.getString("REMARKS"));
-                    schema.setTables(this.readTables(connection, schema));
                     result.add(schema);
                 }
                 return result;
@@ -87,10 +100,32 @@ public class DbMetaReaderDB2 extends AbstractDbMetaReader {
      */
     @Override
     public Set<Table> readTables(final Connection connection, final Schema schema) throws SQLException {
+        final Set<Table> result = this.readTables(connection, schema, CatalogFilter.ALL);
+        for (final Table table : result) {
+            table.setColumnMap(this.readColumns(connection, table));
+            // setColumnMap must be before setIndexMap, as setIndexMap may use table.columnMap
+            table.setIndexMap(this.readIndexes(connection, table));
+        }
+        return result;
+    }
+
+    /**
+     * Refer to https://www.ibm.com/docs/en/db2/11.1?topic=views-syscattables
+     * @param connection the DB Connection
+     * @param schema the Schema
+     * @param filter the table name patterns
+     * @return a Set of Table in the specified Schema, without the columns and indexes
+     * @throws SQLException if it failed to query DB2
+     */
+    @Override
+    public Set<Table> readTables(final Connection connection, final Schema schema, final CatalogFilter filter)
+            throws SQLException {
         try (final PreparedStatement ps = connection.prepareStatement(
                 "select tabName, REMARKS from SYSCAT.TABLES " +
-                        "where tabSchema = ? and \"TYPE\" = 'T' order by tabName")) {
+                        "where tabSchema = ? and \"TYPE\" = 'T'" + filterSql("tabName", filter) +
+                        " order by tabName")) {
             ps.setString(1, schema.getName());
+            setFilterParameters(ps, 2, filter);
             try (final ResultSet resultSet = ps.executeQuery()) {
                 final Set<Table> result = new LinkedHashSet<>();
                 while (resultSet.next()) {
@@ -98,9 +133,6 @@ public class DbMetaReaderDB2 extends AbstractDbMetaReader {
                     table.setSchema(schema);
                     table.setName(resultSet.getString("tabName"));
                     table.setComment(resultSet.getString("REMARKS"));
-                    table.setColumnMap(this.readColumns(connection, table));
-                    // setColumnMap must be before setIndexMap, as setIndexMap may use table.columnMap
-                    table.setIndexMap(this.readIndexes(connection, table));
                     result.add(table);
                 }
                 return result;
@@ -126,12 +158,7 @@ public class DbMetaReaderDB2 extends AbstractDbMetaReader {
             try (final ResultSet resultSet = ps.executeQuery()) {
                 final LinkedHashMap<String, Column> result = new LinkedHashMap<>();
                 while (resultSet.next()) {
-                    final Column column = new Column();
-                    column.setTable(table);
-                    column.setName(resultSet.getString("tabName"));
-                    column.setNotNull( "N".equals(resultSet.getString("NULLS")) );
-                    column.setDataType(readDataType(resultSet));
-                    column.setComment(resultSet.getString("REMARKS"));
+                    final Column column = readColumn(table, resultSet);
                     result.put(column.getName(), column);
                 }
                 return result;
@@ -139,6 +166,49 @@ public class DbMetaReaderDB2 extends AbstractDbMetaReader {
         }
     }
 
+    /**
+     * Read the columns of the tables with one query, refer to
+     * https://www.ibm.com/docs/en/db2/11.1?topic=views-syscatcolumns
+     * @param connection the DB Connection
+     * @param schema the Schema of the tables
+     * @param tables the Tables
+     * @return a Map with the Table as key and a LinkedHashMap of its columns as value
+     * @throws SQLException if it failed to query DB2
+     */
+    @Override
+    public Map<Table, Map<String, Column>> readColumns(final Connection connection, final Schema schema,
+            final Collection<Table> tables) throws SQLException {
+        final Map<Table, Map<String, Column>> result = new LinkedHashMap<>();
+        if (tables.isEmpty()) {
+            return result;
+        }
+        try (final PreparedStatement ps = connection.prepareStatement(
+                "select tabName, colName, typeName, \"LENGTH\", SCALE, \"DEFAULT\", \"NULLS\", REMARKS " +
+                        "from SYSCAT.COLUMNS where tabSchema = ? and tabName in " + inList(tables.size()) +
+                        " order by tabName, colNo")) {
+            ps.setString(1, schema.getName());
+            final Map<String, Table> tableMap = setTableNameParameters(ps, 2, tables);
+            try (final ResultSet resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    final Table table = tableMap.get(resultSet.getString("tabName"));
+                    final Column column = readColumn(table, resultSet);
+                    result.computeIfAbsent(table, k -> new LinkedHashMap<>()).put(column.getName(), column);
+                }
+                return result;
+            }
+        }
+    }
+
+    private Column readColumn(final Table table, final ResultSet resultSet) throws SQLException {
+        final Column column = new Column();
+        column.setTable(table);
+        column.setName(resultSet.getString("colName"));
+        column.setNotNull( "N".equals(resultSet.getString("NULLS")) );
+        column.setDataType(this.readDataType(resultSet.getString("typeName"), resultSet));
+        column.setComment(resultSet.getString("REMARKS"));
+        return column;
+    }
+
     /**
      * Refer to https://www.ibm.com/docs/en/db2/9.7?topic=views-syscatindexes
      * and https://www.ibm.com/docs/en/db2/11.1?topic=views-syscatindexes
@@ -157,11 +227,7 @@ public class DbMetaReaderDB2 extends AbstractDbMetaReader {
             try (final ResultSet resultSet = ps.executeQuery()) {
                 final Map<String, Index> result = new LinkedHashMap<>();
                 while (resultSet.next()) {
-                    final Index index = new Index();
-                    index.setTable(table);
-                    index.setName(resultSet.getString("tabName"));
-                    index.setIndexType( readIndexType(resultSet.getString("uniqueRule")) );
-                    index.setColumns( this.readColumnsOfIndex(table, resultSet.getString("colNames")) );
+                    final Index index = this.readIndex(table, resultSet);
                     result.put(index.getName(), index);
                 }
                 return result;
@@ -169,55 +235,132 @@ public class DbMetaReaderDB2 extends AbstractDbMetaReader {
         }
     }
 
+    /**
+     * Read the indexes of the tables with one query, refer to
+     * https://www.ibm.com/docs/en/db2/11.1?topic=views-syscatindexes
+     * @param connection the DB Connection
+     * @param schema the Schema of the tables
+     * @param tables the Tables
+     * @return a Map with the Table as key and a Map of its indexes as value
+     * @throws SQLException if it failed to query DB2
+     */
+    @Override
+    public Map<Table, Map<String, Index>> readIndexes(final Connection connection, final Schema schema,
+            final Collection<Table> tables) throws SQLException {
+        final Map<Table, Map<String, Index>> result = new LinkedHashMap<>();
+        if (tables.isEmpty()) {
+            return result;
+        }
+        try (final PreparedStatement ps = connection.prepareStatement(
+                "select tabName, indName, colNames, uniqueRule " +
+                        "from SYSCAT.INDEXES where tabSchema = ? and tabName in " + inList(tables.size()) +
+                        " order by tabName, indName")) {
+            ps.setString(1, schema.getName());
+            final Map<String, Table> tableMap = setTableNameParameters(ps, 2, tables);
+            for (final Table table : tables) {
+                result.put(table, new LinkedHashMap<>());
+            }
+            try (final ResultSet resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    final Table table = tableMap.get(resultSet.getString("tabName"));
+                    final Index index = this.readIndex(table, resultSet);
+                    result.get(table).put(index.getName(), index);
+                }
+                return result;
+            }
+        }
+    }
+
+    private Index readIndex(final Table table, final ResultSet resultSet) throws SQLException {
+        final Index index = new Index();
+        index.setTable(table);
+        index.setName(resultSet.getString("indName"));
+        index.setIndexType( readIndexType(resultSet.getString("uniqueRule")) );
+        index.setColumns( this.readColumnsOfIndex(table, resultSet.getString("colNames")) );
+        return index;
+    }
+
+    /**
+     * Refer to https://www.ibm.com/docs/en/db2/11.1?topic=views-syscattables
+     * ("CARD" and "NPAGES" are -1 if the statistics are not collected by RUNSTATS)
+     * @param connection the DB Connection
+     * @param table the Table
+     * @return the TableStatistics by "CARD", "NPAGES" and the page size of the table space
+     * @throws SQLException if it failed to query DB2
+     */
+    @Override
+    public TableStatistics readStatistics(final Connection connection, final Table table) throws SQLException {
+        try (final PreparedStatement ps = connection.prepareStatement(
+                "select T.CARD, T.NPAGES, S.PAGESIZE from SYSCAT.TABLES T " +
+                        "join SYSCAT.TABLESPACES S on S.TBSPACEID = T.TBSPACEID " +
+                        "where T.TABSCHEMA = ? and T.TABNAME = ?")) {
+            ps.setString(1, table.getSchema().getName());
+            ps.setString(2, table.getName());
+            try (final ResultSet resultSet = ps.executeQuery()) {
+                final TableStatistics result = new TableStatistics();
+                result.setTable(table);
+                if (resultSet.next()) {
+                    final long rowCount = resultSet.getLong("CARD");
+                    final long pageCount = resultSet.getLong("NPAGES");
+                    if (rowCount >= 0 && pageCount >= 0) {
+                        result.setRowCount(rowCount);
+                        result.setDataSize(pageCount * resultSet.getLong("PAGESIZE"));
+                    }
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Split the table by the row ID, refer to
+     * https://www.ibm.com/docs/en/db2/11.1?topic=functions-rid-rid-bit
+     * @param connection the DB Connection (not used)
+     * @param table the Table
+     * @param partitionCount the number of slices
+     * @return a List of "SELECT" statements, one for each remainder of the row ID divided by partitionCount
+     */
+    @Override
+    public List<String> selectPartitionSqlsFor(final Connection connection, final Table table,
+            final int partitionCount) {
+        checkPartitionCount(partitionCount);
+        final String selectAllSql = this.selectAllSqlFor(table);
+        final List<String> result = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i += 1) {
+            result.add(selectAllSql + " T WHERE MOD(RID(T), " + partitionCount + ") = " + i);
+        }
+        return result;
+    }
+
     @Override
     public String quote(final String identifier) {
         return '"' + identifier + '"'; // TODO: complicated case with double quote in the identifier itself
     }
 
-    private static DataType readDataType(final ResultSet resultSet) throws SQLException {
-        final String typeName = resultSet.getString("typeName");
-        if ("INTEGER".equals(typeName)) {
-            return IntegerType.instance;
-        } else if ("BIGINT".equals(typeName)) {
-            return BigIntType.instance;
-
-        } else if ("DECIMAL".equals(typeName)) {
-            final DecimalType decimalType = new DecimalType();
-            decimalType.setPrecision(resultSet.getInt("LENGTH"));
-            decimalType.setScale(resultSet.getInt("SCALE"));
-            return decimalType;
-
-        } else if ("VARCHAR".equals(typeName) || "LONG VARCHAR".equals(typeName)) {
-            final VarCharType varCharType = new VarCharType();
-            varCharType.setLength(resultSet.getInt("LENGTH"));
-            return varCharType;
-        } else if ("CHARACTER".equals(typeName)) {
-            final CharType charType = new CharType();
-            charType.setLength(resultSet.getInt("LENGTH"));
-            return charType;
-
-        } else if ("TIMESTAMP".equals(typeName)) {
-            final TimestampType timestampType = new TimestampType();
-            timestampType.setPrecision(resultSet.getInt("SCALE"));
-            return timestampType;
-        } else if ("DATE".equals(typeName)) {
-            return DateType.instance;
-        } else if ("TIME".equals(typeName)) {
-            final TimeType timeType = new TimeType();
-            timeType.setPrecision(resultSet.getInt("SCALE"));
-            return timeType;
-
-        } else if ("CLOB".equals(typeName)) {
-            return ClobType.instance;
-
-        } else if ("BLOB".equals(typeName)) {
-            return BlobType.instance;
+    /**
+     * Refer to https://www.ibm.com/docs/en/db2/11.1?topic=elements-data-types
+     */
+    @Override
+    protected void registerDataTypes(final DataTypeRegistry registry) {
+        registry.register("INTEGER", IntegerType.instance)
+                .register("BIGINT", BigIntType.instance)
+                .register("SMALLINT", SmallIntType.instance)
 
-        } else {
-            final UnknownType unknownType = new UnknownType();
-            unknownType.setName(typeName);
-            return unknownType;
-        }
+                .register("REAL", FloatType.instance)
+                .register("DOUBLE", DoubleType.instance)
+                .register("DECIMAL", row -> DataTypes.decimal(row.getInt("LENGTH"), row.getInt("SCALE")))
+
+                .register("VARCHAR", row -> DataTypes.varChar(row.getInt("LENGTH")))
+                .register("LONG VARCHAR", row -> DataTypes.varChar(row.getInt("LENGTH")))
+                .register("CHARACTER", row -> DataTypes.fixedChar(row.getInt("LENGTH")))
+
+                .register("TIMESTAMP", row -> DataTypes.timestamp(row.getInt("SCALE")))
+                .register("DATE", DateType.instance)
+                .register("TIME", row -> DataTypes.time(row.getInt("SCALE")))
+
+                .register("CLOB", ClobType.instance)
+
+                .register("BLOB", BlobType.instance);
     }
 
     private static Index.IndexType readIndexType(final String uniqueRule) {
@@ -239,7 +382,7 @@ public class DbMetaReaderDB2 extends AbstractDbMetaReader {
         final List<Column> columnList = new ArrayList<>(columnArray.length - 1);
         for (int i = 1; i < columnArray.length; i += 1) {
             columnList.add(
-                    table.getColumnMap().get(columnArray[i])
+                    table.getColumn(columnArray[i])
             );
         }
         return columnList;
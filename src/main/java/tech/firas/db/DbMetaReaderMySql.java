@@ -21,33 +21,34 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 
 import tech.firas.db.datatype.BigIntType;
 import tech.firas.db.datatype.BlobType;
-import tech.firas.db.datatype.CharType;
 import tech.firas.db.datatype.ClobType;
-import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.DataTypes;
 import tech.firas.db.datatype.DateType;
-import tech.firas.db.datatype.DecimalType;
 import tech.firas.db.datatype.DoubleType;
+import tech.firas.db.datatype.FloatType;
 import tech.firas.db.datatype.IntegerType;
 import tech.firas.db.datatype.SmallIntType;
-import tech.firas.db.datatype.TimeType;
-import tech.firas.db.datatype.TimestampType;
-import tech.firas.db.datatype.UnknownType;
-import tech.firas.db.datatype.VarCharType;
 import tech.firas.db.vo.Column;
 import tech.firas.db.vo.Index;
 import tech.firas.db.vo.Index.IndexType;
 import tech.firas.db.vo.Schema;
 import tech.firas.db.vo.Table;
+import tech.firas.db.vo.TableStatistics;
 
 /**
  * For identifier case sensitivity, refer to
@@ -65,6 +66,21 @@ public class DbMetaReaderMySql extends AbstractDbMetaReader {
      */
     @Override
     public Set<Schema> read(final Connection connection) throws SQLException {
+        final Set<Schema> result = this.readSchemas(connection);
+        for (final Schema schema : result) {
+            schema.setTables(this.readTables(connection, schema));
+        }
+        return result;
+    }
+
+    /**
+     * Refer to https://dev.mysql.com/doc/refman/8.0/en/information-schema-schemata-table.html
+     * @param connection the DB Connection
+     * @return a Set of Schema in the MySQL database, without the tables
+     * @throws SQLException if it failed to query MySQL
+     */
+    @Override
+    public Set<Schema> readSchemas(final Connection connection) throws SQLException {
         final Set<Schema> result = new LinkedHashSet<>();
         try (final Statement statement = connection.createStatement()) {
             try (final ResultSet resultSet = statement.executeQuery(
@@ -79,9 +95,6 @@ public class DbMetaReaderMySql extends AbstractDbMetaReader {
                 }
             }
         }
-        for (final Schema schema : result) {
-            schema.setTables(this.readTables(connection, schema));
-        }
         return result;
     }
 
@@ -94,11 +107,34 @@ public class DbMetaReaderMySql extends AbstractDbMetaReader {
      */
     @Override
     public Set<Table> readTables(final Connection connection, final Schema schema) throws SQLException {
+        final Set<Table> result = this.readTables(connection, schema, CatalogFilter.ALL);
+        for (final Table table : result) {
+            table.setColumnMap(this.readColumns(connection, table));
+        }
+        for (final Table table : result) {
+            table.setIndexMap(this.readIndexes(connection, table));
+        }
+        return result;
+    }
+
+    /**
+     * Refer to https://dev.mysql.com/doc/refman/8.0/en/information-schema-tables-table.html
+     * @param connection the DB Connection
+     * @param schema the Schema
+     * @param filter the table name patterns
+     * @return a Set of Table in the specified Schema, without the columns and indexes
+     * @throws SQLException if it failed to query MySQL
+     */
+    @Override
+    public Set<Table> readTables(final Connection connection, final Schema schema, final CatalogFilter filter)
+            throws SQLException {
         final Set<Table> result = new LinkedHashSet<>();
         try (final PreparedStatement ps = connection.prepareStatement(
                 "SELECT table_name FROM information_schema.tables " +
-                        "WHERE table_schema = ? AND table_type = 'BASE TABLE' ORDER BY table_name")) {
+                        "WHERE table_schema = ? AND table_type = 'BASE TABLE'" + filterSql("table_name", filter) +
+                        " ORDER BY table_name")) {
             ps.setString(1, schema.getName());
+            setFilterParameters(ps, 2, filter);
             try (final ResultSet resultSet = ps.executeQuery()) {
                 while (resultSet.next()) {
                     final Table table = new Table();
@@ -108,12 +144,6 @@ public class DbMetaReaderMySql extends AbstractDbMetaReader {
                 }
             }
         }
-        for (final Table table : result) {
-            table.setColumnMap(this.readColumns(connection, table));
-        }
-        for (final Table table : result) {
-            table.setIndexMap(this.readIndexes(connection, table));
-        }
         return result;
     }
 
@@ -128,7 +158,7 @@ public class DbMetaReaderMySql extends AbstractDbMetaReader {
     public LinkedHashMap<String, Column> readColumns(final Connection connection, final Table table) throws SQLException {
         try (final PreparedStatement ps = connection.prepareStatement(
                 "SELECT column_name, data_type, character_maximum_length, " +
-                        "numeric_precision, numeric_scale, datetime_precision, column_default, is_nullable " +
+                        "numeric_precision, numeric_scale, datetime_precision, column_default, is_nullable, column_type " +
                         "FROM information_schema.columns " +
                         "WHERE table_schema = ? AND table_name = ? ORDER BY ordinal_position")) {
             ps.setString(1, table.getSchema().getName());
@@ -136,11 +166,7 @@ public class DbMetaReaderMySql extends AbstractDbMetaReader {
             try (final ResultSet resultSet = ps.executeQuery()) {
                 final LinkedHashMap<String, Column> result = new LinkedHashMap<>();
                 while (resultSet.next()) {
-                    final Column column = new Column();
-                    column.setTable(table);
-                    column.setName(resultSet.getString("column_name"));
-                    column.setNotNull( "NO".equals(resultSet.getString("is_nullable")) );
-                    column.setDataType(readDataType(resultSet));
+                    final Column column = readColumn(table, resultSet);
                     result.put(column.getName(), column);
                 }
                 return result;
@@ -148,6 +174,50 @@ public class DbMetaReaderMySql extends AbstractDbMetaReader {
         }
     }
 
+    /**
+     * Read the columns of the tables with one query, refer to
+     * https://dev.mysql.com/doc/refman/8.0/en/information-schema-columns-table.html
+     * @param connection the DB Connection
+     * @param schema the Schema of the tables
+     * @param tables the Tables
+     * @return a Map with the Table as key and a LinkedHashMap of its columns as value
+     * @throws SQLException if it failed to query MySQL
+     */
+    @Override
+    public Map<Table, Map<String, Column>> readColumns(final Connection connection, final Schema schema,
+            final Collection<Table> tables) throws SQLException {
+        final Map<Table, Map<String, Column>> result = new LinkedHashMap<>();
+        if (tables.isEmpty()) {
+            return result;
+        }
+        try (final PreparedStatement ps = connection.prepareStatement(
+                "SELECT table_name, column_name, data_type, character_maximum_length, " +
+                        "numeric_precision, numeric_scale, datetime_precision, column_default, is_nullable, column_type " +
+                        "FROM information_schema.columns " +
+                        "WHERE table_schema = ? AND table_name IN " + inList(tables.size()) +
+                        " ORDER BY table_name, ordinal_position")) {
+            ps.setString(1, schema.getName());
+            final Map<String, Table> tableMap = setTableNameParameters(ps, 2, tables);
+            try (final ResultSet resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    final Table table = tableMap.get(resultSet.getString("table_name"));
+                    final Column column = readColumn(table, resultSet);
+                    result.computeIfAbsent(table, k -> new LinkedHashMap<>()).put(column.getName(), column);
+                }
+                return result;
+            }
+        }
+    }
+
+    private Column readColumn(final Table table, final ResultSet resultSet) throws SQLException {
+        final Column column = new Column();
+        column.setTable(table);
+        column.setName(resultSet.getString("column_name"));
+        column.setNotNull( "NO".equals(resultSet.getString("is_nullable")) );
+        column.setDataType(this.readDataType(resultSet.getString("data_type"), resultSet));
+        return column;
+    }
+
     /**
      * Refer to https://www.postgresql.org/docs/13/view-pg-indexes.html
      * and https://www.postgresql.org/docs/13/infoschema-table-constraints.html
@@ -170,26 +240,170 @@ public class DbMetaReaderMySql extends AbstractDbMetaReader {
             try (final ResultSet resultSet = ps.executeQuery()) {
                 final Map<String, Index> result = new LinkedHashMap<>();
                 while (resultSet.next()) {
-                    final String indexName = resultSet.getString("index_name");
-                    final boolean unique = resultSet.getInt("non_unique") == 0;
-                    final String constraintType = resultSet.getString("constraint_type");
-                    final Index index = result.computeIfAbsent(indexName, k -> {
-                        final Index i = new Index();
-                        i.setTable(table);
-                        i.setName(indexName);
-                        i.setColumns(new LinkedList<>());
-                        readIndex(i, unique, constraintType);
-                        return i;
-                    });
-                    index.getColumns().add(
-                            table.getColumnMap().get(resultSet.getString("column_name"))
-                    );
+                    readIndexRow(table, resultSet, result);
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Read the indexes of the tables with one query, refer to
+     * https://dev.mysql.com/doc/refman/8.0/en/information-schema-statistics-table.html
+     * @param connection the DB Connection
+     * @param schema the Schema of the tables
+     * @param tables the Tables
+     * @return a Map with the Table as key and a Map of its indexes as value
+     * @throws SQLException if it failed to query MySQL
+     */
+    @Override
+    public Map<Table, Map<String, Index>> readIndexes(final Connection connection, final Schema schema,
+            final Collection<Table> tables) throws SQLException {
+        final Map<Table, Map<String, Index>> result = new LinkedHashMap<>();
+        if (tables.isEmpty()) {
+            return result;
+        }
+        try (final PreparedStatement ps = connection.prepareStatement(
+                "SELECT s.table_name, s.index_name, s.non_unique, s.column_name, c.constraint_type " +
+                        "FROM information_schema.statistics s " +
+                        "LEFT JOIN information_schema.table_constraints c " +
+                        "ON c.table_schema = s.table_schema AND c.table_name = s.table_name AND c.constraint_name = s.index_name " +
+                        "WHERE s.table_schema = ? AND s.table_name IN " + inList(tables.size()) +
+                        " ORDER BY s.table_name, s.index_name, s.seq_in_index, c.constraint_type")) {
+            ps.setString(1, schema.getName());
+            final Map<String, Table> tableMap = setTableNameParameters(ps, 2, tables);
+            for (final Table table : tables) {
+                result.put(table, new LinkedHashMap<>());
+            }
+            try (final ResultSet resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    final Table table = tableMap.get(resultSet.getString("table_name"));
+                    readIndexRow(table, resultSet, result.get(table));
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Add the column in the row of information_schema.statistics to its index
+     */
+    private static void readIndexRow(final Table table, final ResultSet resultSet, final Map<String, Index> indexMap)
+            throws SQLException {
+        final String indexName = resultSet.getString("index_name");
+        final boolean unique = resultSet.getInt("non_unique") == 0;
+        final String constraintType = resultSet.getString("constraint_type");
+        final Index index = indexMap.computeIfAbsent(indexName, k -> {
+            final Index i = new Index();
+            i.setTable(table);
+            i.setName(indexName);
+            i.setColumns(new LinkedList<>());
+            readIndex(i, unique, constraintType);
+            return i;
+        });
+        index.getColumns().add(
+                table.getColumn(resultSet.getString("column_name"))
+        );
+    }
+
+    /**
+     * MySQL has no stable physical row address accessible in SQL,
+     * so the table is split by the CRC32 of the primary key columns
+     * (or all the columns if there is no primary key) except the LOB columns.
+     * Refer to https://dev.mysql.com/doc/refman/8.0/en/mathematical-functions.html#function_crc32
+     * @param connection the DB Connection (not used)
+     * @param table the Table
+     * @param partitionCount the number of slices
+     * @return a List of "SELECT" statements, one for each remainder of the hash divided by partitionCount
+     */
+    @Override
+    public List<String> selectPartitionSqlsFor(final Connection connection, final Table table,
+            final int partitionCount) {
+        checkPartitionCount(partitionCount);
+        Collection<Column> hashColumns = table.getPrimaryKeyColumns().stream()
+                .filter(column -> !(column.getDataType() instanceof ClobType) &&
+                        !(column.getDataType() instanceof BlobType))
+                .collect(Collectors.toList());
+        if (hashColumns.isEmpty()) {
+            hashColumns = table.getPrimaryKeyColumns();
+        }
+        // CONCAT_WS skips NULL, which does not matter as the hash only needs to be deterministic
+        final String hash = "CRC32(CONCAT_WS(0x1F, " + hashColumns.stream()
+                .map(Column::getName)
+                .map(this::quote)
+                .collect(Collectors.joining(", ")) + "))";
+        final String selectAllSql = this.selectAllSqlFor(table);
+        final List<String> result = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i += 1) {
+            result.add(selectAllSql + " WHERE MOD(" + hash + ", " + partitionCount + ") = " + i);
+        }
+        return result;
+    }
+
+    /**
+     * Refer to https://dev.mysql.com/doc/refman/8.0/en/information-schema-tables-table.html
+     * ("table_rows" is only an approximation for InnoDB)
+     * @param connection the DB Connection
+     * @param table the Table
+     * @return the TableStatistics by "table_rows" and "data_length"
+     * @throws SQLException if it failed to query MySQL
+     */
+    @Override
+    public TableStatistics readStatistics(final Connection connection, final Table table) throws SQLException {
+        try (final PreparedStatement ps = connection.prepareStatement(
+                "SELECT table_rows, data_length FROM information_schema.tables " +
+                        "WHERE table_schema = ? AND table_name = ?")) {
+            ps.setString(1, table.getSchema().getName());
+            ps.setString(2, table.getName());
+            try (final ResultSet resultSet = ps.executeQuery()) {
+                final TableStatistics result = new TableStatistics();
+                result.setTable(table);
+                if (resultSet.next()) {
+                    final long rowCount = resultSet.getLong("table_rows");
+                    if (!resultSet.wasNull()) {
+                        result.setRowCount(rowCount);
+                        result.setDataSize(resultSet.getLong("data_length"));
+                    }
                 }
                 return result;
             }
         }
     }
 
+    /**
+     * MySQL Connector/J reads all the rows into memory unless the fetch size is
+     * Integer.MIN_VALUE (row-by-row streaming) or the connection property "useCursorFetch=true"
+     * is set (server-side cursor with a positive fetch size), refer to
+     * https://dev.mysql.com/doc/connector-j/en/connector-j-reference-implementation-notes.html
+     * (no other statement can be executed on the connection while a streaming ResultSet is open)
+     * @param connection the DB Connection
+     * @param fetchSize the number of rows fetched in a round trip if "useCursorFetch=true"
+     * @return the StreamingStatement
+     * @throws SQLException if it failed to create the Statement
+     */
+    @Override
+    public StreamingStatement openStreamingStatement(final Connection connection, final int fetchSize)
+            throws SQLException {
+        final String url = connection.getMetaData().getURL();
+        final boolean useCursorFetch = url != null && url.toLowerCase(Locale.ROOT).contains("usecursorfetch=true");
+        final int actualFetchSize = useCursorFetch ? fetchSize : Integer.MIN_VALUE;
+        final Statement statement = createForwardOnlyStatement(connection);
+        try {
+            statement.setFetchSize(actualFetchSize);
+            if (statement.getFetchSize() != actualFetchSize) {
+                log.warn("The fetch size {} is not in effect (got {}), the rows may be buffered in memory",
+                        actualFetchSize, statement.getFetchSize());
+            } else if (log.isDebugEnabled()) {
+                log.debug(useCursorFetch ? "Server-side cursor fetch, {} row(s) at a time" :
+                        "Row-by-row streaming (fetch size {})", actualFetchSize);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            statement.close();
+            throw ex;
+        }
+        return new StreamingStatement(statement, connection, false);
+    }
+
     /**
      *
      * @param identifier the identifier to be quoted
@@ -201,58 +415,48 @@ public class DbMetaReaderMySql extends AbstractDbMetaReader {
     }
 
     /**
-     * See https://dev.mysql.com/doc/connector-j/en/connector-j-reference-type-conversions.html
+     * The column_type of information_schema.columns has the full definition, e.g. "enum('a','b')"
+     * Refer to https://dev.mysql.com/doc/refman/8.0/en/information-schema-columns-table.html
      */
-    private static DataType readDataType(final ResultSet resultSet) throws SQLException {
-        final String typeName = resultSet.getString("data_type");
-        if ("int".equals(typeName)) {
-            return IntegerType.instance;
-        } else if ("bigint".equals(typeName)) {
-            return BigIntType.instance;
-        } else if ("smallint".equals(typeName) || "tinyint".equals(typeName)) {
-            return SmallIntType.instance;
-
-        } else if ("double".equals(typeName)) {
-            return DoubleType.instance;
+    @Override
+    protected String nativeTypeOf(final String typeName, final ResultSet catalogRow) throws SQLException {
+        final String columnType = catalogRow.getString("column_type");
+        return columnType == null ? typeName : columnType;
+    }
 
-        } else if ("decimal".equals(typeName)) {
-            final DecimalType decimalType = new DecimalType();
-            decimalType.setPrecision(resultSet.getInt("numeric_precision"));
-            decimalType.setScale(resultSet.getInt("numeric_scale"));
-            return decimalType;
+    /**
+     * See https://dev.mysql.com/doc/connector-j/en/connector-j-reference-type-conversions.html
+     */
+    @Override
+    protected void registerDataTypes(final DataTypeRegistry registry) {
+        registry.register("int", IntegerType.instance)
+                .register("bigint", BigIntType.instance)
+                .register("smallint", SmallIntType.instance)
+                .register("tinyint", SmallIntType.instance)
 
-        } else if ("varchar".equals(typeName)) {
-            final VarCharType varCharType = new VarCharType();
-            varCharType.setLength(resultSet.getInt("character_maximum_length"));
-            return varCharType;
-        } else if ("character".equals(typeName)) {
-            final CharType charType = new CharType();
-            charType.setLength(resultSet.getInt("character_maximum_length"));
-            return charType;
+                .register("float", FloatType.instance)
+                .register("double", DoubleType.instance)
+                .register("decimal", row -> DataTypes.decimal(row.getInt("numeric_precision"),
+                        row.getInt("numeric_scale")))
 
-        } else if ("datetime".equals(typeName) || "timestamp".equals(typeName)) {
-            final TimestampType timestampType = new TimestampType();
-            timestampType.setPrecision(resultSet.getInt("datetime_precision"));
-            return timestampType;
-        } else if ("date".equals(typeName)) {
-            return DateType.instance;
-        } else if ("time".equals(typeName)) {
-            final TimeType timeType = new TimeType();
-            timeType.setPrecision(resultSet.getInt("datetime_precision"));
-            return timeType;
+                .register("varchar", row -> DataTypes.varChar(row.getInt("character_maximum_length")))
+                .register("char", row -> DataTypes.fixedChar(row.getInt("character_maximum_length")))
+                .register("character", row -> DataTypes.fixedChar(row.getInt("character_maximum_length")))
 
-        } else if ("text".equals(typeName) || "longtext".equals(typeName)) {
-            return ClobType.instance;
+                .register("datetime", row -> DataTypes.timestamp(row.getInt("datetime_precision")))
+                .register("timestamp", row -> DataTypes.timestamp(row.getInt("datetime_precision")))
+                .register("date", DateType.instance)
+                .register("time", row -> DataTypes.time(row.getInt("datetime_precision")))
 
-        } else if ("blob".equals(typeName)) {
-            return BlobType.instance;
+                .register("tinytext", ClobType.instance)
+                .register("text", ClobType.instance)
+                .register("mediumtext", ClobType.instance)
+                .register("longtext", ClobType.instance)
 
-        } else {
-            log.debug("Unknown type: {}", typeName);
-            final UnknownType unknownType = new UnknownType();
-            unknownType.setName(typeName);
-            return unknownType;
-        }
+                .register("tinyblob", BlobType.instance)
+                .register("blob", BlobType.instance)
+                .register("mediumblob", BlobType.instance)
+                .register("longblob", BlobType.instance);
     }
 
     private static void readIndex(final Index index, final boolean unique, final String constraintType) {
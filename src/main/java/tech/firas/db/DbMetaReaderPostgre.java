@@ -22,6 +22,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -36,23 +37,19 @@ import org.apache.commons.lang3.StringUtils;
 
 import tech.firas.db.datatype.BigIntType;
 import tech.firas.db.datatype.BlobType;
-import tech.firas.db.datatype.CharType;
 import tech.firas.db.datatype.ClobType;
-import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.DataTypes;
 import tech.firas.db.datatype.DateType;
-import tech.firas.db.datatype.DecimalType;
 import tech.firas.db.datatype.DoubleType;
+import tech.firas.db.datatype.FloatType;
 import tech.firas.db.datatype.IntegerType;
 import tech.firas.db.datatype.SmallIntType;
-import tech.firas.db.datatype.TimeType;
-import tech.firas.db.datatype.TimestampType;
-import tech.firas.db.datatype.UnknownType;
-import tech.firas.db.datatype.VarCharType;
 import tech.firas.db.vo.Column;
 import tech.firas.db.vo.Index;
 import tech.firas.db.vo.Index.IndexType;
 import tech.firas.db.vo.Schema;
 import tech.firas.db.vo.Table;
+import tech.firas.db.vo.TableStatistics;
 
 /**
  * Please be noted that according to https://www.postgresql.org/docs/13/sql-syntax-lexical.html
@@ -69,6 +66,8 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
             "ON (\\w+)\\.(\\w+) " +
             "USING (\\w+) \\((\\w+(?:, \\w+)*)\\)");
 
+    private static final Pattern SNAPSHOT_ID_PATTERN = Pattern.compile("^[0-9A-Fa-f]+(?:-[0-9A-Fa-f]+)+$");
+
     /**
      * Refer to https://www.postgresql.org/docs/13/information-schema.html
      * @param connection the DB Connection
@@ -77,6 +76,21 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
      */
     @Override
     public Set<Schema> read(final Connection connection) throws SQLException {
+        final Set<Schema> result = this.readSchemas(connection);
+        for (final Schema schema : result) {
+            schema.setTables(this.readTables(connection, schema));
+        }
+        return result;
+    }
+
+    /**
+     * Refer to https://www.postgresql.org/docs/13/infoschema-schemata.html
+     * @param connection the DB Connection
+     * @return a Set of Schema in the PostgreSQL database, without the tables
+     * @throws SQLException if it failed to query PostgreSQL
+     */
+    @Override
+    public Set<Schema> readSchemas(final Connection connection) throws SQLException {
         final Set<Schema> result = new LinkedHashSet<>();
         try (final Statement statement = connection.createStatement()) {
             try (final ResultSet resultSet = statement.executeQuery(
@@ -91,9 +105,6 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
                 }
             }
         }
-        for (final Schema schema : result) {
-            schema.setTables(this.readTables(connection, schema));
-        }
         return result;
     }
 
@@ -106,11 +117,34 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
      */
     @Override
     public Set<Table> readTables(final Connection connection, final Schema schema) throws SQLException {
+        final Set<Table> result = this.readTables(connection, schema, CatalogFilter.ALL);
+        for (final Table table : result) {
+            table.setColumnMap(this.readColumns(connection, table));
+        }
+        for (final Table table : result) {
+            table.setIndexMap(this.readIndexes(connection, table));
+        }
+        return result;
+    }
+
+    /**
+     * Refer to https://www.postgresql.org/docs/13/infoschema-tables.html
+     * @param connection the DB Connection
+     * @param schema the Schema
+     * @param filter the table name patterns
+     * @return a Set of Table in the specified Schema, without the columns and indexes
+     * @throws SQLException if it failed to query PostgreSQL
+     */
+    @Override
+    public Set<Table> readTables(final Connection connection, final Schema schema, final CatalogFilter filter)
+            throws SQLException {
         final Set<Table> result = new LinkedHashSet<>();
         try (final PreparedStatement ps = connection.prepareStatement(
                 "SELECT table_name FROM information_schema.tables " +
-                        "WHERE table_schema = ? AND table_type = 'BASE TABLE' ORDER BY table_name")) {
+                        "WHERE table_schema = ? AND table_type = 'BASE TABLE'" + filterSql("table_name", filter) +
+                        " ORDER BY table_name")) {
             ps.setString(1, schema.getName());
+            setFilterParameters(ps, 2, filter);
             try (final ResultSet resultSet = ps.executeQuery()) {
                 while (resultSet.next()) {
                     final Table table = new Table();
@@ -120,12 +154,6 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
                 }
             }
         }
-        for (final Table table : result) {
-            table.setColumnMap(this.readColumns(connection, table));
-        }
-        for (final Table table : result) {
-            table.setIndexMap(this.readIndexes(connection, table));
-        }
         return result;
     }
 
@@ -140,7 +168,7 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
     public LinkedHashMap<String, Column> readColumns(final Connection connection, final Table table) throws SQLException {
         try (final PreparedStatement ps = connection.prepareStatement(
                 "SELECT column_name, data_type, character_maximum_length, " +
-                        "numeric_precision, numeric_scale, datetime_precision, column_default, is_nullable " +
+                        "numeric_precision, numeric_scale, datetime_precision, column_default, is_nullable, udt_name " +
                         "FROM information_schema.columns " +
                         "WHERE table_schema = ? AND table_name = ? ORDER BY ordinal_position")) {
             ps.setString(1, table.getSchema().getName());
@@ -148,11 +176,7 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
             try (final ResultSet resultSet = ps.executeQuery()) {
                 final LinkedHashMap<String, Column> result = new LinkedHashMap<>();
                 while (resultSet.next()) {
-                    final Column column = new Column();
-                    column.setTable(table);
-                    column.setName(resultSet.getString("column_name"));
-                    column.setNotNull( "NO".equals(resultSet.getString("is_nullable")) );
-                    column.setDataType(readDataType(resultSet));
+                    final Column column = readColumn(table, resultSet);
                     result.put(column.getName(), column);
                 }
                 return result;
@@ -160,6 +184,50 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
         }
     }
 
+    /**
+     * Read the columns of the tables with one query, refer to
+     * https://www.postgresql.org/docs/13/infoschema-columns.html
+     * @param connection the DB Connection
+     * @param schema the Schema of the tables
+     * @param tables the Tables
+     * @return a Map with the Table as key and a LinkedHashMap of its columns as value
+     * @throws SQLException if it failed to query PostgreSQL
+     */
+    @Override
+    public Map<Table, Map<String, Column>> readColumns(final Connection connection, final Schema schema,
+            final Collection<Table> tables) throws SQLException {
+        final Map<Table, Map<String, Column>> result = new LinkedHashMap<>();
+        if (tables.isEmpty()) {
+            return result;
+        }
+        try (final PreparedStatement ps = connection.prepareStatement(
+                "SELECT table_name, column_name, data_type, character_maximum_length, " +
+                        "numeric_precision, numeric_scale, datetime_precision, column_default, is_nullable, udt_name " +
+                        "FROM information_schema.columns " +
+                        "WHERE table_schema = ? AND table_name IN " + inList(tables.size()) +
+                        " ORDER BY table_name, ordinal_position")) {
+            ps.setString(1, schema.getName());
+            final Map<String, Table> tableMap = setTableNameParameters(ps, 2, tables);
+            try (final ResultSet resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    final Table table = tableMap.get(resultSet.getString("table_name"));
+                    final Column column = readColumn(table, resultSet);
+                    result.computeIfAbsent(table, k -> new LinkedHashMap<>()).put(column.getName(), column);
+                }
+                return result;
+            }
+        }
+    }
+
+    private Column readColumn(final Table table, final ResultSet resultSet) throws SQLException {
+        final Column column = new Column();
+        column.setTable(table);
+        column.setName(resultSet.getString("column_name"));
+        column.setNotNull( "NO".equals(resultSet.getString("is_nullable")) );
+        column.setDataType(this.readDataType(resultSet.getString("data_type"), resultSet));
+        return column;
+    }
+
     /**
      * Refer to https://www.postgresql.org/docs/13/view-pg-indexes.html
      * and https://www.postgresql.org/docs/13/infoschema-table-constraints.html
@@ -194,56 +262,91 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
         }
     }
 
-    private static DataType readDataType(final ResultSet resultSet) throws SQLException {
-        final String typeName = resultSet.getString("data_type");
-        if ("integer".equals(typeName)) {
-            return IntegerType.instance;
-        } else if ("bigint".equals(typeName)) {
-            return BigIntType.instance;
-        } else if ("smallint".equals(typeName)) {
-            return SmallIntType.instance;
-
-        } else if ("double precision".equals(typeName)) {
-            return DoubleType.instance;
-
-        } else if ("numeric".equals(typeName)) {
-            final DecimalType decimalType = new DecimalType();
-            decimalType.setPrecision(resultSet.getInt("numeric_precision"));
-            decimalType.setScale(resultSet.getInt("numeric_scale"));
-            return decimalType;
-
-        } else if ("character varying".equals(typeName)) {
-            final VarCharType varCharType = new VarCharType();
-            varCharType.setLength(resultSet.getInt("character_maximum_length"));
-            return varCharType;
-        } else if ("character".equals(typeName)) {
-            final CharType charType = new CharType();
-            charType.setLength(resultSet.getInt("character_maximum_length"));
-            return charType;
-
-        } else if ("timestamp without time zone".equals(typeName)) {
-            final TimestampType timestampType = new TimestampType();
-            timestampType.setPrecision(resultSet.getInt("datetime_precision"));
-            return timestampType;
-        } else if ("date".equals(typeName)) {
-            return DateType.instance;
-        } else if ("time without time zone".equals(typeName)) {
-            final TimeType timeType = new TimeType();
-            timeType.setPrecision(resultSet.getInt("datetime_precision"));
-            return timeType;
-
-        } else if ("text".equals(typeName)) {
-            return ClobType.instance;
-
-        } else if ("bytea".equals(typeName)) {
-            return BlobType.instance;
+    /**
+     * Read the indexes of the tables with one query, refer to
+     * https://www.postgresql.org/docs/13/view-pg-indexes.html
+     * @param connection the DB Connection
+     * @param schema the Schema of the tables
+     * @param tables the Tables
+     * @return a Map with the Table as key and a Map of its indexes as value
+     * @throws SQLException if it failed to query PostgreSQL
+     */
+    @Override
+    public Map<Table, Map<String, Index>> readIndexes(final Connection connection, final Schema schema,
+            final Collection<Table> tables) throws SQLException {
+        final Map<Table, Map<String, Index>> result = new LinkedHashMap<>();
+        if (tables.isEmpty()) {
+            return result;
+        }
+        try (final PreparedStatement ps = connection.prepareStatement(
+                "SELECT p.tableName, p.indexName, p.indexDef, c.constraint_type " +
+                        "FROM pg_indexes p " +
+                        "LEFT JOIN information_schema.table_constraints c " +
+                        "ON c.table_schema = p.schemaName AND c.table_name = p.tableName AND c.constraint_name = p.indexName " +
+                        "WHERE p.schemaName = ? AND p.tableName IN " + inList(tables.size()) +
+                        " GROUP BY p.tableName, p.indexName, p.indexDef, c.constraint_type " +
+                        "ORDER BY p.tableName, p.indexName")) {
+            ps.setString(1, schema.getName());
+            final Map<String, Table> tableMap = setTableNameParameters(ps, 2, tables);
+            for (final Table table : tables) {
+                result.put(table, new LinkedHashMap<>());
+            }
+            try (final ResultSet resultSet = ps.executeQuery()) {
+                while (resultSet.next()) {
+                    final Table table = tableMap.get(resultSet.getString("tableName"));
+                    final Index index = new Index();
+                    index.setTable(table);
+                    index.setName(resultSet.getString("indexName"));
+                    readIndex(index, resultSet.getString("indexDef"),
+                            resultSet.getString("constraint_type"));
+                    result.get(table).put(index.getName(), index);
+                }
+                return result;
+            }
+        }
+    }
 
-        } else {
-            log.debug("Unknown type: {}", typeName);
-            final UnknownType unknownType = new UnknownType();
-            unknownType.setName(typeName);
-            return unknownType;
+    /**
+     * The data_type of information_schema.columns is "ARRAY" for an array and "USER-DEFINED" for a type
+     * from an extension (e.g. geometry), so the name is taken from udt_name,
+     * which is the element type prefixed by '_' for an array.
+     * Refer to https://www.postgresql.org/docs/13/infoschema-columns.html
+     */
+    @Override
+    protected String nativeTypeOf(final String typeName, final ResultSet catalogRow) throws SQLException {
+        final String udtName = catalogRow.getString("udt_name");
+        if ("ARRAY".equals(typeName) && udtName != null && udtName.startsWith("_")) {
+            return udtName.substring(1) + "[]";
+        } else if ("USER-DEFINED".equals(typeName) && udtName != null) {
+            return udtName;
         }
+        return typeName;
+    }
+
+    /**
+     * Refer to https://www.postgresql.org/docs/13/datatype.html
+     */
+    @Override
+    protected void registerDataTypes(final DataTypeRegistry registry) {
+        registry.register("integer", IntegerType.instance)
+                .register("bigint", BigIntType.instance)
+                .register("smallint", SmallIntType.instance)
+
+                .register("real", FloatType.instance)
+                .register("double precision", DoubleType.instance)
+                .register("numeric", row -> DataTypes.decimal(row.getInt("numeric_precision"),
+                        row.getInt("numeric_scale")))
+
+                .register("character varying", row -> DataTypes.varChar(row.getInt("character_maximum_length")))
+                .register("character", row -> DataTypes.fixedChar(row.getInt("character_maximum_length")))
+
+                .register("timestamp without time zone", row -> DataTypes.timestamp(row.getInt("datetime_precision")))
+                .register("date", DateType.instance)
+                .register("time without time zone", row -> DataTypes.time(row.getInt("datetime_precision")))
+
+                .register("text", ClobType.instance)
+
+                .register("bytea", BlobType.instance);
     }
 
     private static void readIndex(final Index index, final String indexDefinition, final String constraintType) {
@@ -256,9 +359,9 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
             log.debug("Quoted index name: {}", matcher.group(3));
         }
 
-        if ("PRIMARY_KEY".equals(constraintType)) {
+        if ("PRIMARY KEY".equals(constraintType)) {
             index.setIndexType(IndexType.PRIMARY_KEY);
-        } else if ( "UNIQUE".equals(matcher.group(1)) ) {
+        } else if (matcher.group(1) != null) { // "UNIQUE "
             log.debug("unique index {}.{}, constraint type: {}", index.getTable().getSchema().getName(),
                     index.getName(), constraintType);
             index.setIndexType(IndexType.UNIQUE_KEY);
@@ -268,16 +371,172 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
             index.setIndexType(IndexType.NORMAL);
         }
 
-        final Map<String, Column> columnMap = index.getTable().getColumnMap();
         final String[] columnArray = StringUtils.splitByWholeSeparatorPreserveAllTokens(matcher.group(7), ", ");
         final List<Column> columnList = new ArrayList<>(columnArray.length);
         for (final String columnName : columnArray) {
-            final Column column = columnMap.get(columnName);
-            columnList.add(column);
+            // pg_get_indexdef quotes a column name only if it is not all lower case
+            columnList.add(index.getTable().getColumn(
+                    Identifier.normalize(columnName, '"', Identifier.CaseFolding.LOWER)));
         }
         index.setColumns(columnList);
     }
 
+    /**
+     * Split the table into ranges of pages by the system column "ctid".
+     * The last range is open-ended so that the rows appended after reading the size of the table are included.
+     * Refer to https://www.postgresql.org/docs/13/ddl-system-columns.html
+     * @param connection the DB Connection, used to read the number of pages of the table
+     * @param table the Table
+     * @param partitionCount the number of slices
+     * @return a List of "SELECT" statements, one for each range of pages
+     * @throws SQLException if it failed to query PostgreSQL
+     */
+    @Override
+    public List<String> selectPartitionSqlsFor(final Connection connection, final Table table,
+            final int partitionCount) throws SQLException {
+        checkPartitionCount(partitionCount);
+        final long pageCount;
+        try (final PreparedStatement ps = connection.prepareStatement(
+                "SELECT pg_relation_size(?::regclass) / current_setting('block_size')::bigint")) {
+            ps.setString(1, this.tableName(table));
+            try (final ResultSet resultSet = ps.executeQuery()) {
+                pageCount = resultSet.next() ? resultSet.getLong(1) : 0L;
+            }
+        }
+        final long pagesPerPartition = Math.max(1L, (pageCount + partitionCount - 1) / partitionCount);
+        final String selectAllSql = this.selectAllSqlFor(table);
+        final List<String> result = new ArrayList<>(partitionCount);
+        for (int i = 0; i < partitionCount; i += 1) {
+            final StringBuilder builder = new StringBuilder(selectAllSql)
+                    .append(" WHERE ctid >= '(").append(i * pagesPerPartition).append(",0)'::tid");
+            if (i < partitionCount - 1) {
+                builder.append(" AND ctid < '(").append((i + 1) * pagesPerPartition).append(",0)'::tid");
+            }
+            result.add(builder.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Refer to https://www.postgresql.org/docs/13/catalog-pg-class.html
+     * ("reltuples" is -1 if the table has never been vacuumed or analyzed since PostgreSQL 14)
+     * @param connection the DB Connection
+     * @param table the Table
+     * @return the TableStatistics by "reltuples" and "relpages"
+     * @throws SQLException if it failed to query PostgreSQL
+     */
+    @Override
+    public TableStatistics readStatistics(final Connection connection, final Table table) throws SQLException {
+        try (final PreparedStatement ps = connection.prepareStatement(
+                "SELECT c.reltuples, c.relpages * current_setting('block_size')::bigint AS data_size " +
+                        "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                        "WHERE n.nspname = ? AND c.relname = ?")) {
+            ps.setString(1, table.getSchema().getName());
+            ps.setString(2, table.getName());
+            try (final ResultSet resultSet = ps.executeQuery()) {
+                final TableStatistics result = new TableStatistics();
+                result.setTable(table);
+                if (resultSet.next()) {
+                    final double rowCount = resultSet.getDouble("reltuples");
+                    if (rowCount >= 0) {
+                        result.setRowCount(Math.round(rowCount));
+                        result.setDataSize(resultSet.getLong("data_size"));
+                    }
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * @return true, by pg_export_snapshot() and "SET TRANSACTION SNAPSHOT"
+     */
+    @Override
+    public boolean isSnapshotSupported() {
+        return true;
+    }
+
+    /**
+     * Refer to https://www.postgresql.org/docs/13/functions-admin.html#FUNCTIONS-SNAPSHOT-SYNCHRONIZATION
+     * @param connection the coordinator DB Connection, whose auto-commit mode is turned off
+     *                   and transaction isolation level is set to REPEATABLE READ
+     * @return the ID of the snapshot
+     * @throws SQLException if it failed to query PostgreSQL
+     */
+    @Override
+    public String exportSnapshot(final Connection connection) throws SQLException {
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        try (final Statement statement = connection.createStatement();
+                final ResultSet resultSet = statement.executeQuery("SELECT pg_export_snapshot()")) {
+            if (!resultSet.next()) {
+                throw new SQLException("pg_export_snapshot() returned nothing");
+            }
+            final String result = resultSet.getString(1);
+            log.info("Snapshot exported: {}", result);
+            return result;
+        }
+    }
+
+    /**
+     * Refer to https://www.postgresql.org/docs/13/sql-set-transaction.html
+     * ("SET TRANSACTION SNAPSHOT" must be executed before any query in the transaction)
+     * @param connection the worker DB Connection, whose auto-commit mode is turned off
+     *                   and transaction isolation level is set to REPEATABLE READ
+     * @param snapshotId the ID of the snapshot
+     * @throws SQLException if it failed to execute on PostgreSQL
+     */
+    @Override
+    public void useSnapshot(final Connection connection, final String snapshotId) throws SQLException {
+        if (!SNAPSHOT_ID_PATTERN.matcher(snapshotId).matches()) {
+            throw new IllegalArgumentException("Invalid snapshot ID: " + snapshotId);
+        }
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        try (final Statement statement = connection.createStatement()) {
+            // the snapshot ID cannot be a parameter of a prepared statement
+            statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + '\'');
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Snapshot {} used", snapshotId);
+        }
+    }
+
+    /**
+     * The PostgreSQL JDBC driver fetches all the rows at once unless the auto-commit mode is off,
+     * the ResultSet is forward-only and the fetch size is positive, refer to
+     * https://jdbc.postgresql.org/documentation/query/#getting-results-based-on-a-cursor
+     * @param connection the DB Connection, whose auto-commit mode is turned off until the Statement is closed
+     * @param fetchSize the number of rows fetched in a round trip
+     * @return the StreamingStatement
+     * @throws SQLException if it failed to create the Statement
+     */
+    @Override
+    public StreamingStatement openStreamingStatement(final Connection connection, final int fetchSize)
+            throws SQLException {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("fetchSize must be at least 1");
+        }
+        final boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        final Statement statement;
+        try {
+            statement = createForwardOnlyStatement(connection);
+            statement.setFetchSize(fetchSize);
+        } catch (SQLException | RuntimeException ex) {
+            if (autoCommit) {
+                connection.setAutoCommit(true);
+            }
+            throw ex;
+        }
+        if (connection.getAutoCommit() || statement.getFetchSize() != fetchSize) {
+            log.warn("Cursor streaming is not in effect, the rows may be buffered in memory");
+        }
+        return new StreamingStatement(statement, connection, autoCommit);
+    }
+
     /**
      *
      * @param identifier the identifier to be quoted
@@ -302,24 +561,16 @@ public class DbMetaReaderPostgre extends AbstractDbMetaReader {
      * @return an identifier that align with the SQL standard (lower case converted to upper case)
      */
     public static String sqlStandardIdentifier(final String identifier) {
-        boolean hasUpperCase = false;
-        boolean hasLowerCase = false;
-        for (final char c : identifier.toCharArray()) {
-            if (Character.isLowerCase(c)) {
-                hasLowerCase = true;
-            } else if (Character.isUpperCase(c)) {
-                hasUpperCase = true;
+        if (Identifier.hasLowerCase(identifier)) {
+            if (Identifier.hasUpperCase(identifier)) {
+                log.warn("The identifier has both lower case letter and upper case letter: {}", identifier);
+                return identifier;
             }
+            // assume all lower case
+            return identifier.toUpperCase(Locale.ROOT);
         }
-        if (hasLowerCase) {
-            if (hasUpperCase) {
-                log.warn("The identifier has both lower case letter and upper case letter: " + identifier);
-            } else {
-                // assume all lower case
-                return identifier.toUpperCase(Locale.ROOT);
-            }
-        } else {
-            log.debug("The identifier has no lower case letter: " + identifier);
+        if (log.isDebugEnabled()) {
+            log.debug("The identifier has no lower case letter: {}", identifier);
         }
         return identifier;
     }
@@ -18,16 +18,24 @@ package tech.firas.db;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 import tech.firas.db.datatype.DataType;
 import tech.firas.db.vo.Column;
+import tech.firas.db.vo.ForeignKey;
 import tech.firas.db.vo.Index;
 import tech.firas.db.vo.Schema;
 import tech.firas.db.vo.Table;
 
 public interface DbMetaWriter extends DbMetaUtil {
 
+    /**
+     * @return the mapping from the DataTypes to the data types in the DDL of the DB,
+     *         to which more renderers can be registered before writing
+     */
+    DataTypeRegistry getDataTypeRegistry();
+
     String dataTypeToString(DataType dataType);
 
     String columnInCreateTable(Column column);
@@ -44,12 +52,94 @@ public interface DbMetaWriter extends DbMetaUtil {
     void createColumn(Connection connection, Column column) throws SQLException;
     String createStatementFor(Column column);
 
+    String alterColumnTypeSqlFor(Column column);
+    String alterColumnNullabilitySqlFor(Column column);
+    String dropColumnSqlFor(Column column);
+
+    String dropIndexSqlFor(Index index);
+
     String deleteAllSqlFor(Table table);
     String deleteByPrimaryKeySqlFor(Table table);
 
     String insertSqlFor(Table table);
 
+    /**
+     * Generate a statement that inserts a row or updates the existing row with the same primary key,
+     * in one round trip. The parameters are in the same order as those of {@link #insertSqlFor(Table)}.
+     * @param table the Table, whose primary key (or all columns if it has no primary key) identifies a row
+     * @return the dialect-specific "upsert" SQL
+     */
+    String upsertSqlFor(Table table);
+
     String updateByPrimaryKeySqlFor(Table table);
 
     String truncateTableSqlFor(Table table);
+
+    /**
+     * @param table the Table to be loaded
+     * @return the statement to stop logging the changes to the table, executed once before a bulk load,
+     *         or null if the DB only supports it per transaction (see {@link #unloggedTransactionSqlFor})
+     * @throws UnsupportedOperationException if the DB does not support an unlogged load
+     */
+    String beginUnloggedLoadSqlFor(Table table);
+
+    /**
+     * @param table the Table to be loaded
+     * @return the statement executed at the beginning of every transaction of an unlogged load,
+     *         or null if not needed
+     */
+    String unloggedTransactionSqlFor(Table table);
+
+    /**
+     * @param table the Table loaded
+     * @return the statement to log the changes to the table again, executed once after a bulk load,
+     *         or null if not needed
+     */
+    String endUnloggedLoadSqlFor(Table table);
+
+    /**
+     * @param table the Table to be loaded
+     * @return a query which returns a row if the table cannot be loaded unlogged
+     *         (e.g. a DB2 table not created with NOT LOGGED INITIALLY), or null if there is nothing to check
+     */
+    String unloggedLoadBlockerSqlFor(Table table);
+
+    /**
+     * @return the statements executed on every connection of a bulk load (see {@link BulkLoadSession})
+     *         to stop checking the foreign keys (and firing the triggers if the DB can) in the session
+     * @throws UnsupportedOperationException if the DB does not support a bulk load session
+     */
+    List<String> beginBulkLoadSessionSqls();
+
+    /**
+     * @return the statements executed on every connection of a bulk load to restore the checks of the session
+     */
+    List<String> endBulkLoadSessionSqls();
+
+    /**
+     * @param foreignKeys the foreign keys of the tables to be loaded
+     * @return the statements executed once before a bulk load to stop checking the foreign keys
+     *         if the DB cannot do it per session
+     */
+    List<String> suspendForeignKeysSqlsFor(Collection<ForeignKey> foreignKeys);
+
+    /**
+     * @param foreignKeys the foreign keys of the tables loaded
+     * @return the statements executed once after a bulk load to check the foreign keys again
+     */
+    List<String> resumeForeignKeysSqlsFor(Collection<ForeignKey> foreignKeys);
+
+    /**
+     * @param tables the tables loaded, with their columns and indexes read from the target DB
+     * @param foreignKeys the foreign keys of the tables loaded
+     * @return the queries of a count each, which must be 0 if the rows loaded do not violate any constraint
+     *         not checked during the bulk load
+     */
+    List<String> verifyBulkLoadSqlsFor(Collection<Table> tables, Collection<ForeignKey> foreignKeys);
+
+    /**
+     * @return whether a DDL statement can be rolled back in the target DB,
+     *         so that a batch of DDL statements can be executed in a transaction (see {@link DdlBatch})
+     */
+    boolean isTransactionalDdl();
 }
@@ -16,12 +16,21 @@
 
 package tech.firas.db;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import tech.firas.db.datatype.BlobType;
 import tech.firas.db.datatype.ClobType;
-import tech.firas.db.datatype.DataType;
 import tech.firas.db.datatype.DecimalType;
 import tech.firas.db.datatype.DoubleType;
 import tech.firas.db.datatype.FloatType;
+import tech.firas.db.vo.Column;
+import tech.firas.db.vo.ForeignKey;
+import tech.firas.db.vo.Table;
 
 /**
  * For "create schema", refer to
@@ -39,46 +48,195 @@ import tech.firas.db.datatype.FloatType;
  * For "alter table", refer to
  * https://www.ibm.com/docs/en/db2/9.7?topic=statements-alter-table
  * and https://www.ibm.com/docs/en/db2/11.1?topic=statements-alter-table
+ *
+ * For "merge", refer to
+ * https://www.ibm.com/docs/en/db2/9.7?topic=statements-merge
+ * and https://www.ibm.com/docs/en/db2/11.1?topic=statements-merge
  */
 public class DbMetaWriterDB2 extends AbstractDbMetaWriter {
 
     /**
      * Refer to https://www.ibm.com/docs/en/db2/9.7?topic=elements-data-types
      * and https://www.ibm.com/docs/en/db2/11.1?topic=elements-data-types
-     * @param dataType a DataType
-     * @return the data type in SQL for DB2
+     * @param registry the DataTypeRegistry of this writer
      */
     @Override
-    public String dataTypeToString(final DataType dataType) {
-        if (dataType instanceof DoubleType) {
-            return "DOUBLE PRECISION";
-        } else if (dataType instanceof FloatType) {
-            return "REAL";
-
-        } else if (dataType instanceof ClobType) {
-            return "CLOB";
-        } else if (dataType instanceof BlobType) {
-            return "BLOB";
-
-        } else if (dataType instanceof DecimalType) {
-            final DecimalType decimalType = (DecimalType) dataType;
-            final StringBuilder stringBuilder = new StringBuilder("DECIMAL");
-            if (decimalType.getPrecision() > 0) {
-                stringBuilder.append('(').append(decimalType.getPrecision());
-                if (0 <= decimalType.getScale() && decimalType.getScale() <= decimalType.getPrecision()) {
-                    stringBuilder.append(", ").append(decimalType.getScale());
-                }
-                stringBuilder.append(')');
-            }
-            return stringBuilder.toString();
-
-        } else {
-            return super.dataTypeToString(dataType);
-        }
+    protected void registerDataTypes(final DataTypeRegistry registry) {
+        super.registerDataTypes(registry);
+        registry.registerRenderer(DoubleType.class, dataType -> "DOUBLE PRECISION")
+                .registerRenderer(FloatType.class, dataType -> "REAL")
+
+                .registerRenderer(ClobType.class, dataType -> "CLOB")
+                .registerRenderer(BlobType.class, dataType -> "BLOB")
+
+                .registerRenderer(DecimalType.class, decimalType -> decimalToString("DECIMAL", decimalType));
     }
 
     @Override
     public String quote(final String identifier) {
         return '"' + identifier + '"'; // TODO: complicated case with double quote in the identifier itself
     }
+
+    /**
+     * DB2 has no "INSERT ... ON CONFLICT", so a MERGE with a one-row VALUES source is used.
+     * The parameter markers are cast to the column types
+     * because untyped parameter markers are not allowed in the VALUES clause here.
+     * @param table the Table
+     * @return a "MERGE INTO ... USING (VALUES ...)" statement
+     * @throws IllegalArgumentException if the table has no primary key
+     */
+    @Override
+    public String upsertSqlFor(final Table table) {
+        final Collection<Column> columns = table.getColumnMap().values();
+        final Collection<Column> primaryKeyColumns = this.upsertKeyColumnsOf(table);
+        final String columnNames = columns.stream()
+                .map(Column::getName)
+                .map(this::quote)
+                .collect(Collectors.joining(", "));
+        final StringBuilder builder = new StringBuilder("MERGE INTO ")
+                .append( this.tableName(table) ).append(" T\nUSING (VALUES (")
+                .append(
+                        columns.stream()
+                                .map(column -> "CAST(? AS " + this.dataTypeToString(column.getDataType()) + ')')
+                                .collect(Collectors.joining(", "))
+                )
+                .append(")) S (").append(columnNames).append(")\nON ")
+                .append(
+                        primaryKeyColumns.stream()
+                                .map(column -> "T." + this.quote(column.getName()) + " = S." + this.quote(column.getName()))
+                                .collect(Collectors.joining(" AND "))
+                );
+        final String updates = columns.stream()
+                .filter(column -> !primaryKeyColumns.contains(column))
+                .map(column -> this.quote(column.getName()) + " = S." + this.quote(column.getName()))
+                .collect(Collectors.joining(", "));
+        if (!updates.isEmpty()) {
+            builder.append("\nWHEN MATCHED THEN UPDATE SET ").append(updates);
+        }
+        return builder.append("\nWHEN NOT MATCHED THEN INSERT (").append(columnNames).append(") VALUES (")
+                .append(
+                        columns.stream()
+                                .map(column -> "S." + this.quote(column.getName()))
+                                .collect(Collectors.joining(", "))
+                )
+                .append(')').toString();
+    }
+
+    /**
+     * DB2 stops logging a table only until the end of the unit of work, see {@link #unloggedTransactionSqlFor}
+     * @param table the Table to be loaded
+     * @return null
+     */
+    @Override
+    public String beginUnloggedLoadSqlFor(final Table table) {
+        return null;
+    }
+
+    /**
+     * The changes to the table are not logged until the end of the unit of work.
+     * If the unit of work fails, the table is marked inaccessible and must be dropped and created again.
+     * Refer to https://www.ibm.com/docs/en/db2/11.1?topic=statements-alter-table
+     * @param table the Table to be loaded, which must have been created with NOT LOGGED INITIALLY
+     * @return an "ALTER TABLE ... ACTIVATE NOT LOGGED INITIALLY" statement
+     */
+    @Override
+    public String unloggedTransactionSqlFor(final Table table) {
+        return "ALTER TABLE " + this.tableName(table) + " ACTIVATE NOT LOGGED INITIALLY";
+    }
+
+    /**
+     * ACTIVATE NOT LOGGED INITIALLY fails on a table not created with NOT LOGGED INITIALLY
+     * (LOG_ATTRIBUTE '1' in SYSCAT.TABLES), which {@link #createStatementsFor} does not add
+     * @param table the Table to be loaded
+     * @return a query of the table in SYSCAT.TABLES if it was not created with NOT LOGGED INITIALLY
+     */
+    @Override
+    public String unloggedLoadBlockerSqlFor(final Table table) {
+        return "SELECT 1 FROM SYSCAT.TABLES WHERE TABSCHEMA = '" +
+                table.getSchema().getName().replace("'", "''") + "' AND TABNAME = '" +
+                table.getName().replace("'", "''") + "' AND LOG_ATTRIBUTE <> '1'";
+    }
+
+    /**
+     * DB2 has no session setting to skip the checks, nor a way to disable a trigger
+     * @return an empty list
+     */
+    @Override
+    public List<String> beginBulkLoadSessionSqls() {
+        return Collections.emptyList();
+    }
+
+    /**
+     * "SET INTEGRITY ... OFF" is for the LOAD utility: a table in the set integrity pending state
+     * does not accept an INSERT, so the foreign keys are altered to NOT ENFORCED instead
+     * @param foreignKeys the foreign keys of the tables to be loaded
+     * @return an "ALTER TABLE ... ALTER FOREIGN KEY ... NOT ENFORCED" statement for every foreign key
+     */
+    @Override
+    public List<String> suspendForeignKeysSqlsFor(final Collection<ForeignKey> foreignKeys) {
+        return foreignKeys.stream()
+                .map(foreignKey -> alterForeignKeySqlFor(foreignKey, "NOT ENFORCED"))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Altering a foreign key to ENFORCED may leave the table in the set integrity pending state,
+     * so the tables still pending are checked by "SET INTEGRITY ... IMMEDIATE CHECKED" afterwards,
+     * which fails if any row violates a constraint.
+     * Refer to https://www.ibm.com/docs/en/db2/11.1?topic=statements-set-integrity
+     * @param foreignKeys the foreign keys of the tables loaded
+     * @return the statements to enforce the foreign keys and check the tables again
+     */
+    @Override
+    public List<String> resumeForeignKeysSqlsFor(final Collection<ForeignKey> foreignKeys) {
+        if (foreignKeys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        final List<String> result = foreignKeys.stream()
+                .map(foreignKey -> alterForeignKeySqlFor(foreignKey, "ENFORCED"))
+                .collect(Collectors.toList());
+        final Set<Table> tables = new LinkedHashSet<>();
+        for (final ForeignKey foreignKey : foreignKeys) {
+            tables.add(foreignKey.getTable());
+        }
+        result.add("BEGIN\n" +
+                "  FOR T AS SELECT TABSCHEMA, TABNAME FROM SYSCAT.TABLES\n" +
+                "      WHERE STATUS = 'C' AND (TABSCHEMA, TABNAME) IN (VALUES " +
+                tables.stream()
+                        .map(table -> "('" + table.getSchema().getName().replace("'", "''") + "', '" +
+                                table.getName().replace("'", "''") + "')")
+                        .collect(Collectors.joining(", ")) +
+                ") DO\n" +
+                "    EXECUTE IMMEDIATE 'SET INTEGRITY FOR \"' || T.TABSCHEMA || '\".\"' || T.TABNAME ||\n" +
+                "        '\" IMMEDIATE CHECKED';\n" +
+                "  END FOR;\n" +
+                "END");
+        return result;
+    }
+
+    /**
+     * DB2 checks the foreign keys by "SET INTEGRITY ... IMMEDIATE CHECKED" in {@link #resumeForeignKeysSqlsFor}
+     * @param tables the tables loaded
+     * @param foreignKeys the foreign keys of the tables loaded
+     * @return an empty list
+     */
+    @Override
+    public List<String> verifyBulkLoadSqlsFor(final Collection<Table> tables,
+            final Collection<ForeignKey> foreignKeys) {
+        return Collections.emptyList();
+    }
+
+    private String alterForeignKeySqlFor(final ForeignKey foreignKey, final String enforcement) {
+        return "ALTER TABLE " + this.tableName(foreignKey.getTable()) + " ALTER FOREIGN KEY " +
+                this.quote(foreignKey.getName()) + ' ' + enforcement;
+    }
+
+    /**
+     * DB2 does not commit the unit of work implicitly for a DDL statement
+     * @return true
+     */
+    @Override
+    public boolean isTransactionalDdl() {
+        return true;
+    }
 }
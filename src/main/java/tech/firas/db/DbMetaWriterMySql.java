@@ -0,0 +1,184 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import tech.firas.db.datatype.BlobType;
+import tech.firas.db.datatype.ClobType;
+import tech.firas.db.datatype.DecimalType;
+import tech.firas.db.datatype.DoubleType;
+import tech.firas.db.datatype.FloatType;
+import tech.firas.db.vo.Column;
+import tech.firas.db.vo.ForeignKey;
+import tech.firas.db.vo.Index;
+import tech.firas.db.vo.Index.IndexType;
+import tech.firas.db.vo.Schema;
+import tech.firas.db.vo.Table;
+
+/**
+ * For "create table", refer to
+ * https://dev.mysql.com/doc/refman/8.0/en/create-table.html
+ *
+ * For "insert ... on duplicate key update", refer to
+ * https://dev.mysql.com/doc/refman/8.0/en/insert-on-duplicate.html
+ */
+public class DbMetaWriterMySql extends AbstractDbMetaWriter {
+
+    /**
+     * Refer to https://dev.mysql.com/doc/refman/8.0/en/data-types.html
+     * @param registry the DataTypeRegistry of this writer
+     */
+    @Override
+    protected void registerDataTypes(final DataTypeRegistry registry) {
+        super.registerDataTypes(registry);
+        registry.registerRenderer(DoubleType.class, dataType -> "DOUBLE")
+                .registerRenderer(FloatType.class, dataType -> "FLOAT")
+
+                .registerRenderer(ClobType.class, dataType -> "LONGTEXT")
+                .registerRenderer(BlobType.class, dataType -> "LONGBLOB")
+
+                .registerRenderer(DecimalType.class, decimalType -> decimalToString("DECIMAL", decimalType));
+    }
+
+    /**
+     * Refer to https://dev.mysql.com/doc/refman/8.0/en/identifiers.html
+     * @param identifier the identifier to be quoted
+     * @return the quoted identifier for MySQL (quoted with back quote '`', a back quote in it doubled)
+     */
+    @Override
+    public String quote(final String identifier) {
+        return '`' + identifier.replace("`", "``") + '`';
+    }
+
+    @Override
+    public String createStatementFor(final Schema schema) {
+        return super.createStatementFor(schema, true);
+    }
+
+    @Override
+    public List<String> createStatementsFor(final Table table) {
+        return super.createStatementsFor(table, true);
+    }
+
+    /**
+     * MySQL changes the type and the nullability of a column together by "MODIFY COLUMN".
+     * Refer to https://dev.mysql.com/doc/refman/8.0/en/alter-table.html
+     * @param column the Column with the new type and nullability
+     * @return an "ALTER TABLE ... MODIFY COLUMN" statement
+     */
+    @Override
+    public String alterColumnTypeSqlFor(final Column column) {
+        return "ALTER TABLE " + this.tableName(column.getTable()) + " MODIFY COLUMN " +
+                this.columnInCreateTable(column);
+    }
+
+    @Override
+    public String alterColumnNullabilitySqlFor(final Column column) {
+        return this.alterColumnTypeSqlFor(column);
+    }
+
+    /**
+     * An index of MySQL belongs to the table rather than the schema
+     * @param index the Index
+     * @return a "DROP INDEX ... ON" or "ALTER TABLE ... DROP PRIMARY KEY" statement
+     */
+    @Override
+    public String dropIndexSqlFor(final Index index) {
+        if (index.getIndexType() == IndexType.PRIMARY_KEY) {
+            return super.dropIndexSqlFor(index);
+        }
+        return "DROP INDEX " + this.quote(index.getName()) + " ON " + this.tableName(index.getTable());
+    }
+
+    /**
+     * "VALUES(col)" is used instead of the row alias introduced in MySQL 8.0.19
+     * so that the statement also works with MySQL 5.7.
+     * @param table the Table
+     * @return an "INSERT ... ON DUPLICATE KEY UPDATE" statement
+     * @throws IllegalArgumentException if the table has no primary key
+     */
+    @Override
+    public String upsertSqlFor(final Table table) {
+        final Collection<Column> primaryKeyColumns = this.upsertKeyColumnsOf(table);
+        String updates = table.getColumnMap().values().stream()
+                .filter(column -> !primaryKeyColumns.contains(column))
+                .map(column -> this.quote(column.getName()) + " = VALUES(" + this.quote(column.getName()) + ')')
+                .collect(Collectors.joining(", "));
+        if (updates.isEmpty()) {
+            // nothing to update, assign a key column to itself to ignore the duplicate
+            // ("INSERT IGNORE" would also ignore other errors)
+            final String keyColumn = this.quote(primaryKeyColumns.iterator().next().getName());
+            updates = keyColumn + " = " + keyColumn;
+        }
+        return this.insertSqlFor(table) + "\nON DUPLICATE KEY UPDATE " + updates;
+    }
+
+    /**
+     * MySQL cannot suspend the triggers. With unique_checks = 0, InnoDB may skip checking the secondary unique
+     * indexes, so they are verified after the load (see {@link #verifyBulkLoadSqlsFor}).
+     * Refer to https://dev.mysql.com/doc/refman/8.0/en/optimizing-innodb-bulk-data-loading.html
+     * @return the statements to set foreign_key_checks and unique_checks to 0
+     */
+    @Override
+    public List<String> beginBulkLoadSessionSqls() {
+        return Arrays.asList("SET foreign_key_checks = 0", "SET unique_checks = 0");
+    }
+
+    @Override
+    public List<String> endBulkLoadSessionSqls() {
+        return Arrays.asList("SET unique_checks = 1", "SET foreign_key_checks = 1");
+    }
+
+    /**
+     * @param tables the tables loaded
+     * @param foreignKeys the foreign keys of the tables loaded
+     * @return the counts of the orphan rows for every foreign key, and a count of the duplicate keys
+     *         for every unique index
+     */
+    @Override
+    public List<String> verifyBulkLoadSqlsFor(final Collection<Table> tables,
+            final Collection<ForeignKey> foreignKeys) {
+        final List<String> result = new ArrayList<>(super.verifyBulkLoadSqlsFor(tables, foreignKeys));
+        for (final Table table : tables) {
+            for (final Index index : table.getIndexMap().values()) {
+                if (index.getIndexType() == IndexType.UNIQUE_KEY) {
+                    result.add(this.countDuplicatesSqlFor(index));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A key with a null in any of its columns is never a duplicate
+     */
+    private String countDuplicatesSqlFor(final Index index) {
+        final String columnNames = index.getColumns().stream()
+                .map(column -> this.quote(column.getName()))
+                .collect(Collectors.joining(", "));
+        return "SELECT COUNT(*) FROM (SELECT 1 FROM " + this.tableName(index.getTable()) + " WHERE " +
+                index.getColumns().stream()
+                        .map(column -> this.quote(column.getName()) + " IS NOT NULL")
+                        .collect(Collectors.joining(" AND ")) +
+                " GROUP BY " + columnNames + " HAVING COUNT(*) > 1) d";
+    }
+}
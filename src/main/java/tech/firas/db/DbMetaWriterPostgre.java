@@ -16,14 +16,19 @@
 
 package tech.firas.db;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import tech.firas.db.datatype.BlobType;
 import tech.firas.db.datatype.ClobType;
-import tech.firas.db.datatype.DataType;
 import tech.firas.db.datatype.DecimalType;
 import tech.firas.db.datatype.DoubleType;
 import tech.firas.db.datatype.FloatType;
+import tech.firas.db.vo.Column;
+import tech.firas.db.vo.Index;
+import tech.firas.db.vo.Index.IndexType;
 import tech.firas.db.vo.Schema;
 import tech.firas.db.vo.Table;
 
@@ -31,32 +36,19 @@ public class DbMetaWriterPostgre extends AbstractDbMetaWriter {
 
     /**
      * Refer to <a href="https://www.postgresql.org/docs/11/datatype.html">data type</a>
-     * @param dataType DataType
-     * @return String
+     * @param registry the DataTypeRegistry of this writer
      */
     @Override
-    public String dataTypeToString(final DataType dataType) {
-        if (dataType instanceof DoubleType) {
-            return "DOUBLE PRECISION";
-        } else if (dataType instanceof FloatType) {
-            return "REAL";
-
-        } else if (dataType instanceof ClobType) {
-            return "TEXT";
-
-        } else if (dataType instanceof BlobType) {
-            return "BYTEA";
-
-        } else if (dataType instanceof DecimalType) {
-            final DecimalType decimalType = (DecimalType) dataType;
-            return "NUMERIC" + (decimalType.getPrecision() > 0 ?
-                    "(" + decimalType.getPrecision() +
-                            (0 <= decimalType.getScale() && decimalType.getScale() <= decimalType.getPrecision() ?
-                                    ", " + decimalType.getScale() : "") + ')' : "");
-
-        } else {
-            return super.dataTypeToString(dataType);
-        }
+    protected void registerDataTypes(final DataTypeRegistry registry) {
+        super.registerDataTypes(registry);
+        registry.registerRenderer(DoubleType.class, dataType -> "DOUBLE PRECISION")
+                .registerRenderer(FloatType.class, dataType -> "REAL")
+
+                .registerRenderer(ClobType.class, dataType -> "TEXT")
+
+                .registerRenderer(BlobType.class, dataType -> "BYTEA")
+
+                .registerRenderer(DecimalType.class, decimalType -> decimalToString("NUMERIC", decimalType));
     }
 
     /**
@@ -78,4 +70,83 @@ public class DbMetaWriterPostgre extends AbstractDbMetaWriter {
     public List<String> createStatementsFor(final Table table) {
         return super.createStatementsFor(table, true);
     }
+
+    /**
+     * A primary key of PostgreSQL is a constraint, which is dropped with the index behind it.
+     * Refer to <a href="https://www.postgresql.org/docs/11/sql-altertable.html">ALTER TABLE</a>
+     * @param index the Index
+     * @return a "DROP INDEX" or "ALTER TABLE ... DROP CONSTRAINT" statement
+     */
+    @Override
+    public String dropIndexSqlFor(final Index index) {
+        if (index.getIndexType() == IndexType.PRIMARY_KEY) {
+            return "ALTER TABLE " + this.tableName(index.getTable()) + " DROP CONSTRAINT " +
+                    this.quote(index.getName());
+        }
+        return super.dropIndexSqlFor(index);
+    }
+
+    /**
+     * Refer to <a href="https://www.postgresql.org/docs/11/sql-insert.html#SQL-ON-CONFLICT">ON CONFLICT</a>.
+     * The conflict target is the primary key.
+     * @param table the Table
+     * @return an "INSERT ... ON CONFLICT ... DO UPDATE" statement
+     * @throws IllegalArgumentException if the table has no primary key
+     */
+    @Override
+    public String upsertSqlFor(final Table table) {
+        final Collection<Column> primaryKeyColumns = this.upsertKeyColumnsOf(table);
+        final String updates = table.getColumnMap().values().stream()
+                .filter(column -> !primaryKeyColumns.contains(column))
+                .map(column -> this.quote(column.getName()) + " = EXCLUDED." + this.quote(column.getName()))
+                .collect(Collectors.joining(", "));
+        return this.insertSqlFor(table) + "\nON CONFLICT (" +
+                primaryKeyColumns.stream()
+                        .map(Column::getName)
+                        .map(this::quote)
+                        .collect(Collectors.joining(", ")) +
+                (updates.isEmpty() ? ") DO NOTHING" : ") DO UPDATE SET " + updates);
+    }
+
+    /**
+     * An unlogged table writes no WAL; "SET LOGGED" afterwards writes the whole table to the WAL once,
+     * which is still much less than logging every row and its index entries.
+     * Refer to https://www.postgresql.org/docs/11/sql-altertable.html
+     * @param table the Table to be loaded
+     * @return an "ALTER TABLE ... SET UNLOGGED" statement
+     */
+    @Override
+    public String beginUnloggedLoadSqlFor(final Table table) {
+        return "ALTER TABLE " + this.tableName(table) + " SET UNLOGGED";
+    }
+
+    @Override
+    public String endUnloggedLoadSqlFor(final Table table) {
+        return "ALTER TABLE " + this.tableName(table) + " SET LOGGED";
+    }
+
+    /**
+     * In the "replica" role, neither the foreign keys (implemented by triggers) nor the ordinary triggers fire;
+     * the check constraints are still checked. It needs a superuser.
+     * Refer to https://www.postgresql.org/docs/11/runtime-config-client.html#GUC-SESSION-REPLICATION-ROLE
+     * @return a "SET session_replication_role" statement
+     */
+    @Override
+    public List<String> beginBulkLoadSessionSqls() {
+        return Collections.singletonList("SET session_replication_role = replica");
+    }
+
+    @Override
+    public List<String> endBulkLoadSessionSqls() {
+        return Collections.singletonList("SET session_replication_role = DEFAULT");
+    }
+
+    /**
+     * Refer to https://wiki.postgresql.org/wiki/Transactional_DDL_in_PostgreSQL:_A_Competitive_Analysis
+     * @return true
+     */
+    @Override
+    public boolean isTransactionalDdl() {
+        return true;
+    }
 }
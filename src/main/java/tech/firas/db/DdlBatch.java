@@ -0,0 +1,257 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import tech.firas.db.vo.Column;
+import tech.firas.db.vo.Index;
+import tech.firas.db.vo.Schema;
+import tech.firas.db.vo.Table;
+
+/**
+ * Collect the DDL statements generated by a {@link DbMetaWriter} and execute them
+ * with {@link Statement#executeBatch()} in as few round trips as possible,
+ * reporting the failure of each statement instead of stopping at the first one.
+ * <p>
+ * If the DDL of the target DB is transactional ({@link DbMetaWriter#isTransactionalDdl()}),
+ * the batch is executed in a transaction, which is rolled back on failure
+ * and then retried without the failed statement. If the driver reports every statement as failed
+ * after the rollback (e.g. PgJDBC), the statements are retried one by one to find the failed ones.
+ * Otherwise the statements executed before the failed one are kept and the batch continues after it.
+ */
+@Slf4j
+public class DdlBatch {
+
+    private final DbMetaWriter writer;
+
+    private final List<String> statements = new ArrayList<>();
+
+    public DdlBatch(final DbMetaWriter writer) {
+        this.writer = Objects.requireNonNull(writer, "writer must not be null");
+    }
+
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(this.statements);
+    }
+
+    public DdlBatch add(final String sql) {
+        this.statements.add(Objects.requireNonNull(sql, "sql must not be null"));
+        return this;
+    }
+
+    public DdlBatch addAll(final Collection<String> sqls) {
+        for (final String sql : sqls) {
+            this.add(sql);
+        }
+        return this;
+    }
+
+    public DdlBatch addSchema(final Schema schema) {
+        return this.add(this.writer.createStatementFor(schema));
+    }
+
+    public DdlBatch addTable(final Table table) {
+        return this.addAll(this.writer.createStatementsFor(table));
+    }
+
+    public DdlBatch addColumn(final Column column) {
+        return this.add(this.writer.createStatementFor(column));
+    }
+
+    public DdlBatch addIndex(final Index index) {
+        return this.add(this.writer.createStatementFor(index));
+    }
+
+    /**
+     * Execute all the statements in the batch
+     * @param connection the DB Connection
+     * @return the failed statements, empty if all the statements succeeded
+     * @throws SQLException if it failed to execute the batch for a reason other than a failed statement
+     * @throws IllegalStateException if the DDL is transactional but the connection is not in the auto-commit mode,
+     *                               so that a transaction of the caller might be committed or rolled back
+     */
+    public List<Failure> execute(final Connection connection) throws SQLException {
+        final boolean transactional = this.writer.isTransactionalDdl();
+        if (transactional) {
+            if (!connection.getAutoCommit()) {
+                throw new IllegalStateException(
+                        "The connection must be in the auto-commit mode to execute a batch of transactional DDL");
+            }
+            connection.setAutoCommit(false);
+        }
+        final List<Failure> failures = new ArrayList<>();
+        try (final Statement statement = connection.createStatement()) {
+            List<Integer> pending = new ArrayList<>(this.statements.size());
+            for (int i = 0; i < this.statements.size(); i += 1) {
+                pending.add(i);
+            }
+            boolean oneByOne = false;
+            while (!pending.isEmpty()) {
+                final List<Integer> round = oneByOne ? pending.subList(0, 1) : pending;
+                if (log.isInfoEnabled()) {
+                    log.info("Before execute a batch of {} DDL statement(s)", round.size());
+                }
+                for (final int i : round) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Add to batch: {}", this.statements.get(i));
+                    }
+                    statement.addBatch(this.statements.get(i));
+                }
+                List<Integer> next;
+                try {
+                    statement.executeBatch();
+                    if (transactional) {
+                        connection.commit();
+                    }
+                    next = Collections.emptyList();
+                } catch (BatchUpdateException ex) {
+                    if (transactional) {
+                        connection.rollback();
+                    }
+                    statement.clearBatch();
+                    next = this.handleFailure(ex, round, transactional, failures);
+                    if (next == null) {
+                        oneByOne = true; // the failed statement is unknown, retry them one by one
+                        next = round;
+                    }
+                }
+                final List<Integer> rest = pending.subList(round.size(), pending.size());
+                final List<Integer> nextPending = new ArrayList<>(next.size() + rest.size());
+                nextPending.addAll(next);
+                nextPending.addAll(rest);
+                pending = nextPending;
+            }
+        } finally {
+            if (transactional) {
+                connection.setAutoCommit(true);
+            }
+        }
+        if (log.isInfoEnabled()) {
+            log.info("{} DDL statement(s) executed, {} failed", this.statements.size(), failures.size());
+        }
+        return failures;
+    }
+
+    /**
+     * @return the statements to be executed in the next round,
+     *         or null if the transaction was rolled back but the failed statement is unknown
+     */
+    private List<Integer> handleFailure(final BatchUpdateException ex, final List<Integer> pending,
+            final boolean transactional, final List<Failure> failures) {
+        final int[] updateCounts = ex.getUpdateCounts();
+        final Set<Integer> failed = new HashSet<>();
+        final boolean stoppedAtFailed = updateCounts == null || updateCounts.length < pending.size();
+        if (stoppedAtFailed) {
+            // the driver stopped at the first failed statement
+            failed.add(pending.get(updateCounts == null ? 0 : updateCounts.length));
+        } else if (transactional) {
+            // all rolled back: only the first failed statement is known to fail, the others are retried
+            final int firstFailed = firstFailed(updateCounts);
+            if (pending.size() > 1 && (firstFailed < 0 || allFailed(updateCounts))) {
+                return null;
+            }
+            failed.add(pending.get(Math.max(firstFailed, 0)));
+        } else {
+            // the driver continued after the failed statements
+            for (int i = 0; i < updateCounts.length; i += 1) {
+                if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                    failed.add(pending.get(i));
+                }
+            }
+            if (failed.isEmpty()) {
+                failed.addAll(pending);
+            }
+        }
+        final List<Integer> next = new ArrayList<>(pending.size());
+        boolean afterFailed = false;
+        for (final int i : pending) {
+            if (failed.contains(i)) {
+                final String sql = this.statements.get(i);
+                log.warn("Failed to execute DDL: {}", sql, ex);
+                failures.add(new Failure(i, sql, ex));
+                afterFailed = true;
+            } else if (transactional) {
+                next.add(i); // rolled back, to be executed again
+            } else if (afterFailed && stoppedAtFailed) {
+                next.add(i); // not executed yet
+            }
+        }
+        return next;
+    }
+
+    private static int firstFailed(final int[] updateCounts) {
+        for (int i = 0; i < updateCounts.length; i += 1) {
+            if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean allFailed(final int[] updateCounts) {
+        for (final int updateCount : updateCounts) {
+            if (updateCount != Statement.EXECUTE_FAILED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A statement in the batch that failed
+     */
+    public static class Failure {
+
+        /**
+         * The index of the statement in {@link #getStatements()}
+         */
+        @Getter private final int index;
+
+        @Getter private final String sql;
+
+        @Getter private final SQLException exception;
+
+        Failure(final int index, final String sql, final SQLException exception) {
+            this.index = index;
+            this.sql = sql;
+            this.exception = exception;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{" +
+                    "index=" + this.index +
+                    ", sql='" + this.sql + '\'' +
+                    ", exception=" + this.exception +
+                    '}';
+        }
+    }
+}
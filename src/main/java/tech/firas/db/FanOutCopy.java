@@ -0,0 +1,355 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import tech.firas.db.vo.Column;
+import tech.firas.db.vo.Table;
+
+/**
+ * Copy the rows of a table from one source ResultSet to several target DBs at the same time,
+ * so that the source is read only once. The calling thread reads the rows batch by batch,
+ * and each target has its own writer thread and a bounded queue of batches:
+ * a slow target only holds back the reading when its queue is full, and a failed target is dropped
+ * without stopping the others.
+ * A batch is held in memory once however many targets it is queued for,
+ * so it is acquired from the {@link MemoryGovernor} once and released after the last target has written it.
+ */
+@Slf4j
+public class FanOutCopy {
+
+    private static final Batch END = new Batch(Collections.emptyList(), 0L, 0);
+    private static final long OFFER_TIMEOUT_MILLIS = 100L;
+
+    private final Table table;
+    private final List<Target> targets;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    /**
+     * Limits the rows and the bytes written to all the targets together, null for no limit
+     */
+    @Getter @Setter private Throttle throttle;
+
+    /**
+     * The budget of the batches read but not yet written to every target, null for no budget
+     */
+    @Getter @Setter private MemoryGovernor memoryGovernor;
+
+    /**
+     * Where the batches read are counted, null if the progress is not tracked
+     */
+    @Getter @Setter private ProgressTracker.TableProgress progress;
+
+    /**
+     * Set when reading the source failed, so that the writers interrupted because of it
+     * do not report a failure of their own
+     */
+    private volatile boolean sourceFailed;
+
+    /**
+     * @param table the Table whose data is to be copied
+     * @param targets the target DBs
+     * @param batchSize the number of rows in a batch
+     * @param queueCapacity the maximum number of batches waiting for each target
+     */
+    public FanOutCopy(final Table table, final List<Target> targets, final int batchSize, final int queueCapacity) {
+        if (Objects.requireNonNull(targets, "targets must not be null").isEmpty()) {
+            throw new IllegalArgumentException("targets must not be empty");
+        }
+        if (batchSize < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("batchSize and queueCapacity must be at least 1");
+        }
+        this.table = Objects.requireNonNull(table, "table must not be null");
+        this.targets = new ArrayList<>(targets);
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Read all the rows remaining in the ResultSet and write them to every target
+     * @param srcRs the source ResultSet
+     * @return the number of rows read
+     * @throws SQLException if it failed to read from the source, or to write to any of the targets
+     *                      (after the other targets have finished)
+     */
+    public long copy(final ResultSet srcRs) throws SQLException {
+        return this.copy(srcRs, this.table.getColumnMap().values());
+    }
+
+    /**
+     * Read all the rows remaining in the ResultSet and write them to every target
+     * @param srcRs the source ResultSet
+     * @param transferColumns the columns of the table in the order of the source query, whose DataTypes
+     *                        read and bind the values, e.g. with a PassThroughType instead of an UnknownType
+     * @return the number of rows read
+     * @throws SQLException if it failed to read from the source, or to write to any of the targets
+     *                      (after the other targets have finished)
+     */
+    public long copy(final ResultSet srcRs, final Collection<Column> transferColumns) throws SQLException {
+        final Column[] columns = transferColumns.toArray(new Column[0]);
+        // for the throttle and the progress, not the worst case reserved in the memoryGovernor
+        final long rowSize = MemoryGovernor.estimateRowSize(this.table.getColumnMap().values(),
+                MemoryGovernor.TYPICAL_LOB_SIZE);
+        final long batchBytes = this.memoryGovernor == null ? 0L :
+                this.memoryGovernor.estimateRowSize(this.table.getColumnMap().values()) * this.batchSize;
+        final List<Writer> writers = new ArrayList<>(this.targets.size());
+        for (final Target target : this.targets) {
+            writers.add(new Writer(target, new ArrayBlockingQueue<>(this.queueCapacity), columns, rowSize));
+        }
+        final ExecutorService executor = WorkerExecutors.newWorkerExecutor("fan-out-writer", writers.size());
+        final List<Future<?>> futures = new ArrayList<>(writers.size());
+        long count = 0L;
+        try {
+            for (final Writer writer : writers) {
+                futures.add(executor.submit(writer));
+            }
+            while (!writers.stream().allMatch(writer -> writer.failed)) {
+                final Batch batch = this.readBatch(srcRs, columns, batchBytes, writers.size());
+                if (batch == null) {
+                    break;
+                }
+                count += batch.rows.size();
+                if (this.progress != null) {
+                    this.progress.add(batch.rows.size(), batch.rows.size() * rowSize);
+                }
+                for (final Writer writer : writers) {
+                    writer.offer(batch);
+                }
+            }
+            for (final Writer writer : writers) {
+                writer.offer(END);
+            }
+            waitForWriters(futures);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the writers", ex);
+        } finally {
+            executor.shutdownNow();
+            for (final Writer writer : writers) {
+                writer.drain();
+            }
+        }
+        if (log.isInfoEnabled()) {
+            log.info("{} row(s) of {} copied to {} target(s)", count, this.table, writers.size());
+        }
+        return count;
+    }
+
+    /**
+     * @return the next batch of rows, null if there is no more row in the ResultSet
+     */
+    private Batch readBatch(final ResultSet srcRs, final Column[] columns, final long batchBytes,
+            final int holders) throws SQLException, InterruptedException {
+        final long acquired = this.memoryGovernor == null ? 0L : this.memoryGovernor.acquire(batchBytes);
+        boolean done = false;
+        try {
+            final List<Object[]> rows = new ArrayList<>(this.batchSize);
+            while (rows.size() < this.batchSize && srcRs.next()) {
+                final Object[] row = new Object[columns.length];
+                for (int i = 0; i < columns.length; i += 1) {
+                    row[i] = columns[i].getFromResultSet(srcRs);
+                }
+                rows.add(row);
+            }
+            if (rows.isEmpty()) {
+                return null;
+            }
+            done = true;
+            return new Batch(rows, acquired, holders);
+        } catch (SQLException | RuntimeException ex) {
+            this.sourceFailed = true;
+            throw ex;
+        } finally {
+            if (!done) {
+                this.releaseMemory(acquired);
+            }
+        }
+    }
+
+    private void releaseMemory(final long acquired) {
+        if (acquired > 0) {
+            this.memoryGovernor.release(acquired);
+        }
+    }
+
+    /**
+     * Wait for all the writers, throwing the first failure with the others suppressed
+     */
+    private static void waitForWriters(final List<Future<?>> futures) throws InterruptedException, SQLException {
+        SQLException failure = null;
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException ex) {
+                final Throwable cause = ex.getCause();
+                if (failure == null) {
+                    failure = cause instanceof SQLException ? (SQLException) cause :
+                            new SQLException("Failed to write to a target", cause);
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * A target DB of the copy
+     */
+    public static class Target {
+
+        @Getter private final DbMetaWriter writer;
+
+        @Getter private final Connection connection;
+
+        public Target(final DbMetaWriter writer, final Connection connection) {
+            this.writer = Objects.requireNonNull(writer, "writer must not be null");
+            this.connection = Objects.requireNonNull(connection, "connection must not be null");
+        }
+    }
+
+    /**
+     * A batch of rows queued for every target, holding its memory until all of them are done with it
+     */
+    private static final class Batch {
+
+        private final List<Object[]> rows;
+        private final long acquired;
+        private final AtomicInteger holders;
+
+        Batch(final List<Object[]> rows, final long acquired, final int holders) {
+            this.rows = rows;
+            this.acquired = acquired;
+            this.holders = new AtomicInteger(holders);
+        }
+    }
+
+    private final class Writer implements Callable<Long> {
+
+        private final Target target;
+        private final BlockingQueue<Batch> queue;
+        private final Column[] columns;
+        private final long rowSize;
+
+        private volatile boolean failed;
+
+        Writer(final Target target, final BlockingQueue<Batch> queue, final Column[] columns, final long rowSize) {
+            this.target = target;
+            this.queue = queue;
+            this.columns = columns;
+            this.rowSize = rowSize;
+        }
+
+        /**
+         * Wait until there is room in the queue, unless the writer has failed
+         */
+        void offer(final Batch batch) throws InterruptedException {
+            while (!this.failed) {
+                if (this.queue.offer(batch, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (this.failed) {
+                        this.drain(); // it may have failed after the offer, with nobody left to take the batch
+                    }
+                    return;
+                }
+                if (log.isTraceEnabled()) {
+                    log.trace("Waiting for the writer to {}", this.target.getWriter().tableName(FanOutCopy.this.table));
+                }
+            }
+            this.done(batch);
+        }
+
+        /**
+         * Drop the batches left in the queue, releasing their memory
+         */
+        void drain() {
+            for (Batch batch = this.queue.poll(); batch != null; batch = this.queue.poll()) {
+                this.done(batch);
+            }
+        }
+
+        private void done(final Batch batch) {
+            if (batch != END && batch.holders.decrementAndGet() == 0) {
+                FanOutCopy.this.releaseMemory(batch.acquired);
+            }
+        }
+
+        @Override
+        public Long call() throws Exception {
+            final String targetTableName = this.target.getWriter().tableName(FanOutCopy.this.table);
+            long count = 0L;
+            try (final PreparedStatement destPs = this.target.getConnection().prepareStatement(
+                    this.target.getWriter().insertSqlFor(FanOutCopy.this.table))) {
+                for (Batch batch = this.queue.take(); batch != END; batch = this.queue.take()) {
+                    try {
+                        for (final Object[] row : batch.rows) {
+                            for (int i = 0; i < this.columns.length; i += 1) {
+                                this.columns[i].getDataType().setPreparedStatementParameter(destPs, i + 1, row[i]);
+                            }
+                            destPs.addBatch();
+                        }
+                        MigrationTool.executeBatch(destPs, this.target.getConnection(), FanOutCopy.this.throttle,
+                                batch.rows.size(), batch.rows.size() * this.rowSize);
+                    } finally {
+                        this.done(batch);
+                    }
+                    count += batch.rows.size();
+                    if (log.isDebugEnabled()) {
+                        log.debug("A batch executed to insert into {}", targetTableName);
+                    }
+                }
+                return count;
+            } catch (Exception ex) {
+                this.failed = true;
+                this.drain();
+                if (FanOutCopy.this.sourceFailed) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Stopped writing to {} after {} row(s) as the source failed",
+                                targetTableName, count, ex);
+                    }
+                } else {
+                    log.warn("Failed to write to {} after {} row(s)", targetTableName, count, ex);
+                }
+                throw ex;
+            }
+        }
+    }
+}
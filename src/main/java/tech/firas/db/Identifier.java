@@ -16,13 +16,143 @@
 
 package tech.firas.db;
 
+import java.util.Locale;
 import java.util.regex.Pattern;
 
 public final class Identifier {
 
+    /**
+     * The same rule as {@link #isValid}, kept for the callers that need a Pattern;
+     * prefer {@link #isValid}, which does not allocate a Matcher for every name
+     */
     public static final Pattern PATTERN = Pattern.compile("[A-Za-z_$][-\\w$]*");
 
+    /**
+     * How a DB folds the case of an unquoted identifier
+     */
+    public enum CaseFolding {
+        /**
+         * As the SQL standard and DB2
+         */
+        UPPER,
+        /**
+         * As PostgreSQL
+         */
+        LOWER,
+        /**
+         * As MySQL on a case-sensitive file system
+         */
+        NONE
+    }
+
     private Identifier() throws IllegalAccessException {
         throw new IllegalAccessException();
     }
+
+    /**
+     * Check the name against {@link #PATTERN} by scanning the characters, without any allocation
+     * @param name the name of a schema / table / column / index
+     * @return true if the name is not null and matches {@link #PATTERN}
+     */
+    public static boolean isValid(final CharSequence name) {
+        if (name == null || name.length() == 0) {
+            return false;
+        }
+        final char first = name.charAt(0);
+        if (!isAsciiLetter(first) && first != '_' && first != '$') {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i += 1) {
+            final char c = name.charAt(i);
+            if (!isAsciiLetter(c) && !(c >= '0' && c <= '9') && c != '_' && c != '$' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param identifier an identifier in SQL
+     * @param quote the quote character of the DB, e.g. '"' or '`'
+     * @return true if the identifier is enclosed by the quote character with at least one character inside,
+     *         and every quote character inside is doubled
+     */
+    public static boolean isQuoted(final CharSequence identifier, final char quote) {
+        final int length = identifier.length();
+        if (length < 3 || identifier.charAt(0) != quote || identifier.charAt(length - 1) != quote) {
+            return false;
+        }
+        for (int i = 1; i < length - 1; i += 1) {
+            if (identifier.charAt(i) == quote) {
+                if (i + 1 < length - 1 && identifier.charAt(i + 1) == quote) {
+                    i += 1; // an escaped quote character
+                } else {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Turn an identifier in SQL into the name kept in the catalog of the DB:
+     * a quoted identifier is unquoted with its case kept, and an unquoted one is folded as the DB does
+     * @param identifier an identifier in SQL
+     * @param quote the quote character of the DB, e.g. '"' or '`'
+     * @param caseFolding how the DB folds the case of an unquoted identifier
+     * @return the name in the catalog, the same String if nothing is changed
+     */
+    public static String normalize(final String identifier, final char quote, final CaseFolding caseFolding) {
+        if (isQuoted(identifier, quote)) {
+            final StringBuilder builder = new StringBuilder(identifier.length() - 2);
+            for (int i = 1; i < identifier.length() - 1; i += 1) {
+                final char c = identifier.charAt(i);
+                builder.append(c);
+                if (c == quote) {
+                    i += 1; // skip the doubled quote character
+                }
+            }
+            return builder.toString();
+        }
+        switch (caseFolding) {
+            case UPPER:
+                return hasLowerCase(identifier) ? identifier.toUpperCase(Locale.ROOT) : identifier;
+            case LOWER:
+                return hasUpperCase(identifier) ? identifier.toLowerCase(Locale.ROOT) : identifier;
+            default:
+                return identifier;
+        }
+    }
+
+    /**
+     * The same names are read again and again from the catalog of a DB, e.g. the name of a table
+     * in every row of its columns, so the names kept in the model are interned to share one String
+     * @param name a name, may be null
+     * @return the canonical representation of the name
+     */
+    public static String intern(final String name) {
+        return name == null ? null : name.intern();
+    }
+
+    public static boolean hasLowerCase(final CharSequence identifier) {
+        for (int i = 0; i < identifier.length(); i += 1) {
+            if (Character.isLowerCase(identifier.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static boolean hasUpperCase(final CharSequence identifier) {
+        for (int i = 0; i < identifier.length(); i += 1) {
+            if (Character.isUpperCase(identifier.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAsciiLetter(final char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.io.Serializable;
+import java.util.Locale;
+import java.util.Objects;
+
+import lombok.Getter;
+
+/**
+ * A key to look up a schema / table / column / index by its name case-insensitively,
+ * e.g. a name read from PostgreSQL (folded to lower case) in a table read from DB2 (folded to upper case).
+ * The folded form and the hash are computed once, so a lookup in a hash map takes O(1)
+ * without folding the names in the map again.
+ */
+public final class IdentifierKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The name as it is
+     */
+    @Getter private final String name;
+
+    /**
+     * The name folded to upper case, as the SQL standard does to an unquoted identifier
+     */
+    @Getter private final String folded;
+
+    private final int hash;
+
+    private IdentifierKey(final String name, final String folded) {
+        this.name = name;
+        this.folded = folded;
+        this.hash = folded.hashCode();
+    }
+
+    /**
+     * @param name the name of a schema / table / column / index
+     * @return the key of the name
+     */
+    public static IdentifierKey of(final String name) {
+        Objects.requireNonNull(name, "name must not be null");
+        return new IdentifierKey(name, Identifier.hasLowerCase(name) ? name.toUpperCase(Locale.ROOT) : name);
+    }
+
+    /**
+     * @param identifier an identifier in SQL, quoted or not
+     * @param quote the quote character of the DB, e.g. '"' or '`'
+     * @param caseFolding how the DB folds the case of an unquoted identifier
+     * @return the key of the name that the DB keeps in its catalog for the identifier
+     */
+    public static IdentifierKey of(final String identifier, final char quote,
+            final Identifier.CaseFolding caseFolding) {
+        return of(Identifier.normalize(identifier, quote, caseFolding));
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final IdentifierKey that = (IdentifierKey) o;
+        return this.hash == that.hash && this.folded.equals(that.folded);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import tech.firas.db.vo.Column;
+import tech.firas.db.vo.Index;
+import tech.firas.db.vo.Schema;
+import tech.firas.db.vo.Table;
+
+/**
+ * A view of the catalog of a DB which is read on demand, instead of all at once by {@link DbMetaReader#read}:
+ * the tables of a schema are read on the first call to {@link Schema#getTables()}, and the columns
+ * (or the indexes) of a table on the first call to {@link Table#getColumnMap()} (or {@link Table#getIndexMap()}),
+ * together with those of the other tables in the same group of {@link #getGroupSize()} tables in one query.
+ * The filter is pushed down into the catalog queries, so the tables not wanted are never read.
+ * <p>
+ * The Connection is kept by the loaders and used whenever the metadata is accessed the first time,
+ * so it must stay open while the metadata is in use; a failed query is thrown as an IllegalStateException
+ * from the getter.
+ */
+@Slf4j
+public class LazyCatalog {
+
+    public static final int DEFAULT_GROUP_SIZE = 100;
+
+    private final DbMetaReader reader;
+    private final Connection connection;
+    private final CatalogFilter filter;
+
+    @Getter private final int groupSize;
+
+    public LazyCatalog(final DbMetaReader reader, final Connection connection, final CatalogFilter filter) {
+        this(reader, connection, filter, DEFAULT_GROUP_SIZE);
+    }
+
+    /**
+     * @param reader the DbMetaReader of the DB
+     * @param connection the DB Connection, which must stay open while the metadata is in use
+     * @param filter which schemas and tables to read
+     * @param groupSize the maximum number of tables whose columns (or indexes) are read in one query
+     */
+    public LazyCatalog(final DbMetaReader reader, final Connection connection, final CatalogFilter filter,
+            final int groupSize) {
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("groupSize must be at least 1");
+        }
+        this.reader = Objects.requireNonNull(reader, "reader must not be null");
+        this.connection = Objects.requireNonNull(connection, "connection must not be null");
+        this.filter = Objects.requireNonNull(filter, "filter must not be null");
+        this.groupSize = groupSize;
+    }
+
+    /**
+     * @return the schemas accepted by the filter, whose tables are not read yet
+     * @throws SQLException if it failed to read the schemas
+     */
+    public Set<Schema> read() throws SQLException {
+        final Set<Schema> result = new LinkedHashSet<>();
+        for (final Schema schema : this.reader.readSchemas(this.connection)) {
+            if (this.filter.acceptsSchema(schema.getName())) {
+                schema.setTablesLoader(() -> this.readTables(schema));
+                result.add(schema);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param schema a Schema in the DB
+     * @return the tables of the schema accepted by the filter, whose columns and indexes are not read yet
+     * @throws SQLException if it failed to read the tables
+     */
+    public Set<Table> readTables(final Schema schema) throws SQLException {
+        final Set<Table> result = this.reader.readTables(this.connection, schema, this.filter);
+        if (log.isDebugEnabled()) {
+            log.debug("{} table(s) in {} accepted by {}", result.size(), schema.getName(), this.filter);
+        }
+        List<Table> group = new ArrayList<>(this.groupSize);
+        for (final Table table : result) {
+            group.add(table);
+            if (group.size() == this.groupSize) {
+                this.setLoaders(schema, group);
+                group = new ArrayList<>(this.groupSize);
+            }
+        }
+        if (!group.isEmpty()) {
+            this.setLoaders(schema, group);
+        }
+        return result;
+    }
+
+    private void setLoaders(final Schema schema, final List<Table> tables) {
+        final TableGroup group = new TableGroup(schema, tables);
+        for (final Table table : tables) {
+            table.setColumnMapLoader(() -> group.columnsOf(table));
+            table.setIndexMapLoader(() -> group.indexesOf(table));
+        }
+    }
+
+    /**
+     * The tables whose columns (and indexes) are read together
+     */
+    private final class TableGroup {
+
+        private final Schema schema;
+        private final List<Table> tables;
+
+        private Map<Table, Map<String, Column>> columns;
+        private Map<Table, Map<String, Index>> indexes;
+
+        TableGroup(final Schema schema, final List<Table> tables) {
+            this.schema = schema;
+            this.tables = tables;
+        }
+
+        synchronized Map<String, Column> columnsOf(final Table table) throws SQLException {
+            if (this.columns == null) {
+                this.columns = LazyCatalog.this.reader.readColumns(
+                        LazyCatalog.this.connection, this.schema, this.tables);
+                if (log.isDebugEnabled()) {
+                    log.debug("Columns of {} table(s) read in {}", this.tables.size(), this.schema.getName());
+                }
+            }
+            return this.columns.get(table);
+        }
+
+        Map<String, Index> indexesOf(final Table table) throws SQLException {
+            // the columns are needed to resolve the columns of the indexes
+            for (final Table t : this.tables) {
+                t.getColumnMap();
+            }
+            synchronized (this) {
+                if (this.indexes == null) {
+                    this.indexes = LazyCatalog.this.reader.readIndexes(
+                            LazyCatalog.this.connection, this.schema, this.tables);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Indexes of {} table(s) read in {}", this.tables.size(), this.schema.getName());
+                    }
+                }
+                return this.indexes.get(table);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.util.Collection;
+import java.util.concurrent.Semaphore;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import tech.firas.db.datatype.DataType;
+import tech.firas.db.vo.Column;
+
+/**
+ * A global budget of the bytes of the rows in flight, shared by all the copy threads.
+ * A thread acquires the estimated bytes of a batch before fetching it and releases them after the batch
+ * is executed, so the rows buffered at the same time never exceed the budget however many threads run.
+ * The bytes are counted in units of {@value #UNIT} bytes so that a budget larger than 2 GB fits in a Semaphore.
+ */
+@Slf4j
+public class MemoryGovernor {
+
+    public static final long DEFAULT_LOB_SIZE = 1L << 20;
+
+    /**
+     * The size of a LOB value to estimate the bytes written (e.g. for a {@link Throttle}),
+     * rather than the worst case that {@link #DEFAULT_LOB_SIZE} reserves for the memory
+     */
+    public static final long TYPICAL_LOB_SIZE = 8L << 10;
+
+    /**
+     * The overhead of the Java object holding a value, e.g. a boxed number or a String
+     */
+    private static final long VALUE_OVERHEAD = 16L;
+
+    private static final int UNIT = 1024;
+
+    private final Semaphore permits;
+
+    @Getter private final long budget;
+
+    /**
+     * The estimated size of a LOB value, see {@link DataType#LOB_SIZE}
+     */
+    @Getter private long lobSize = DEFAULT_LOB_SIZE;
+
+    /**
+     * @param budget the maximum number of bytes in flight
+     */
+    public MemoryGovernor(final long budget) {
+        if (budget < UNIT) {
+            throw new IllegalArgumentException("budget must be at least " + UNIT);
+        }
+        if (budget / UNIT > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("budget is too large: " + budget);
+        }
+        this.budget = budget;
+        this.permits = new Semaphore((int) (budget / UNIT), true);
+    }
+
+    public void setLobSize(final long lobSize) {
+        if (lobSize < 0) {
+            throw new IllegalArgumentException("lobSize must not be negative");
+        }
+        this.lobSize = lobSize;
+    }
+
+    /**
+     * @param columns the columns of a row
+     * @return the estimated number of bytes of a row in memory by the DataType of each column
+     */
+    public long estimateRowSize(final Collection<Column> columns) {
+        return estimateRowSize(columns, this.lobSize);
+    }
+
+    /**
+     * @param columns the columns of a row
+     * @param lobSize the estimated size of a LOB value
+     * @return the estimated number of bytes of a row in memory by the DataType of each column
+     */
+    public static long estimateRowSize(final Collection<Column> columns, final long lobSize) {
+        long result = 0L;
+        for (final Column column : columns) {
+            final long size = column.getDataType().estimateSize();
+            result += (size == DataType.LOB_SIZE ? lobSize : size) + VALUE_OVERHEAD;
+        }
+        return result;
+    }
+
+    /**
+     * Wait until the bytes are available and take them from the budget.
+     * A request larger than the whole budget is reduced to the whole budget, so that it does not wait forever.
+     * @param bytes the number of bytes to be taken
+     * @return the number of bytes actually taken, which must be passed to {@link #release}
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public long acquire(final long bytes) throws InterruptedException {
+        final int units = this.toUnits(bytes);
+        if (!this.permits.tryAcquire(units)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Waiting for {} byte(s) of memory, {} available", bytes, this.getAvailable());
+            }
+            this.permits.acquire(units);
+        }
+        return (long) units * UNIT;
+    }
+
+    /**
+     * @param bytes the number returned by {@link #acquire}
+     */
+    public void release(final long bytes) {
+        this.permits.release(this.toUnits(bytes));
+    }
+
+    /**
+     * @return the number of bytes not taken
+     */
+    public long getAvailable() {
+        return (long) this.permits.availablePermits() * UNIT;
+    }
+
+    private int toUnits(final long bytes) {
+        if (bytes < 0) {
+            throw new IllegalArgumentException("bytes must not be negative");
+        }
+        return (int) Math.min((bytes + UNIT - 1) / UNIT, this.budget / UNIT);
+    }
+}
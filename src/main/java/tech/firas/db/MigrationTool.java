@@ -16,30 +16,63 @@
 
 package tech.firas.db;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.DataSource;
 
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.JavaTimeType;
+import tech.firas.db.datatype.PassThroughType;
+import tech.firas.db.datatype.UnknownType;
 import tech.firas.db.vo.Column;
 import tech.firas.db.vo.Index;
 import tech.firas.db.vo.Schema;
 import tech.firas.db.vo.Table;
+import tech.firas.db.vo.TableSnapshot;
+import tech.firas.db.vo.TableStatistics;
 
 @Slf4j
-public class MigrationTool {
+public class MigrationTool implements AutoCloseable {
 
     public enum MigrateDataOption {
         NONE,
         TRUNCATE_FIRST,
-        DELETE_ALL_FIRST
+        DELETE_ALL_FIRST,
+        /**
+         * Insert the rows or update the existing rows with the same primary key,
+         * even if the table already exists in the target DB
+         */
+        UPSERT
     }
 
+    private static final int COLUMNAR_MAX_ROWS_PER_ROW_GROUP = 1 << 16;
+
     private DbMetaReader sourceReader;
     private DbMetaReader targetReader;
     private DbMetaWriter targetWriter;
@@ -47,8 +80,125 @@ public class MigrationTool {
     private Connection sourceConnection;
     private Connection targetConnection;
 
+    /**
+     * Whether sourceConnection and targetConnection are opened (and to be closed) by this MigrationTool
+     */
+    private final boolean ownConnections;
+
+    /**
+     * Used to open the extra connections to the source DB for the parallel copy
+     */
+    @Setter private DataSource sourceDataSource;
+    /**
+     * Used to open the extra connections to the target DB for the parallel copy
+     */
+    @Setter private DataSource targetDataSource;
+
     @Getter private int dataBatchSize = 100;
 
+    /**
+     * Whether to buffer each batch of rows off the heap (see {@link OffHeapRowBatch})
+     * instead of as Objects between reading from the source and writing to the target
+     */
+    @Getter @Setter private boolean offHeapBuffer;
+
+    /**
+     * Whether all the threads of {@link #migrateTableDataInPartitions} read the same snapshot of the source DB
+     * (see {@link DbMetaReader#exportSnapshot}), so that the copy is consistent even if the table is being
+     * modified; only supported by some DBs, e.g. PostgreSQL
+     */
+    @Getter @Setter private boolean consistentSnapshot;
+
+    /**
+     * Shared by all the copies to bound the bytes of the rows in flight, null (by default) for no bound.
+     * Share one MemoryGovernor among all the MigrationTools running in the same JVM.
+     */
+    @Getter @Setter private MemoryGovernor memoryGovernor;
+
+    /**
+     * Shared by all the tables (and all the MigrationTools writing to the same target DB),
+     * null (by default) for no limit; see {@link Throttle} for the adaptive mode
+     */
+    @Getter @Setter private Throttle globalThrottle;
+
+    /**
+     * The limits for each table, 0 (by default) for no limit
+     */
+    @Getter @Setter private double tableMaxRowsPerSecond;
+    @Getter @Setter private double tableMaxBytesPerSecond;
+
+    /**
+     * The maximum number of batches waiting for each target in {@link #fanOutTableData}
+     */
+    @Getter @Setter private int fanOutQueueCapacity = 4;
+
+    /**
+     * Whether to copy the columns of {@link UnknownType} (e.g. jsonb, uuid, arrays of PostgreSQL,
+     * json, enum, geometry of MySQL) as they are by {@link PassThroughType} instead of as text,
+     * and create them in the target DB by their native types; only for a source and a target of the same kind
+     */
+    @Getter private boolean nativePassThrough;
+
+    /**
+     * The renderer of UnknownType in the targetWriter replaced when nativePassThrough is set,
+     * restored when it is unset; null if there was none
+     */
+    private DataTypeRegistry.Renderer<? super UnknownType> replacedUnknownTypeRenderer;
+
+    /**
+     * Whether to copy the timestamps, dates and times as java.time objects by {@link JavaTimeType}
+     * instead of as java.sql.Timestamp / Date / Time; the drivers must support JDBC 4.2
+     */
+    @Getter @Setter private boolean javaTimeTransfer;
+
+    /**
+     * The time zones of the timestamps in the source DB and in the target DB for {@link #javaTimeTransfer},
+     * null (by default) to copy the timestamps as the same local date times
+     */
+    @Getter @Setter private ZoneId sourceTimeZone;
+    @Getter @Setter private ZoneId targetTimeZone;
+
+    /**
+     * Updated once per batch by every copy, null (by default) for no tracking;
+     * see {@link ProgressTracker#startReporting} for the periodic reports
+     */
+    @Getter @Setter private ProgressTracker progressTracker;
+
+    /**
+     * When a copy commits the rows written to the target DB,
+     * null (by default) to leave it to the auto-commit mode of the target connection
+     */
+    @Getter @Setter private CommitPolicy commitPolicy;
+
+    /**
+     * Whether to load the tables without logging the changes in the target DB
+     * (see {@link DbMetaWriter#beginUnloggedLoadSqlFor}), for a first load into empty tables only:
+     * an unlogged table of PostgreSQL is emptied by a crash until it is set logged again,
+     * and a table of DB2 becomes inaccessible if a unit of work of the load fails
+     * (so a whole copy is one unit of work without a commitPolicy).
+     * A copy fails before loading anything if the target table is not empty, or cannot be loaded unlogged
+     * (see {@link DbMetaWriter#unloggedLoadBlockerSqlFor}); a DB2 table must be created
+     * with NOT LOGGED INITIALLY, which the tool does not add.
+     */
+    @Getter @Setter private boolean unloggedLoad;
+
+    /**
+     * Whether to load into existing tables without checking the foreign keys row by row, and check them
+     * at the end of a copy (see {@link BulkLoadSession}); the triggers suspended are not fired for the rows copied
+     */
+    @Getter @Setter private boolean bulkLoadSession;
+
+    /**
+     * Calibrated by every copy of a table, see {@link #planTableData}
+     */
+    @Getter @Setter private ThroughputModel throughputModel = new ThroughputModel();
+
+    /**
+     * The statistics read by {@link #planTableData} (or before a copy with a progressTracker),
+     * used to calibrate the throughputModel by bytes and to estimate the progress
+     */
+    private final Map<Table, TableStatistics> plannedStatistics = new ConcurrentHashMap<>();
+
     public MigrationTool(final DbMetaReader sourceReader, final Connection sourceConnection,
             final DbMetaReader targetReader, final DbMetaWriter targetWriter, final Connection targetConnection) {
         this.sourceReader = sourceReader;
@@ -56,6 +206,77 @@ public class MigrationTool {
         this.targetReader = targetReader;
         this.targetWriter = targetWriter;
         this.targetConnection = targetConnection;
+        this.ownConnections = false;
+    }
+
+    /**
+     * Open a connection to each DB from the DataSource, kept until {@link #close()},
+     * and use the DataSources for the extra connections of the parallel copy.
+     * Pass a pool such as {@link SimpleConnectionPool} so that the connections and their PreparedStatements
+     * are reused across tables and threads.
+     * The connection kept by this MigrationTool is not used by the workers of {@link #migrateTablesData}
+     * and {@link #migrateTableDataInPartitions}, so a pool must hold at least one more connection than
+     * the workers (and another one of the source DB if {@link #setConsistentSnapshot consistentSnapshot}),
+     * otherwise the last worker waits for a connection until the pool times out.
+     * @param sourceReader the DbMetaReader of the source DB
+     * @param sourceDataSource the DataSource of the source DB
+     * @param targetReader the DbMetaReader of the target DB
+     * @param targetWriter the DbMetaWriter of the target DB
+     * @param targetDataSource the DataSource of the target DB
+     * @throws SQLException if it failed to open the connections
+     */
+    public MigrationTool(final DbMetaReader sourceReader, final DataSource sourceDataSource,
+            final DbMetaReader targetReader, final DbMetaWriter targetWriter, final DataSource targetDataSource)
+            throws SQLException {
+        this.sourceReader = sourceReader;
+        this.targetReader = targetReader;
+        this.targetWriter = targetWriter;
+        this.sourceDataSource = sourceDataSource;
+        this.targetDataSource = targetDataSource;
+        this.sourceConnection = sourceDataSource.getConnection();
+        try {
+            this.targetConnection = targetDataSource.getConnection();
+        } catch (SQLException | RuntimeException ex) {
+            this.sourceConnection.close();
+            throw ex;
+        }
+        this.ownConnections = true;
+    }
+
+    /**
+     * Close the connections opened by this MigrationTool, if it is constructed with DataSources;
+     * the connections passed to the constructor are left to the caller
+     * @throws SQLException if it failed to close the connections
+     */
+    @Override
+    public void close() throws SQLException {
+        if (this.ownConnections) {
+            try {
+                this.sourceConnection.close();
+            } finally {
+                this.targetConnection.close();
+            }
+        }
+    }
+
+    public void setNativePassThrough(final boolean nativePassThrough) {
+        if (nativePassThrough == this.nativePassThrough) {
+            return;
+        }
+        if (nativePassThrough && this.sourceReader.getClass() != this.targetReader.getClass()) {
+            throw new IllegalStateException("nativePassThrough is only for a source and a target of the same kind");
+        }
+        final DataTypeRegistry registry = this.targetWriter.getDataTypeRegistry();
+        if (nativePassThrough) {
+            this.replacedUnknownTypeRenderer = registry.getRenderer(UnknownType.class);
+            registry.registerRenderer(UnknownType.class, UnknownType::getNativeType);
+        } else if (this.replacedUnknownTypeRenderer == null) {
+            registry.removeRenderer(UnknownType.class);
+        } else {
+            registry.registerRenderer(UnknownType.class, this.replacedUnknownTypeRenderer);
+            this.replacedUnknownTypeRenderer = null;
+        }
+        this.nativePassThrough = nativePassThrough;
     }
 
     public void setDataBatchSize(final int dataBatchSize) {
@@ -79,83 +300,929 @@ public class MigrationTool {
         } else {
             log.info("The table {} already exists in the target DB", this.targetReader.tableName(targetTable));
             targetTable.setColumnMap(columnMap);
-            for (final Column sourceColumn : sourceTable.getColumnMap().values()) {
-                if (columnMap.keySet().stream().noneMatch(
-                        columnName -> sourceColumn.getName().equalsIgnoreCase(columnName)
-                )) {
-                    this.targetWriter.createColumn(targetConnection, sourceColumn);
-                }
+            targetTable.setIndexMap(this.targetReader.readIndexes(this.targetConnection, targetTable));
+            final SchemaDiff diff = SchemaDiff.compare(sourceTable, targetTable);
+            for (final Column sourceColumn : diff.getMissingColumns()) {
+                this.targetWriter.createColumn(targetConnection, sourceColumn);
             }
-            final Map<String, Index> indexMap = this.targetReader.readIndexes(this.targetConnection, targetTable);
-            for (final Index sourceIndex : sourceTable.getIndexMap().values()) {
-                if (indexMap.values().stream().noneMatch(
-                        targetIndex -> sourceIndex.getName().equalsIgnoreCase(targetIndex.getName())
-                )) {
-                    this.targetWriter.createIndex(targetConnection, sourceIndex);
-                }
+            for (final Index sourceIndex : diff.getMissingIndexes()) {
+                this.targetWriter.createIndex(targetConnection, sourceIndex);
             }
             return false;
         }
     }
 
+    /**
+     * Compare the structure of the whole source DB with that of the target DB
+     * @param dropExtra whether to drop the columns and indexes that are not in the source DB
+     * @return the DDL statements to make the target DB have the structure of the source DB,
+     *         which are not executed yet
+     * @throws SQLException if it failed to read the structure of either DB
+     */
+    public DdlBatch planDatabaseStructure(final boolean dropExtra) throws SQLException {
+        final SchemaDiff diff = SchemaDiff.compare(this.sourceReader.read(this.sourceConnection),
+                this.targetReader.read(this.targetConnection));
+        if (log.isInfoEnabled()) {
+            log.info("Schema diff: {} schema(s), {} table(s), {} column(s) and {} index(es) missing in the target DB",
+                    diff.getMissingSchemas().size(), diff.getMissingTables().size(),
+                    diff.getMissingColumns().size(), diff.getMissingIndexes().size());
+        }
+        return diff.toDdlPlan(this.targetWriter, dropExtra);
+    }
+
+    /**
+     * Estimate the rows, the bytes and the time to copy each table without copying anything,
+     * by the statistics of the source DB (see {@link DbMetaReader#readStatistics})
+     * and the throughputModel calibrated by the previous copies
+     * @param tables the tables to be copied
+     * @return the estimates, the longest first ({@link TableCopyEstimate#LONGEST_FIRST})
+     * @throws SQLException if it failed to read the statistics from the source DB
+     */
+    public List<TableCopyEstimate> planTableData(final Collection<Table> tables) throws SQLException {
+        final List<TableCopyEstimate> result = new ArrayList<>(tables.size());
+        long totalNanos = 0L;
+        for (final Table table : tables) {
+            final TableStatistics statistics = this.sourceReader.readStatistics(this.sourceConnection, table);
+            this.plannedStatistics.put(table, statistics);
+            final TableCopyEstimate estimate = new TableCopyEstimate(statistics,
+                    this.throughputModel.estimateNanos(statistics));
+            if (estimate.getEstimatedNanos() > 0) {
+                totalNanos += estimate.getEstimatedNanos();
+            }
+            result.add(estimate);
+        }
+        result.sort(TableCopyEstimate.LONGEST_FIRST);
+        if (log.isInfoEnabled()) {
+            for (final TableCopyEstimate estimate : result) {
+                log.info("Plan: {} row(s), {} byte(s), about {} ms to copy {}",
+                        estimate.getStatistics().getRowCount(), estimate.getStatistics().getDataSize(),
+                        TimeUnit.NANOSECONDS.toMillis(estimate.getEstimatedNanos()),
+                        this.sourceReader.tableName(estimate.getTable()));
+            }
+            log.info("Plan: about {} ms to copy {} table(s) one by one by {}",
+                    TimeUnit.NANOSECONDS.toMillis(totalNanos), result.size(), this.throughputModel);
+        }
+        return result;
+    }
+
     public void migrateTableData(final Table table) throws SQLException {
-        final String insertSql = this.targetWriter.insertSqlFor(table);
+        this.migrateTableData(table, this.targetWriter.insertSqlFor(table));
+    }
+
+    /**
+     * Copy all the rows of the table with the "upsert" statement of the target DB,
+     * so that the copy can be re-run without deleting the rows copied before
+     * @param table the Table whose data is to be copied
+     * @throws SQLException if it failed to read from the source DB or write to the target DB
+     */
+    public void upsertTableData(final Table table) throws SQLException {
+        this.migrateTableData(table, this.targetWriter.upsertSqlFor(table));
+    }
+
+    /**
+     * Copy all the rows of the table to the target DB of this MigrationTool and the other targets at once,
+     * reading the source DB only once (see {@link FanOutCopy}). The table must already exist in every target.
+     * The writes are limited by the throttles and the memoryGovernor and counted by the progressTracker,
+     * but the commitPolicy, the unloggedLoad and the bulkLoadSession only apply to the target of this MigrationTool,
+     * so they must not be set. The nativePassThrough and the javaTimeTransfer apply to every target,
+     * so the nativePassThrough needs every target of the same kind as the source.
+     * @param table the Table whose data is to be copied
+     * @param otherTargets the other target DBs, e.g. with the DbMetaWriter of another dialect
+     * @return the number of rows read from the source DB
+     * @throws SQLException if it failed to read from the source DB or write to any of the targets
+     * @throws IllegalStateException if the commitPolicy, the unloggedLoad or the bulkLoadSession is set,
+     *                               or the nativePassThrough is set with a target of another kind
+     */
+    public long fanOutTableData(final Table table, final List<FanOutCopy.Target> otherTargets)
+            throws SQLException {
+        if (this.commitPolicy != null || this.unloggedLoad || this.bulkLoadSession) {
+            throw new IllegalStateException(
+                    "commitPolicy, unloggedLoad and bulkLoadSession are not supported when copying to several targets");
+        }
+        if (this.nativePassThrough) {
+            for (final FanOutCopy.Target target : otherTargets) {
+                if (target.getWriter().getClass() != this.targetWriter.getClass()) {
+                    throw new IllegalStateException(
+                            "nativePassThrough is only for targets of the same kind as the source");
+                }
+            }
+        }
+        final List<FanOutCopy.Target> targets = new ArrayList<>(otherTargets.size() + 1);
+        targets.add(new FanOutCopy.Target(this.targetWriter, this.targetConnection));
+        targets.addAll(otherTargets);
+        this.registerProgress(Collections.singletonList(table));
+        final String selectAllSql = this.sourceReader.selectAllSqlFor(table);
+        if (log.isDebugEnabled()) {
+            log.debug("Before execute from source: {}", selectAllSql);
+        }
+        try (final StreamingStatement srcSt = this.sourceReader.openStreamingStatement(
+                this.sourceConnection, this.dataBatchSize)) {
+            try (final ResultSet srcRs = srcSt.executeQuery(selectAllSql)) {
+                final FanOutCopy copy = new FanOutCopy(table, targets, this.dataBatchSize, this.fanOutQueueCapacity);
+                copy.setThrottle(this.newTableThrottle());
+                copy.setMemoryGovernor(this.memoryGovernor);
+                copy.setProgress(this.startProgress(table));
+                final long count = copy.copy(srcRs, this.transferColumns(table, srcRs));
+                this.finishProgress(table);
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Export all the rows of the table in the source DB to a file (see {@link TableDataFile}),
+     * which can be imported by {@link #importTableData} later without connecting to the source DB
+     * @param table the Table whose data is to be exported
+     * @param file the file to be created or overwritten
+     * @return the number of rows exported
+     * @throws SQLException if it failed to read from the source DB
+     * @throws IOException if it failed to write the file
+     * @throws IllegalStateException if the nativePassThrough is set
+     */
+    public long exportTableData(final Table table, final Path file) throws SQLException, IOException {
+        this.checkNoPassThroughInFile();
         final String selectAllSql = this.sourceReader.selectAllSqlFor(table);
         if (log.isDebugEnabled()) {
             log.debug("Before execute from source: {}", selectAllSql);
         } else if (log.isInfoEnabled()) {
-            log.info("Before selectAll from {}", this.sourceReader.tableName(table));
+            log.info("Before export from {} to {}", this.sourceReader.tableName(table), file);
         }
-        try (final Statement srcSt = this.sourceConnection.createStatement(
-                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
-            srcSt.setFetchSize(this.dataBatchSize);
+        try (final StreamingStatement srcSt = this.sourceReader.openStreamingStatement(
+                this.sourceConnection, this.dataBatchSize)) {
             try (final ResultSet srcRs = srcSt.executeQuery(selectAllSql)) {
+                final long count = TableDataFile.write(srcRs, this.transferColumns(table, srcRs),
+                        this.dataBatchSize, file);
+                log.info("{} row(s) exported from {} to {}", count, this.sourceReader.tableName(table), file);
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Export all the rows of the table in the source DB to a self-describing columnar file for analytics
+     * (see {@link ColumnarTableFile}), streaming from the JDBC cursor into row groups of bounded size
+     * @param table the Table whose data is to be exported
+     * @param file the file to be created or overwritten
+     * @param maxBytesPerRowGroup the number of bytes (before compression) at which a row group is closed
+     * @return the number of rows exported
+     * @throws SQLException if it failed to read from the source DB
+     * @throws IOException if it failed to write the file
+     * @throws IllegalStateException if the nativePassThrough is set
+     */
+    public long exportTableDataToColumnarFile(final Table table, final Path file, final long maxBytesPerRowGroup)
+            throws SQLException, IOException {
+        this.checkNoPassThroughInFile();
+        final String selectAllSql = this.sourceReader.selectAllSqlFor(table);
+        if (log.isDebugEnabled()) {
+            log.debug("Before execute from source: {}", selectAllSql);
+        } else if (log.isInfoEnabled()) {
+            log.info("Before export from {} to {}", this.sourceReader.tableName(table), file);
+        }
+        try (final StreamingStatement srcSt = this.sourceReader.openStreamingStatement(
+                this.sourceConnection, this.dataBatchSize)) {
+            try (final ResultSet srcRs = srcSt.executeQuery(selectAllSql)) {
+                final long count = ColumnarTableFile.write(srcRs, this.transferColumns(table, srcRs), file,
+                        COLUMNAR_MAX_ROWS_PER_ROW_GROUP, maxBytesPerRowGroup);
+                log.info("{} row(s) exported from {} to {}", count, this.sourceReader.tableName(table), file);
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Insert all the rows in a file exported by {@link #exportTableData} to the table in the target DB,
+     * without connecting to the source DB, in the same way as {@link #migrateTablesData}
+     * (i.e. under the commitPolicy, the throttles, the memoryGovernor, the progressTracker and the unloggedLoad)
+     * except that the rows are inserted in the blocks of the file rather than by dataBatchSize
+     * @param table the Table whose data is to be imported
+     * @param file the file exported by {@link #exportTableData}
+     * @return the number of rows imported
+     * @throws SQLException if it failed to write to the target DB
+     * @throws IOException if it failed to read the file or the file does not match the table
+     * @throws IllegalStateException if the nativePassThrough is set
+     */
+    public long importTableData(final Table table, final Path file) throws SQLException, IOException {
+        this.checkNoPassThroughInFile();
+        final String targetTableName = this.targetWriter.tableName(table);
+        log.info("Before import from {} into {}", file, targetTableName);
+        if (this.progressTracker != null) {
+            // not registerProgress, which reads the statistics from the source DB
+            this.progressTracker.register(table, TableStatistics.UNKNOWN);
+        }
+        try (final BulkLoadSession session = this.openBulkLoadSession(Collections.singletonList(table))) {
+            final long count;
+            try {
+                count = this.copyUnloggedIfSet(table, this.targetConnection, () -> {
+                    try {
+                        return this.loadTableDataFile(table, file, targetTableName);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            this.finishProgress(table);
+            log.info("{} row(s) imported from {} into {}", count, file, targetTableName);
+            if (session != null) {
+                session.loaded();
+            }
+            return count;
+        }
+    }
+
+    /**
+     * @return the number of rows inserted
+     */
+    private long loadTableDataFile(final Table table, final Path file, final String targetTableName)
+            throws SQLException, IOException {
+        final long reservedRowSize = this.memoryGovernor == null ? 0L :
+                this.memoryGovernor.estimateRowSize(table.getColumnMap().values());
+        final ProgressTracker.TableProgress progress = this.startProgress(table);
+        final Throttle throttle = this.newTableThrottle();
+        final CommitPolicy.Committer committer = this.beginCommits(table, this.targetConnection);
+        try {
+            final long count;
+            try (final PreparedStatement destPs = this.targetConnection.prepareStatement(
+                    this.targetWriter.insertSqlFor(table))) {
+                // no ResultSet for the metadata, which only the nativePassThrough needs
+                count = TableDataFile.read(file, this.transferColumns(table, null), destPs,
+                        (ps, rowCount, dataSize) -> {
+                            // the block is already decoded, but its batch is held by the driver until executed
+                            final long acquired = this.acquireMemory(reservedRowSize * rowCount);
+                            try {
+                                executeBatch(ps, this.targetConnection, throttle, rowCount, dataSize);
+                            } finally {
+                                this.releaseMemory(acquired);
+                            }
+                            if (committer != null) {
+                                committer.afterBatch(dataSize);
+                            }
+                            if (progress != null) {
+                                progress.add(rowCount, dataSize);
+                            }
+                        });
+            }
+            if (committer != null) {
+                committer.finish();
+                if (log.isDebugEnabled()) {
+                    log.debug("{} commit(s) into {}", committer.getCommitCount(), targetTableName);
+                }
+            }
+            return count;
+        } catch (SQLException | IOException | RuntimeException ex) {
+            if (committer != null) {
+                try {
+                    committer.abort();
+                } catch (SQLException suppressed) {
+                    ex.addSuppressed(suppressed);
+                }
+            }
+            throw ex;
+        }
+    }
+
+    private void migrateTableData(final Table table, final String insertSql) throws SQLException {
+        this.registerProgress(Collections.singletonList(table));
+        try (final BulkLoadSession session = this.openBulkLoadSession(Collections.singletonList(table))) {
+            final long start = System.nanoTime();
+            final long count = this.copyUnloggedIfSet(table, this.targetConnection, () -> this.copyTableData(
+                    table, this.sourceReader.selectAllSqlFor(table), this.sourceConnection, insertSql,
+                    this.targetConnection, this.newTableThrottle()));
+            this.throughputModel.record(this.plannedStatistics.get(table), count, System.nanoTime() - start);
+            this.finishProgress(table);
+            if (session != null) {
+                session.loaded();
+            }
+        }
+    }
+
+    /**
+     * Copy all the rows of several tables by <code>parallelism</code> workers (see {@link WorkerExecutors}),
+     * each of which copies one table at a time on its own connections opened from {@link #setSourceDataSource}
+     * and {@link #setTargetDataSource}. The tables are taken in the order of {@link #planTableData},
+     * the longest first, so that a long table does not start last and keep the others waiting.
+     * If {@link #setConsistentSnapshot consistentSnapshot}, all the workers read the same snapshot.
+     * @param tables the tables whose data is to be copied
+     * @param parallelism the maximum number of tables copied at the same time,
+     *                    bounded by the connections available to both DBs,
+     *                    besides those kept by this MigrationTool (see the constructor with DataSources)
+     * @return the number of rows copied
+     * @throws SQLException if it failed to read from the source DB or write to the target DB
+     */
+    public long migrateTablesData(final Collection<Table> tables, final int parallelism) throws SQLException {
+        if (this.sourceDataSource == null || this.targetDataSource == null) {
+            throw new IllegalStateException(
+                    "sourceDataSource and targetDataSource must be set before copying tables in parallel");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        final List<Table> planned = new ArrayList<>(tables.size());
+        for (final TableCopyEstimate estimate : this.planTableData(tables)) {
+            planned.add(estimate.getTable());
+        }
+        this.registerProgress(planned);
+        // the workers share immutable snapshots taken (and loaded if lazy) here, rather than the Tables
+        // of the caller, and each of them builds its own Table from a snapshot
+        final Queue<TableSnapshot> queue = new ConcurrentLinkedQueue<>();
+        for (final Table table : planned) {
+            queue.add(TableSnapshot.of(table));
+        }
+        if (queue.isEmpty()) {
+            return 0L;
+        }
+        final int workerCount = Math.min(parallelism, queue.size());
+        final LongAdder total = new LongAdder();
+        final Connection coordinator = this.openSnapshotCoordinator();
+        final int coordinatorIsolation = coordinator == null ? 0 : coordinator.getTransactionIsolation();
+        try (final BulkLoadSession session = this.openBulkLoadSession(tables)) {
+            final String snapshotId = coordinator == null ? null : this.sourceReader.exportSnapshot(coordinator);
+            final ExecutorService executor = WorkerExecutors.newWorkerExecutor("table-copier", workerCount);
+            try {
+                final List<Future<?>> futures = new ArrayList<>(workerCount);
+                for (int i = 0; i < workerCount; i += 1) {
+                    futures.add(executor.submit(() -> {
+                        try (final Connection srcConnection = this.sourceDataSource.getConnection();
+                                final Connection destConnection = this.targetDataSource.getConnection()) {
+                            if (session != null) {
+                                session.join(destConnection);
+                            }
+                            try {
+                                this.copyInSnapshot(srcConnection, snapshotId, () -> {
+                                    this.copyTablesFromQueue(queue, srcConnection, destConnection, total);
+                                    return total.sum();
+                                });
+                            } finally {
+                                if (session != null) {
+                                    session.leave(destConnection);
+                                }
+                            }
+                        } catch (SQLException | RuntimeException ex) {
+                            queue.clear(); // stop the other workers after their current tables
+                            throw ex;
+                        }
+                        return null;
+                    }));
+                }
+                waitForAll(futures);
+                if (session != null) {
+                    session.loaded();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        } finally {
+            closeSnapshotCoordinator(coordinator, coordinatorIsolation);
+        }
+        return total.sum();
+    }
+
+    /**
+     * Copy the tables taken from the queue one by one, until the queue is empty
+     */
+    private void copyTablesFromQueue(final Queue<TableSnapshot> queue, final Connection srcConnection,
+            final Connection destConnection, final LongAdder total) throws SQLException {
+        for (TableSnapshot snapshot = queue.poll(); snapshot != null; snapshot = queue.poll()) {
+            final long start = System.nanoTime();
+            // equal to the Table of the caller, by the names, for the plannedStatistics and the progress
+            final Table table = snapshot.toTable(
+                    snapshot.getSchemaName() == null ? null : new Schema(snapshot.getSchemaName()));
+            final long count = this.copyUnloggedIfSet(table, destConnection, () -> this.copyTableData(
+                    table, this.sourceReader.selectAllSqlFor(table), srcConnection,
+                    this.targetWriter.insertSqlFor(table), destConnection, this.newTableThrottle()));
+            this.throughputModel.record(this.plannedStatistics.get(table), count, System.nanoTime() - start);
+            this.finishProgress(table);
+            total.add(count);
+        }
+    }
+
+    /**
+     * Copy all the rows of the table by several threads, each of which reads a disjoint slice of the table
+     * (split by the physical location or the hash of the rows, see {@link DbMetaReader#selectPartitionSqlsFor})
+     * on its own connections opened from {@link #setSourceDataSource} and {@link #setTargetDataSource}.
+     * It does not need a primary key, so it suits large tables without a primary key.
+     * @param table the Table whose data is to be copied
+     * @param partitionCount the number of slices, which is also the number of threads, each of which
+     *                       takes a connection from each DataSource besides those kept by this MigrationTool
+     * @throws SQLException if it failed to read from the source DB or write to the target DB
+     */
+    public void migrateTableDataInPartitions(final Table table, final int partitionCount) throws SQLException {
+        if (this.sourceDataSource == null || this.targetDataSource == null) {
+            throw new IllegalStateException(
+                    "sourceDataSource and targetDataSource must be set before copying in partitions");
+        }
+        if (this.unloggedLoad && this.targetWriter.unloggedTransactionSqlFor(table) != null) {
+            // e.g. ACTIVATE NOT LOGGED INITIALLY of DB2 locks the table exclusively until the end of the unit of work
+            throw new IllegalStateException("An unlogged load of the target DB cannot be done in partitions");
+        }
+        this.registerProgress(Collections.singletonList(table));
+        try (final BulkLoadSession session = this.openBulkLoadSession(Collections.singletonList(table))) {
+            this.copyUnloggedIfSet(table, this.targetConnection,
+                    () -> this.copyTableDataInPartitions(table, partitionCount, session));
+            if (session != null) {
+                session.loaded();
+            }
+        }
+    }
+
+    /**
+     * @param session the BulkLoadSession joined by every thread, null for none
+     * @return the number of rows copied
+     */
+    private long copyTableDataInPartitions(final Table table, final int partitionCount,
+            final BulkLoadSession session) throws SQLException {
+        final List<String> selectSqls = this.sourceReader.selectPartitionSqlsFor(
+                this.sourceConnection, table, partitionCount);
+        final String insertSql = this.targetWriter.insertSqlFor(table);
+        final Connection coordinator = this.openSnapshotCoordinator();
+        final int coordinatorIsolation = coordinator == null ? 0 : coordinator.getTransactionIsolation();
+        final Throttle throttle = this.newTableThrottle();
+        final ExecutorService executor = WorkerExecutors.newWorkerExecutor("partition-copier", selectSqls.size());
+        final LongAdder count = new LongAdder();
+        final long start = System.nanoTime();
+        try {
+            final String snapshotId = coordinator == null ? null : this.sourceReader.exportSnapshot(coordinator);
+            final List<Future<?>> futures = new ArrayList<>(selectSqls.size());
+            for (final String selectSql : selectSqls) {
+                futures.add(executor.submit(() -> {
+                    try (final Connection srcConnection = this.sourceDataSource.getConnection();
+                            final Connection destConnection = this.targetDataSource.getConnection()) {
+                        if (session != null) {
+                            session.join(destConnection);
+                        }
+                        try {
+                            count.add(this.copyInSnapshot(srcConnection, snapshotId, () -> this.copyTableData(
+                                    table, selectSql, srcConnection, insertSql, destConnection, throttle)));
+                        } finally {
+                            if (session != null) {
+                                session.leave(destConnection);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            waitForAll(futures);
+            this.throughputModel.record(this.plannedStatistics.get(table), count.sum(), System.nanoTime() - start,
+                    selectSqls.size());
+            this.finishProgress(table);
+            return count.sum();
+        } finally {
+            executor.shutdownNow();
+            closeSnapshotCoordinator(coordinator, coordinatorIsolation);
+        }
+    }
+
+    /**
+     * @return a new source connection to export the snapshot if consistentSnapshot, otherwise null
+     * @throws UnsupportedOperationException if consistentSnapshot but the source DB does not support it
+     */
+    private Connection openSnapshotCoordinator() throws SQLException {
+        if (!this.consistentSnapshot) {
+            return null;
+        }
+        if (!this.sourceReader.isSnapshotSupported()) {
+            throw new UnsupportedOperationException("consistentSnapshot is not supported by " +
+                    this.sourceReader.getClass().getSimpleName());
+        }
+        return this.sourceDataSource.getConnection();
+    }
+
+    private static void closeSnapshotCoordinator(final Connection coordinator, final int transactionIsolation)
+            throws SQLException {
+        if (coordinator != null) {
+            try {
+                endReadOnlyTransaction(coordinator, transactionIsolation);
+            } finally {
+                coordinator.close();
+            }
+        }
+    }
+
+    /**
+     * Run the copy in the snapshot exported by the coordinator, and end the transaction afterwards
+     * @param snapshotId the ID of the snapshot, null to run the copy as it is
+     */
+    private long copyInSnapshot(final Connection srcConnection, final String snapshotId, final TableCopy copy)
+            throws SQLException {
+        if (snapshotId == null) {
+            return copy.copy();
+        }
+        final int transactionIsolation = srcConnection.getTransactionIsolation();
+        try {
+            this.sourceReader.useSnapshot(srcConnection, snapshotId);
+            return copy.copy();
+        } finally {
+            endReadOnlyTransaction(srcConnection, transactionIsolation);
+        }
+    }
+
+    /**
+     * End the transaction opened for reading a snapshot and restore the auto-commit mode
+     * and the transaction isolation, in case the connection is returned to a pool
+     */
+    private static void endReadOnlyTransaction(final Connection connection, final int transactionIsolation)
+            throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+        if (connection.getTransactionIsolation() != transactionIsolation) {
+            connection.setTransactionIsolation(transactionIsolation);
+        }
+    }
+
+    private static void waitForAll(final List<Future<?>> futures) throws SQLException {
+        try {
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the copy threads", ex);
+        } catch (ExecutionException ex) {
+            final Throwable cause = ex.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SQLException(cause);
+        } finally {
+            for (final Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * @return a BulkLoadSession of the tables on the target connection if bulkLoadSession, otherwise null
+     */
+    private BulkLoadSession openBulkLoadSession(final Collection<Table> tables) throws SQLException {
+        return this.bulkLoadSession ? BulkLoadSession.open(this.targetWriter, this.targetReader,
+                this.targetConnection, tables) : null;
+    }
+
+    /**
+     * A copy of a table, which may be wrapped by {@link #copyUnloggedIfSet}
+     */
+    @FunctionalInterface
+    private interface TableCopy {
+        long copy() throws SQLException;
+    }
+
+    /**
+     * Run the copy between the statements to stop and resume logging the changes to the table if unloggedLoad
+     * @return the number of rows copied
+     */
+    private long copyUnloggedIfSet(final Table table, final Connection destConnection, final TableCopy copy)
+            throws SQLException {
+        if (!this.unloggedLoad) {
+            return copy.copy();
+        }
+        final String beginSql = this.targetWriter.beginUnloggedLoadSqlFor(table); // unsupported before any check
+        this.checkUnloggedLoad(table, destConnection);
+        this.executeOnTarget(destConnection, beginSql);
+        final long count;
+        try {
+            count = copy.copy();
+        } catch (SQLException | RuntimeException ex) {
+            try {
+                this.executeOnTarget(destConnection, this.targetWriter.endUnloggedLoadSqlFor(table));
+            } catch (SQLException | RuntimeException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+        this.executeOnTarget(destConnection, this.targetWriter.endUnloggedLoadSqlFor(table));
+        return count;
+    }
+
+    /**
+     * @throws IllegalStateException if the target table is not empty or cannot be loaded unlogged
+     */
+    private void checkUnloggedLoad(final Table table, final Connection destConnection) throws SQLException {
+        final String targetTableName = this.targetWriter.tableName(table);
+        try (final Statement statement = destConnection.createStatement()) {
+            statement.setMaxRows(1);
+            try (final ResultSet rs = statement.executeQuery("SELECT 1 FROM " + targetTableName)) {
+                if (rs.next()) {
+                    throw new IllegalStateException("The table " + targetTableName +
+                            " is not empty, an unlogged load is only for an empty table");
+                }
+            }
+            final String blockerSql = this.targetWriter.unloggedLoadBlockerSqlFor(table);
+            if (blockerSql != null) {
+                try (final ResultSet rs = statement.executeQuery(blockerSql)) {
+                    if (rs.next()) {
+                        throw new IllegalStateException("The table " + targetTableName +
+                                " cannot be loaded unlogged (e.g. a DB2 table not created with NOT LOGGED INITIALLY)");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Execute a statement on the target DB and commit it if the connection is not in the auto-commit mode
+     * @param sql the statement, nothing is done if it is null
+     */
+    private void executeOnTarget(final Connection destConnection, final String sql) throws SQLException {
+        if (sql == null) {
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Before execute on target: {}", sql);
+        }
+        try (final Statement statement = destConnection.createStatement()) {
+            statement.execute(sql);
+        }
+        if (!destConnection.getAutoCommit()) {
+            destConnection.commit();
+        }
+    }
+
+    /**
+     * @return the number of rows copied
+     */
+    private long copyTableData(final Table table, final String selectSql, final Connection srcConnection,
+            final String insertSql, final Connection destConnection, final Throttle throttle) throws SQLException {
+        if (log.isDebugEnabled()) {
+            log.debug("Before execute from source: {}", selectSql);
+        } else if (log.isInfoEnabled()) {
+            log.info("Before selectAll from {}", this.sourceReader.tableName(table));
+        }
+        try (final StreamingStatement srcSt = this.sourceReader.openStreamingStatement(
+                srcConnection, this.dataBatchSize)) {
+            try (final ResultSet srcRs = srcSt.executeQuery(selectSql)) {
                 final String targetTableName = this.targetWriter.tableName(table);
                 if (log.isDebugEnabled()) {
-                    log.debug("Before execute from target: {}", selectAllSql);
+                    log.debug("Before execute from target: {}", selectSql);
                 } else if (log.isInfoEnabled()) {
                     log.info("Before insert into {}", targetTableName);
                 }
-                migrateTableDataFromSrcResultSet(table, insertSql, srcRs, targetTableName);
+                final long count = migrateTableDataFromSrcResultSet(
+                        table, insertSql, srcRs, destConnection, targetTableName, throttle);
                 if (log.isDebugEnabled()) {
-                    log.debug("After execute on target: {}", selectAllSql);
+                    log.debug("After execute on target: {}", selectSql);
                 } else if (log.isInfoEnabled()) {
                     log.info("After insert into {}", targetTableName);
                 }
+                return count;
             }
         }
     }
 
-    private void migrateTableDataFromSrcResultSet(final Table table, final String insertSql,
-            final ResultSet srcRs, final String targetTableName) throws SQLException {
-        try (final PreparedStatement destPs = this.targetConnection.prepareStatement(insertSql)) {
-            int count = 0;
-            while (srcRs.next()) {
-                insertOneRow(table, srcRs, destPs);
-                ++count;
-                if (log.isTraceEnabled()) {
-                    log.trace("{} row(s) inserted into {}", count, targetTableName);
+    private long migrateTableDataFromSrcResultSet(final Table table, final String insertSql,
+            final ResultSet srcRs, final Connection destConnection, final String targetTableName,
+            final Throttle throttle) throws SQLException {
+        // for the throttle, the commitPolicy and the progress, not the worst case reserved in the memoryGovernor
+        final long rowSize = MemoryGovernor.estimateRowSize(table.getColumnMap().values(),
+                MemoryGovernor.TYPICAL_LOB_SIZE);
+        final long batchBytes = this.memoryGovernor == null ? 0L :
+                this.memoryGovernor.estimateRowSize(table.getColumnMap().values()) * this.dataBatchSize;
+        final ProgressTracker.TableProgress progress = this.startProgress(table);
+        final List<Column> columns = this.transferColumns(table, srcRs);
+        final CommitPolicy.Committer committer = this.beginCommits(table, destConnection);
+        try {
+            final long count = this.insertBatches(insertSql, srcRs, destConnection, targetTableName, throttle,
+                    columns, rowSize, batchBytes, progress, committer);
+            if (committer != null) {
+                committer.finish();
+                if (log.isDebugEnabled()) {
+                    log.debug("{} commit(s) into {}", committer.getCommitCount(), targetTableName);
                 }
-                if (count % this.dataBatchSize == 0) {
-                    destPs.executeBatch();
+            }
+            return count;
+        } catch (SQLException | RuntimeException ex) {
+            if (committer != null) {
+                try {
+                    committer.abort();
+                } catch (SQLException suppressed) {
+                    ex.addSuppressed(suppressed);
+                }
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * @return the Committer of the commitPolicy, or of a single transaction if needed by an unlogged load,
+     *         null to leave it to the auto-commit mode
+     */
+    private CommitPolicy.Committer beginCommits(final Table table, final Connection destConnection)
+            throws SQLException {
+        final String transactionSql = this.unloggedLoad ? this.targetWriter.unloggedTransactionSqlFor(table) : null;
+        if (this.commitPolicy != null) {
+            return this.commitPolicy.begin(destConnection, transactionSql);
+        }
+        return transactionSql == null ? null : new CommitPolicy(0, 0L).begin(destConnection, transactionSql);
+    }
+
+    private long insertBatches(final String insertSql, final ResultSet srcRs, final Connection destConnection,
+            final String targetTableName, final Throttle throttle, final List<Column> columns, final long rowSize,
+            final long batchBytes, final ProgressTracker.TableProgress progress,
+            final CommitPolicy.Committer committer) throws SQLException {
+        try (final PreparedStatement destPs = destConnection.prepareStatement(insertSql)) {
+            if (this.offHeapBuffer) {
+                final OffHeapRowBatch batch = new OffHeapRowBatch(columns, this.dataBatchSize);
+                long total = 0L;
+                while (true) {
+                    final long acquired = this.acquireMemory(batchBytes);
+                    try {
+                        if (batch.fill(srcRs) <= 0) {
+                            return total;
+                        }
+                        total += batch.getRowCount();
+                        batch.addBatchTo(destPs);
+                        executeBatch(destPs, destConnection, throttle, batch.getRowCount(), batch.getDataSize());
+                        if (committer != null) {
+                            committer.afterBatch(batch.getDataSize());
+                        }
+                        if (progress != null) {
+                            progress.add(batch.getRowCount(), batch.getDataSize());
+                        }
+                    } finally {
+                        this.releaseMemory(acquired);
+                    }
                     if (log.isDebugEnabled()) {
-                        log.debug("A batch executed to insert into {}", targetTableName);
+                        log.debug("A batch executed, {} row(s) inserted into {}", total, targetTableName);
                     }
                 }
             }
-            if (count % this.dataBatchSize != 0) {
-                destPs.executeBatch();
-                if (log.isDebugEnabled()) {
-                    log.debug("A batch executed to insert into {}", targetTableName);
+            long count = 0;
+            boolean hasNext = true;
+            while (hasNext) {
+                final long acquired = this.acquireMemory(batchBytes);
+                try {
+                    int countInBatch = 0;
+                    while (countInBatch < this.dataBatchSize && (hasNext = srcRs.next())) {
+                        insertOneRow(columns, srcRs, destPs);
+                        ++count;
+                        ++countInBatch;
+                    }
+                    if (countInBatch > 0) {
+                        executeBatch(destPs, destConnection, throttle, countInBatch, countInBatch * rowSize);
+                        if (committer != null) {
+                            committer.afterBatch(countInBatch * rowSize);
+                        }
+                        if (progress != null) {
+                            progress.add(countInBatch, countInBatch * rowSize);
+                        }
+                        if (log.isDebugEnabled()) {
+                            log.debug("A batch executed, {} row(s) inserted into {}", count, targetTableName);
+                        }
+                    }
+                } finally {
+                    this.releaseMemory(acquired);
                 }
             }
+            return count;
         }
     }
 
-    private static void insertOneRow(final Table table, final ResultSet srcRs, final PreparedStatement destPs)
-            throws SQLException {
+    /**
+     * Execute the batch of the PreparedStatement, after waiting for the throttle if any
+     */
+    static void executeBatch(final PreparedStatement destPs, final Connection destConnection,
+            final Throttle throttle, final long rows, final long bytes) throws SQLException {
+        if (throttle == null) {
+            destPs.executeBatch();
+            return;
+        }
+        try {
+            throttle.acquire(rows, bytes);
+            final long start = System.nanoTime();
+            destPs.executeBatch();
+            throttle.afterBatch(destConnection, System.nanoTime() - start);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while throttled", ex);
+        }
+    }
+
+    /**
+     * Register the tables in the progressTracker before any of them starts, with the row counts estimated
+     * by the statistics read by {@link #planTableData}, or read now if not planned
+     */
+    private void registerProgress(final Collection<Table> tables) throws SQLException {
+        if (this.progressTracker == null) {
+            return;
+        }
+        for (final Table table : tables) {
+            TableStatistics statistics = this.plannedStatistics.get(table);
+            if (statistics == null) {
+                try {
+                    statistics = this.sourceReader.readStatistics(this.sourceConnection, table);
+                } catch (UnsupportedOperationException ex) {
+                    statistics = new TableStatistics(table, TableStatistics.UNKNOWN, TableStatistics.UNKNOWN);
+                }
+                this.plannedStatistics.put(table, statistics);
+            }
+            this.progressTracker.register(table, statistics.getRowCount());
+        }
+    }
+
+    /**
+     * @return the progress of the table in the progressTracker, null if there is no progressTracker
+     */
+    private ProgressTracker.TableProgress startProgress(final Table table) {
+        if (this.progressTracker == null) {
+            return null;
+        }
+        final TableStatistics statistics = this.plannedStatistics.get(table);
+        return this.progressTracker.start(table, statistics == null ? TableStatistics.UNKNOWN :
+                statistics.getRowCount());
+    }
+
+    private void finishProgress(final Table table) {
+        if (this.progressTracker != null) {
+            this.startProgress(table).finish();
+        }
+    }
+
+    /**
+     * @return a Throttle limited by tableMaxRowsPerSecond and tableMaxBytesPerSecond
+     *         with the globalThrottle as its parent, or the globalThrottle if there is no limit for a table
+     */
+    private Throttle newTableThrottle() {
+        if (this.tableMaxRowsPerSecond <= 0 && this.tableMaxBytesPerSecond <= 0) {
+            return this.globalThrottle;
+        }
+        return new Throttle(this.tableMaxRowsPerSecond, this.tableMaxBytesPerSecond, this.globalThrottle);
+    }
+
+    /**
+     * @return the number of bytes acquired from the memoryGovernor, 0 if there is no memoryGovernor
+     */
+    private long acquireMemory(final long bytes) throws SQLException {
+        if (this.memoryGovernor == null) {
+            return 0L;
+        }
+        try {
+            return this.memoryGovernor.acquire(bytes);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for memory", ex);
+        }
+    }
+
+    private void releaseMemory(final long acquired) {
+        if (acquired > 0) {
+            this.memoryGovernor.release(acquired);
+        }
+    }
+
+    /**
+     * @param srcRs the source ResultSet, whose metadata is read if nativePassThrough is on
+     * @return the columns of the table in the order of the source query,
+     *         with the UnknownTypes replaced by PassThroughTypes if nativePassThrough is on,
+     *         and the temporal types replaced by JavaTimeTypes if javaTimeTransfer is on
+     */
+    private List<Column> transferColumns(final Table table, final ResultSet srcRs) throws SQLException {
+        final List<Column> result = new ArrayList<>(table.getColumnMap().values());
+        if (!this.nativePassThrough && !this.javaTimeTransfer) {
+            return result;
+        }
+        final ResultSetMetaData metaData = this.nativePassThrough ? srcRs.getMetaData() : null;
+        for (int i = 0; i < result.size(); i += 1) {
+            final Column column = result.get(i);
+            final DataType dataType = column.getDataType();
+            if (this.nativePassThrough && dataType instanceof UnknownType) {
+                result.set(i, withDataType(column,
+                        new PassThroughType((UnknownType) dataType, metaData.getColumnType(i + 1))));
+            } else if (this.javaTimeTransfer && JavaTimeType.supports(dataType)) {
+                result.set(i, withDataType(column,
+                        new JavaTimeType(dataType, this.sourceTimeZone, this.targetTimeZone)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A PassThroughType binds a value with the SQL type of the source query, which a file does not keep
+     */
+    private void checkNoPassThroughInFile() {
+        if (this.nativePassThrough) {
+            throw new IllegalStateException("nativePassThrough is not supported when exporting or importing a file");
+        }
+    }
+
+    private static Column withDataType(final Column column, final DataType dataType) {
+        final Column result = new Column(column.getName());
+        result.setTable(column.getTable());
+        result.setNotNull(column.isNotNull());
+        result.setDataType(dataType);
+        return result;
+    }
+
+    private static void insertOneRow(final Collection<Column> columns, final ResultSet srcRs,
+            final PreparedStatement destPs) throws SQLException {
         int i = 1;
-        for (final Column column : table.getColumnMap().values()) {
+        for (final Column column : columns) {
             column.getDataType().setPreparedStatementParameter(destPs, i++, column.getFromResultSet(srcRs));
         }
         destPs.addBatch();
@@ -163,7 +1230,10 @@ public class MigrationTool {
 
     public void migrateTableStructureWithData(final Table table, final MigrateDataOption migrateDataOption)
             throws SQLException {
-        if (this.migrateTableStructure(table)) {
+        final boolean created = this.migrateTableStructure(table);
+        if (MigrateDataOption.UPSERT == migrateDataOption) {
+            this.upsertTableData(table);
+        } else if (created) {
             if (MigrateDataOption.TRUNCATE_FIRST == migrateDataOption) {
                 try (final Statement statement = this.targetConnection.createStatement()) {
                     log.debug("Truncate table {} before migrating data", table);
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Objects;
+
+import lombok.Getter;
+
+import tech.firas.db.datatype.ColumnBuffer;
+import tech.firas.db.vo.Column;
+
+/**
+ * A batch of rows kept column by column in off-heap {@link ColumnBuffer}s,
+ * encoded and decoded by the {@link tech.firas.db.datatype.DataType} of each column.
+ * It is filled from a source ResultSet and then bound to a target PreparedStatement,
+ * and can be cleared and reused for the next batch so that the memory in use stays the same.
+ */
+public class OffHeapRowBatch {
+
+    private static final int INITIAL_BYTES_PER_VALUE = 16;
+
+    private final Column[] columns;
+    private final ColumnBuffer[] buffers;
+
+    @Getter private final int capacity;
+
+    @Getter private int rowCount;
+
+    /**
+     * @param columns the columns in the order of the parameters of the target PreparedStatement
+     * @param capacity the maximum number of rows in the batch
+     */
+    public OffHeapRowBatch(final Collection<Column> columns, final int capacity) {
+        if (Objects.requireNonNull(columns, "columns must not be null").isEmpty()) {
+            throw new IllegalArgumentException("columns must not be empty");
+        }
+        this.columns = columns.toArray(new Column[0]);
+        this.buffers = new ColumnBuffer[this.columns.length];
+        for (int i = 0; i < this.buffers.length; i += 1) {
+            this.buffers[i] = new ColumnBuffer(capacity, capacity * INITIAL_BYTES_PER_VALUE);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Clear the batch and read the following rows from the ResultSet until the batch is full
+     * or there is no more row
+     * @param resultSet the source ResultSet
+     * @return the number of rows read, 0 if there is no more row
+     * @throws SQLException if it failed to read from the ResultSet
+     */
+    public int fill(final ResultSet resultSet) throws SQLException {
+        return this.fill(resultSet, Long.MAX_VALUE);
+    }
+
+    /**
+     * Clear the batch and read the following rows from the ResultSet until the batch is full,
+     * the data reaches <code>maxDataSize</code> bytes or there is no more row
+     * @param resultSet the source ResultSet
+     * @param maxDataSize the number of bytes of the data at which the batch stops reading
+     * @return the number of rows read, 0 if there is no more row
+     * @throws SQLException if it failed to read from the ResultSet
+     */
+    public int fill(final ResultSet resultSet, final long maxDataSize) throws SQLException {
+        this.clear();
+        while (this.rowCount < this.capacity && this.getDataSize() < maxDataSize && resultSet.next()) {
+            for (int i = 0; i < this.columns.length; i += 1) {
+                final Column column = this.columns[i];
+                column.getDataType().writeToBuffer(resultSet, column.getName(), this.buffers[i]);
+            }
+            this.rowCount += 1;
+        }
+        return this.rowCount;
+    }
+
+    /**
+     * Bind every row in the batch to the parameters of the PreparedStatement and add it to the batch of the
+     * PreparedStatement
+     * @param preparedStatement the target PreparedStatement
+     * @throws SQLException if it failed to set the parameters
+     */
+    public void addBatchTo(final PreparedStatement preparedStatement) throws SQLException {
+        for (int row = 0; row < this.rowCount; row += 1) {
+            for (int i = 0; i < this.columns.length; i += 1) {
+                this.columns[i].getDataType().setPreparedStatementParameter(
+                        preparedStatement, i + 1, this.buffers[i], row);
+            }
+            preparedStatement.addBatch();
+        }
+    }
+
+    /**
+     * @return the number of bytes of the data in the batch
+     */
+    public long getDataSize() {
+        long result = 0L;
+        for (final ColumnBuffer buffer : this.buffers) {
+            result += buffer.getDataSize();
+        }
+        return result;
+    }
+
+    /**
+     * @param columnIndex the index of the column (starting from 0)
+     * @return the ColumnBuffer of the column
+     */
+    public ColumnBuffer getColumnBuffer(final int columnIndex) {
+        return this.buffers[columnIndex];
+    }
+
+    /**
+     * @return the number of bytes written by {@link #writeTo}
+     */
+    public int getSerializedSize() {
+        int result = Integer.BYTES;
+        for (final ColumnBuffer buffer : this.buffers) {
+            result += buffer.getSerializedSize();
+        }
+        return result;
+    }
+
+    /**
+     * Write the rows in the batch to the ByteBuffer, column by column
+     * @param out the ByteBuffer with at least {@link #getSerializedSize()} bytes remaining
+     */
+    public void writeTo(final ByteBuffer out) {
+        out.putInt(this.rowCount);
+        for (final ColumnBuffer buffer : this.buffers) {
+            buffer.writeTo(out);
+        }
+    }
+
+    /**
+     * Replace the rows in the batch with those written by {@link #writeTo}
+     * @param in the ByteBuffer positioned at the data written by {@link #writeTo}
+     */
+    public void readFrom(final ByteBuffer in) {
+        final int count = in.getInt();
+        for (final ColumnBuffer buffer : this.buffers) {
+            buffer.readFrom(in);
+            if (buffer.getRowCount() != count) {
+                throw new IllegalArgumentException("Row count mismatch: " + buffer.getRowCount() + " != " + count);
+            }
+        }
+        this.rowCount = count;
+    }
+
+    public void clear() {
+        for (final ColumnBuffer buffer : this.buffers) {
+            buffer.clear();
+        }
+        this.rowCount = 0;
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import tech.firas.db.vo.Table;
+import tech.firas.db.vo.TableStatistics;
+
+/**
+ * Track the progress of the copies of the tables of a job, updated once per batch by lock-free counters,
+ * so that the workers never wait for the reporting. A reporter thread (see {@link #startReporting})
+ * reads the counters periodically and reports the percent done, the rows per second and the ETA
+ * of each table and of the whole job, using the row counts estimated by the statistics of the source DB.
+ * The tables of a job should be {@link #register registered} before the first one starts,
+ * so that the job totals include the tables still waiting.
+ */
+@Slf4j
+public class ProgressTracker implements AutoCloseable {
+
+    /**
+     * Receive the progress periodically on the reporter thread, e.g. to export it as metrics
+     */
+    @FunctionalInterface
+    public interface Reporter {
+        void report(ProgressTracker tracker);
+    }
+
+    /**
+     * Log the job and each table in progress at INFO level
+     */
+    public static final Reporter LOG_REPORTER = tracker -> {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        for (final TableProgress table : tracker.getTables()) {
+            if (table.isStarted() && !table.isFinished()) {
+                log.info("{}: {}", table.getTable(), table);
+            }
+        }
+        log.info("Job: {} row(s) in {} table(s) ({} finished), {}% done, {} rows/s, ETA {} s",
+                tracker.getRows(), tracker.tables.size(), tracker.getFinishedCount(),
+                percentOf(tracker.getRows(), tracker.getExpectedRows()),
+                Math.round(tracker.getRowsPerSecond()), secondsOf(tracker.getEtaNanos()));
+    };
+
+    private final Map<Table, TableProgress> tables = new ConcurrentHashMap<>();
+
+    private final long startNanos = System.nanoTime();
+
+    private ScheduledExecutorService reporterExecutor;
+
+    /**
+     * Track a table to be copied later, or get the progress of a table already registered
+     * @param table the Table to be copied
+     * @param expectedRows the estimated number of rows, {@link TableStatistics#UNKNOWN} if unknown
+     * @return the progress of the table
+     */
+    public TableProgress register(final Table table, final long expectedRows) {
+        return this.tables.computeIfAbsent(table, k -> new TableProgress(table, expectedRows));
+    }
+
+    /**
+     * Start tracking a table, or get the progress of a table already started, e.g. by another partition
+     * @param table the Table being copied
+     * @param expectedRows the estimated number of rows, {@link TableStatistics#UNKNOWN} if unknown;
+     *                     ignored if the table has been registered
+     * @return the progress of the table
+     */
+    public TableProgress start(final Table table, final long expectedRows) {
+        final TableProgress result = this.register(table, expectedRows);
+        result.markStarted();
+        return result;
+    }
+
+    /**
+     * @return the progress of the tables registered or started, in no particular order
+     */
+    public List<TableProgress> getTables() {
+        return new ArrayList<>(this.tables.values());
+    }
+
+    public long getRows() {
+        long result = 0L;
+        for (final TableProgress table : this.tables.values()) {
+            result += table.getRows();
+        }
+        return result;
+    }
+
+    /**
+     * @return the sum of the estimated rows of the tables registered or started, {@link TableStatistics#UNKNOWN}
+     *         if that of any unfinished table is unknown
+     */
+    public long getExpectedRows() {
+        long result = 0L;
+        for (final TableProgress table : this.tables.values()) {
+            if (table.isFinished()) {
+                result += table.getRows();
+            } else if (table.getExpectedRows() < 0) {
+                return TableStatistics.UNKNOWN;
+            } else {
+                result += Math.max(table.getExpectedRows(), table.getRows());
+            }
+        }
+        return result;
+    }
+
+    public int getFinishedCount() {
+        int result = 0;
+        for (final TableProgress table : this.tables.values()) {
+            if (table.isFinished()) {
+                result += 1;
+            }
+        }
+        return result;
+    }
+
+    public double getRowsPerSecond() {
+        return rate(this.getRows(), System.nanoTime() - this.startNanos);
+    }
+
+    /**
+     * @return the estimated nanoseconds to finish the tables registered or started, -1 if unknown
+     */
+    public long getEtaNanos() {
+        return eta(this.getRows(), this.getExpectedRows(), this.getRowsPerSecond());
+    }
+
+    /**
+     * Report the progress every <code>period</code> on a daemon thread until {@link #close()}
+     * @param period the period between two reports
+     * @param unit the unit of the period
+     * @param reporter receives the progress, e.g. {@link #LOG_REPORTER}
+     */
+    public synchronized void startReporting(final long period, final TimeUnit unit, final Reporter reporter) {
+        if (this.reporterExecutor != null) {
+            throw new IllegalStateException("The reporting has already started");
+        }
+        this.reporterExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "progress-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.reporterExecutor.scheduleAtFixedRate(() -> {
+            try {
+                reporter.report(this);
+            } catch (RuntimeException ex) {
+                log.warn("Failed to report the progress", ex);
+            }
+        }, period, period, unit);
+    }
+
+    /**
+     * Stop the reporting, if started
+     */
+    @Override
+    public synchronized void close() {
+        if (this.reporterExecutor != null) {
+            this.reporterExecutor.shutdownNow();
+            this.reporterExecutor = null;
+        }
+    }
+
+    private static double rate(final long rows, final long elapsedNanos) {
+        return elapsedNanos <= 0L ? 0.0 : rows * 1e9 / elapsedNanos;
+    }
+
+    private static long eta(final long rows, final long expectedRows, final double rowsPerSecond) {
+        if (expectedRows < 0 || rowsPerSecond <= 0.0) {
+            return -1L;
+        }
+        return (long) (Math.max(expectedRows - rows, 0L) / rowsPerSecond * 1e9);
+    }
+
+    private static String percentOf(final long rows, final long expectedRows) {
+        if (expectedRows < 0) {
+            return "?";
+        }
+        return expectedRows == 0 ? "100" : String.valueOf(Math.min(100L, rows * 100L / expectedRows));
+    }
+
+    private static String secondsOf(final long nanos) {
+        return nanos < 0 ? "?" : String.valueOf(TimeUnit.NANOSECONDS.toSeconds(nanos));
+    }
+
+    /**
+     * The progress of the copy of a table, possibly by several threads
+     */
+    public static final class TableProgress {
+
+        @Getter private final Table table;
+
+        /**
+         * {@link TableStatistics#UNKNOWN} if unknown
+         */
+        @Getter private final long expectedRows;
+
+        /**
+         * 0 until started
+         */
+        private final AtomicLong startNanos = new AtomicLong();
+
+        private final LongAdder rows = new LongAdder();
+
+        private final LongAdder bytes = new LongAdder();
+
+        /**
+         * 0 until finished
+         */
+        private volatile long elapsedNanos;
+
+        TableProgress(final Table table, final long expectedRows) {
+            this.table = table;
+            this.expectedRows = expectedRows;
+        }
+
+        /**
+         * Called once per batch
+         * @param rowCount the number of rows in the batch
+         * @param byteCount the (estimated) number of bytes in the batch
+         */
+        public void add(final long rowCount, final long byteCount) {
+            this.rows.add(rowCount);
+            this.bytes.add(byteCount);
+        }
+
+        void markStarted() {
+            this.startNanos.compareAndSet(0L, System.nanoTime() | 1L); // never 0 once started
+        }
+
+        public void finish() {
+            this.markStarted();
+            this.elapsedNanos = Math.max(1L, System.nanoTime() - this.startNanos.get());
+        }
+
+        public boolean isStarted() {
+            return this.startNanos.get() != 0L;
+        }
+
+        public boolean isFinished() {
+            return this.elapsedNanos > 0;
+        }
+
+        public long getRows() {
+            return this.rows.sum();
+        }
+
+        public long getBytes() {
+            return this.bytes.sum();
+        }
+
+        public double getRowsPerSecond() {
+            if (!this.isStarted()) {
+                return 0.0;
+            }
+            final long elapsed = this.elapsedNanos;
+            return rate(this.getRows(), elapsed > 0 ? elapsed : System.nanoTime() - this.startNanos.get());
+        }
+
+        /**
+         * @return the estimated nanoseconds to finish, 0 if finished, -1 if unknown
+         */
+        public long getEtaNanos() {
+            if (this.isFinished()) {
+                return 0L;
+            }
+            final long rowCount = this.getRows();
+            return eta(rowCount, this.expectedRows < 0 ? -1L : Math.max(this.expectedRows, rowCount),
+                    this.getRowsPerSecond());
+        }
+
+        @Override
+        public String toString() {
+            final long rowCount = this.getRows();
+            return rowCount + " row(s), " + (this.isFinished() ? "100" : percentOf(rowCount, this.expectedRows)) +
+                    "% done, " +
+                    Math.round(this.getRowsPerSecond()) + " rows/s, ETA " + secondsOf(this.getEtaNanos()) + " s";
+        }
+    }
+}
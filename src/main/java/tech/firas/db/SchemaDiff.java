@@ -0,0 +1,319 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+import lombok.Getter;
+
+import tech.firas.db.vo.Column;
+import tech.firas.db.vo.Index;
+import tech.firas.db.vo.Index.IndexType;
+import tech.firas.db.vo.Schema;
+import tech.firas.db.vo.Table;
+
+/**
+ * The differences between the structure of the source DB and that of the target DB.
+ * The schemas, tables, columns and indexes are matched by their names case-insensitively through hash maps,
+ * so the comparison takes linear time; the primary keys are matched by type because their names
+ * are usually generated by the DB. The columns are compared by their DataType and nullability,
+ * the indexes by their type and columns.
+ */
+public class SchemaDiff {
+
+    @Getter private final List<Schema> missingSchemas = new ArrayList<>();
+    @Getter private final List<Table> missingTables = new ArrayList<>();
+    @Getter private final List<Table> extraTables = new ArrayList<>();
+
+    /**
+     * The source columns not in the target tables
+     */
+    @Getter private final List<Column> missingColumns = new ArrayList<>();
+    /**
+     * The target columns not in the source tables
+     */
+    @Getter private final List<Column> extraColumns = new ArrayList<>();
+    @Getter private final List<Change<Column>> typeChangedColumns = new ArrayList<>();
+    @Getter private final List<Change<Column>> nullabilityChangedColumns = new ArrayList<>();
+
+    /**
+     * The source indexes not in the target tables
+     */
+    @Getter private final List<Index> missingIndexes = new ArrayList<>();
+    /**
+     * The target indexes not in the source tables
+     */
+    @Getter private final List<Index> extraIndexes = new ArrayList<>();
+    @Getter private final List<Change<Index>> changedIndexes = new ArrayList<>();
+
+    private SchemaDiff() {
+    }
+
+    /**
+     * Compare the structure of two databases,
+     * e.g. those read by {@link DbMetaReader#read} from the source DB and the target DB
+     * @param sourceSchemas the schemas in the source DB, with the tables, columns and indexes
+     * @param targetSchemas the schemas in the target DB, with the tables, columns and indexes
+     * @return the differences
+     */
+    public static SchemaDiff compare(final Collection<Schema> sourceSchemas, final Collection<Schema> targetSchemas) {
+        final SchemaDiff result = new SchemaDiff();
+        final Map<IdentifierKey, Schema> targetSchemaMap = byName(targetSchemas, Schema::getName);
+        for (final Schema sourceSchema : sourceSchemas) {
+            final Schema targetSchema = targetSchemaMap.get(normalize(sourceSchema.getName()));
+            if (targetSchema == null) {
+                result.missingSchemas.add(sourceSchema);
+                result.missingTables.addAll(tablesOf(sourceSchema));
+            } else {
+                result.compareSchemas(sourceSchema, targetSchema);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compare the structure of a table in the source DB with that in the target DB
+     * @param sourceTable the table in the source DB, with the columns and indexes
+     * @param targetTable the table in the target DB, with the columns and indexes
+     * @return the differences
+     */
+    public static SchemaDiff compare(final Table sourceTable, final Table targetTable) {
+        final SchemaDiff result = new SchemaDiff();
+        result.compareTables(sourceTable, targetTable);
+        return result;
+    }
+
+    public boolean isEmpty() {
+        return this.missingSchemas.isEmpty() && this.missingTables.isEmpty() && this.extraTables.isEmpty() &&
+                this.missingColumns.isEmpty() && this.extraColumns.isEmpty() &&
+                this.typeChangedColumns.isEmpty() && this.nullabilityChangedColumns.isEmpty() &&
+                this.missingIndexes.isEmpty() && this.extraIndexes.isEmpty() && this.changedIndexes.isEmpty();
+    }
+
+    /**
+     * Generate the DDL statements to make the target DB have the structure of the source DB,
+     * in the order of: schemas, tables, new columns, column types, nullability, dropping indexes,
+     * creating indexes, dropping columns.
+     * The extra tables in the target DB are never dropped.
+     * @param writer the DbMetaWriter of the target DB
+     * @param dropExtra whether to drop the extra columns and indexes in the target DB
+     * @return a DdlBatch of the DDL statements, which is not executed yet
+     */
+    public DdlBatch toDdlPlan(final DbMetaWriter writer, final boolean dropExtra) {
+        final DdlBatch result = new DdlBatch(writer);
+        for (final Schema schema : this.missingSchemas) {
+            result.addSchema(schema);
+        }
+        for (final Table table : this.missingTables) {
+            result.addTable(table);
+        }
+        for (final Column column : this.missingColumns) {
+            result.addColumn(column);
+        }
+        for (final Change<Column> change : this.typeChangedColumns) {
+            result.add(writer.alterColumnTypeSqlFor(change.getDesired()));
+        }
+        for (final Change<Column> change : this.nullabilityChangedColumns) {
+            result.add(writer.alterColumnNullabilitySqlFor(change.getDesired()));
+        }
+        for (final Change<Index> change : this.changedIndexes) {
+            result.add(writer.dropIndexSqlFor(change.getTarget()));
+        }
+        if (dropExtra) {
+            for (final Index index : this.extraIndexes) {
+                result.add(writer.dropIndexSqlFor(index));
+            }
+        }
+        for (final Change<Index> change : this.changedIndexes) {
+            result.addIndex(change.getSource());
+        }
+        for (final Index index : this.missingIndexes) {
+            result.addIndex(index);
+        }
+        if (dropExtra) {
+            for (final Column column : this.extraColumns) {
+                result.add(writer.dropColumnSqlFor(column));
+            }
+        }
+        return result;
+    }
+
+    private void compareSchemas(final Schema sourceSchema, final Schema targetSchema) {
+        final Collection<Table> targetTables = tablesOf(targetSchema);
+        final Map<IdentifierKey, Table> targetTableMap = byName(targetTables, Table::getName);
+        final Map<IdentifierKey, Table> sourceTableMap = byName(tablesOf(sourceSchema), Table::getName);
+        for (final Table sourceTable : tablesOf(sourceSchema)) {
+            final Table targetTable = targetTableMap.get(normalize(sourceTable.getName()));
+            if (targetTable == null) {
+                this.missingTables.add(sourceTable);
+            } else {
+                this.compareTables(sourceTable, targetTable);
+            }
+        }
+        for (final Table targetTable : targetTables) {
+            if (!sourceTableMap.containsKey(normalize(targetTable.getName()))) {
+                this.extraTables.add(targetTable);
+            }
+        }
+    }
+
+    private void compareTables(final Table sourceTable, final Table targetTable) {
+        final Collection<Column> sourceColumns = valuesOf(sourceTable.getColumnMap());
+        final Collection<Column> targetColumns = valuesOf(targetTable.getColumnMap());
+        final Map<IdentifierKey, Column> sourceColumnMap = byName(sourceColumns, Column::getName);
+        final Map<IdentifierKey, Column> targetColumnMap = byName(targetColumns, Column::getName);
+        for (final Column sourceColumn : sourceColumns) {
+            final Column targetColumn = targetColumnMap.get(normalize(sourceColumn.getName()));
+            if (targetColumn == null) {
+                this.missingColumns.add(sourceColumn);
+                continue;
+            }
+            final boolean typeChanged = !Objects.equals(sourceColumn.getDataType(), targetColumn.getDataType());
+            final boolean nullabilityChanged = sourceColumn.isNotNull() != targetColumn.isNotNull();
+            if (typeChanged) {
+                this.typeChangedColumns.add(new Change<>(sourceColumn, targetColumn, desired(sourceColumn, targetColumn)));
+            }
+            if (nullabilityChanged) {
+                this.nullabilityChangedColumns.add(new Change<>(sourceColumn, targetColumn,
+                        desired(sourceColumn, targetColumn)));
+            }
+        }
+        for (final Column targetColumn : targetColumns) {
+            if (!sourceColumnMap.containsKey(normalize(targetColumn.getName()))) {
+                this.extraColumns.add(targetColumn);
+            }
+        }
+
+        final Collection<Index> sourceIndexes = valuesOf(sourceTable.getIndexMap());
+        final Collection<Index> targetIndexes = valuesOf(targetTable.getIndexMap());
+        final Map<IdentifierKey, Index> sourceIndexMap = byName(sourceIndexes, SchemaDiff::indexKey);
+        final Map<IdentifierKey, Index> targetIndexMap = byName(targetIndexes, SchemaDiff::indexKey);
+        for (final Index sourceIndex : sourceIndexes) {
+            final Index targetIndex = targetIndexMap.get(normalize(indexKey(sourceIndex)));
+            if (targetIndex == null) {
+                this.missingIndexes.add(sourceIndex);
+            } else if (sourceIndex.getIndexType() != targetIndex.getIndexType() ||
+                    !columnKeys(sourceIndex).equals(columnKeys(targetIndex))) {
+                this.changedIndexes.add(new Change<>(sourceIndex, targetIndex, sourceIndex));
+            }
+        }
+        for (final Index targetIndex : targetIndexes) {
+            if (!sourceIndexMap.containsKey(normalize(indexKey(targetIndex)))) {
+                this.extraIndexes.add(targetIndex);
+            }
+        }
+    }
+
+    /**
+     * @return the target column with the type and the nullability of the source column
+     */
+    private static Column desired(final Column sourceColumn, final Column targetColumn) {
+        final Column result = new Column(targetColumn.getName());
+        result.setTable(targetColumn.getTable());
+        result.setDataType(sourceColumn.getDataType());
+        result.setNotNull(sourceColumn.isNotNull());
+        result.setComment(sourceColumn.getComment());
+        return result;
+    }
+
+    /**
+     * The name of a primary key is usually generated by the DB and differs among DBs,
+     * so there is only one key for the primary key of a table.
+     * An index without a name is matched by its type and columns, which cannot clash with a valid name.
+     */
+    private static String indexKey(final Index index) {
+        if (index.getIndexType() == IndexType.PRIMARY_KEY) {
+            return "";
+        }
+        if (index.getName() != null) {
+            return index.getName();
+        }
+        final StringBuilder result = new StringBuilder().append(index.getIndexType()).append('(');
+        for (final IdentifierKey column : columnKeys(index)) {
+            result.append(column.getFolded()).append(',');
+        }
+        return result.append(')').toString();
+    }
+
+    private static List<IdentifierKey> columnKeys(final Index index) {
+        if (index.getColumns() == null) {
+            return Collections.emptyList();
+        }
+        final List<IdentifierKey> result = new ArrayList<>(index.getColumns().size());
+        for (final Column column : index.getColumns()) {
+            result.add(normalize(column == null ? "" : column.getName()));
+        }
+        return result;
+    }
+
+    private static Collection<Table> tablesOf(final Schema schema) {
+        return schema.getTables() == null ? Collections.emptySet() : schema.getTables();
+    }
+
+    private static <T> Collection<T> valuesOf(final Map<String, T> map) {
+        return map == null ? Collections.emptyList() : map.values();
+    }
+
+    private static <T> Map<IdentifierKey, T> byName(final Collection<T> elements, final Function<T, String> nameGetter) {
+        final Map<IdentifierKey, T> result = new HashMap<>(elements.size() * 4 / 3 + 1);
+        for (final T element : elements) {
+            result.put(normalize(nameGetter.apply(element)), element);
+        }
+        return result;
+    }
+
+    private static IdentifierKey normalize(final String name) {
+        return IdentifierKey.of(name);
+    }
+
+    /**
+     * A column or an index that exists in both the source DB and the target DB but is different
+     * @param <T> Column or Index
+     */
+    public static class Change<T> {
+
+        @Getter private final T source;
+
+        @Getter private final T target;
+
+        /**
+         * What the target should be changed to
+         */
+        @Getter private final T desired;
+
+        Change(final T source, final T target, final T desired) {
+            this.source = source;
+            this.target = target;
+            this.desired = desired;
+        }
+
+        @Override
+        public String toString() {
+            return "Change{" +
+                    "source=" + this.source +
+                    ", target=" + this.target +
+                    '}';
+        }
+    }
+}
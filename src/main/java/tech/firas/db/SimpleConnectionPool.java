@@ -0,0 +1,507 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A minimal pool of the connections opened by another DataSource, for the case that
+ * no connection pool library is available. The connections are reused across tables and threads,
+ * and each pooled connection keeps a cache of its PreparedStatements by SQL
+ * (like "poolPreparedStatements" of other pools), so the same catalog queries of a {@link DbMetaReader}
+ * or the same INSERT statement are parsed only once per connection.
+ * <p>
+ * A Connection returned by {@link #getConnection()} goes back to the pool when it is closed,
+ * with the uncommitted transaction rolled back, the auto-commit mode turned on, and the transaction isolation,
+ * the read-only mode, the catalog and the schema restored to those of the new physical connection;
+ * a connection which cannot be restored is closed instead.
+ * Closing a cached PreparedStatement keeps it open in the cache, with its batch cleared and its fetch size,
+ * max rows and query timeout restored to those before it was given out.
+ * The Statements other than the cached PreparedStatements must be closed by the caller.
+ */
+@Slf4j
+public class SimpleConnectionPool implements DataSource, AutoCloseable {
+
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private final DataSource dataSource;
+
+    @Getter private final int maxSize;
+
+    private final Semaphore available;
+
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+    private final Set<PooledConnection> all = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The maximum number of cached PreparedStatements per connection, 0 to disable the cache
+     */
+    @Getter @Setter private volatile int statementCacheSize = DEFAULT_STATEMENT_CACHE_SIZE;
+
+    @Getter @Setter private volatile long connectionTimeoutMillis = TimeUnit.SECONDS.toMillis(30);
+
+    private volatile boolean closed;
+
+    /**
+     * @param dataSource the DataSource opening the physical connections
+     * @param maxSize the maximum number of physical connections
+     */
+    public SimpleConnectionPool(final DataSource dataSource, final int maxSize) {
+        if (dataSource == null) {
+            throw new IllegalArgumentException("dataSource must not be null");
+        }
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.maxSize = maxSize;
+        this.available = new Semaphore(maxSize, true);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (this.closed) {
+            throw new SQLException("The pool is closed");
+        }
+        try {
+            if (!this.available.tryAcquire(this.connectionTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timeout to get a connection from the pool of " + this.maxSize);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", ex);
+        }
+        try {
+            for (PooledConnection pooled = this.idle.pollFirst(); pooled != null; pooled = this.idle.pollFirst()) {
+                if (pooled.isUsable()) {
+                    return pooled.newHandle();
+                }
+                this.discard(pooled);
+            }
+            final PooledConnection pooled = this.open();
+            this.all.add(pooled);
+            if (log.isDebugEnabled()) {
+                log.debug("A new connection opened, {} in the pool", this.all.size());
+            }
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException ex) {
+            this.available.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("The credentials are decided by the underlying DataSource");
+    }
+
+    /**
+     * Close all the idle connections and refuse to give out more;
+     * the connections in use are closed when they are returned
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        for (PooledConnection pooled = this.idle.pollFirst(); pooled != null; pooled = this.idle.pollFirst()) {
+            this.discard(pooled);
+        }
+    }
+
+    private void release(final PooledConnection pooled) {
+        try {
+            pooled.reset();
+            if (this.closed) {
+                this.discard(pooled);
+            } else {
+                this.idle.offerFirst(pooled);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            log.warn("Failed to reset the connection, discard it", ex);
+            this.discard(pooled);
+        } finally {
+            this.available.release();
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        final Connection physical = this.dataSource.getConnection();
+        try {
+            return new PooledConnection(physical);
+        } catch (SQLException | RuntimeException ex) {
+            try {
+                physical.close();
+            } catch (SQLException suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+    }
+
+    private void discard(final PooledConnection pooled) {
+        this.all.remove(pooled);
+        pooled.closePhysical();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return this.dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(final PrintWriter out) throws SQLException {
+        this.dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(final int seconds) throws SQLException {
+        this.dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return this.dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return this.dataSource.getParentLogger();
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : this.dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(final Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || this.dataSource.isWrapperFor(iface);
+    }
+
+    /**
+     * The setters of the settings of a cached PreparedStatement which are restored when it goes back to the cache
+     */
+    private static final Set<String> RESETTABLE_SETTINGS = Collections.unmodifiableSet(
+            new HashSet<>(Arrays.asList("setFetchSize", "setMaxRows", "setQueryTimeout")));
+
+    private static int readSetting(final PreparedStatement statement, final String setter) throws SQLException {
+        switch (setter) {
+            case "setFetchSize":
+                return statement.getFetchSize();
+            case "setMaxRows":
+                return statement.getMaxRows();
+            case "setQueryTimeout":
+                return statement.getQueryTimeout();
+            default:
+                throw new IllegalArgumentException("Not a resettable setting: " + setter);
+        }
+    }
+
+    private static void writeSetting(final PreparedStatement statement, final String setter, final int value)
+            throws SQLException {
+        switch (setter) {
+            case "setFetchSize":
+                statement.setFetchSize(value);
+                break;
+            case "setMaxRows":
+                statement.setMaxRows(value);
+                break;
+            case "setQueryTimeout":
+                statement.setQueryTimeout(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Not a resettable setting: " + setter);
+        }
+    }
+
+    private static Object invoke(final Object target, final Method method, final Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * A physical connection with its cache of PreparedStatements
+     */
+    private final class PooledConnection {
+
+        private final Connection physical;
+
+        /**
+         * The session state of the new physical connection, restored by {@link #reset()}
+         */
+        private final int transactionIsolation;
+        private final boolean readOnly;
+        private final String catalog;
+
+        /**
+         * null if the driver does not support {@link Connection#getSchema()}
+         */
+        private final String schema;
+
+        /**
+         * In the order of access, so that the least recently used one is evicted first
+         */
+        private final LinkedHashMap<String, PreparedStatement> statementCache =
+                new LinkedHashMap<>(16, 0.75f, true);
+
+        private final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        PooledConnection(final Connection physical) throws SQLException {
+            this.physical = physical;
+            this.transactionIsolation = physical.getTransactionIsolation();
+            this.readOnly = physical.isReadOnly();
+            this.catalog = physical.getCatalog();
+            this.schema = this.readSchema();
+        }
+
+        private String readSchema() {
+            try {
+                return this.physical.getSchema();
+            } catch (SQLException | AbstractMethodError ex) {
+                // a driver before JDBC 4.1
+                return null;
+            }
+        }
+
+        boolean isUsable() {
+            try {
+                return !this.physical.isClosed();
+            } catch (SQLException ex) {
+                return false;
+            }
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(SimpleConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class }, new ConnectionHandler(this));
+        }
+
+        synchronized PreparedStatement prepare(final String sql, final Connection handle) throws SQLException {
+            final int cacheSize = SimpleConnectionPool.this.statementCacheSize;
+            PreparedStatement statement = this.statementCache.get(sql);
+            if (statement != null && !this.inUse.contains(statement)) {
+                statement.clearParameters();
+            } else if (statement == null && cacheSize > 0) {
+                statement = this.physical.prepareStatement(sql);
+                this.statementCache.put(sql, statement);
+                this.evict(cacheSize);
+            } else {
+                // the cached one is in use (e.g. nested queries), or the cache is disabled
+                return this.physical.prepareStatement(sql);
+            }
+            this.inUse.add(statement);
+            return (PreparedStatement) Proxy.newProxyInstance(SimpleConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, new CachedStatementHandler(this, statement, handle));
+        }
+
+        /**
+         * @param changedSettings the values of the settings before they were changed, by the names of the setters
+         */
+        synchronized void giveBack(final PreparedStatement statement, final Map<String, Integer> changedSettings) {
+            this.inUse.remove(statement);
+            try {
+                statement.clearBatch();
+                for (final Map.Entry<String, Integer> setting : changedSettings.entrySet()) {
+                    writeSetting(statement, setting.getKey(), setting.getValue());
+                }
+            } catch (SQLException ex) {
+                log.debug("Failed to reset the statement, remove it from the cache", ex);
+                this.statementCache.values().remove(statement);
+                closeQuietly(statement);
+            }
+        }
+
+        private void evict(final int cacheSize) {
+            final Iterator<PreparedStatement> iterator = this.statementCache.values().iterator();
+            while (this.statementCache.size() > cacheSize && iterator.hasNext()) {
+                final PreparedStatement eldest = iterator.next();
+                if (!this.inUse.contains(eldest)) {
+                    iterator.remove();
+                    closeQuietly(eldest);
+                }
+            }
+        }
+
+        /**
+         * @throws SQLException if the session state cannot be restored, so the connection must be discarded
+         */
+        synchronized void reset() throws SQLException {
+            this.inUse.clear();
+            if (!this.physical.getAutoCommit()) {
+                this.physical.rollback();
+                this.physical.setAutoCommit(true);
+            }
+            if (this.physical.getTransactionIsolation() != this.transactionIsolation) {
+                this.physical.setTransactionIsolation(this.transactionIsolation);
+            }
+            if (this.physical.isReadOnly() != this.readOnly) {
+                this.physical.setReadOnly(this.readOnly);
+            }
+            if (this.catalog != null && !this.catalog.equals(this.physical.getCatalog())) {
+                this.physical.setCatalog(this.catalog);
+            }
+            if (this.schema != null && !this.schema.equals(this.physical.getSchema())) {
+                this.physical.setSchema(this.schema);
+            }
+        }
+
+        synchronized void closePhysical() {
+            for (final PreparedStatement statement : this.statementCache.values()) {
+                closeQuietly(statement);
+            }
+            this.statementCache.clear();
+            try {
+                this.physical.close();
+            } catch (SQLException ex) {
+                log.warn("Failed to close a connection", ex);
+            }
+        }
+
+        private void closeQuietly(final PreparedStatement statement) {
+            try {
+                statement.close();
+            } catch (SQLException ex) {
+                log.debug("Failed to close a cached statement", ex);
+            }
+        }
+    }
+
+    /**
+     * The Connection given out by the pool, valid until it is closed
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final PooledConnection pooled;
+
+        private boolean closed;
+
+        ConnectionHandler(final PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            if ("close".equals(name) && method.getParameterCount() == 0) {
+                synchronized (this) {
+                    if (!this.closed) {
+                        this.closed = true;
+                        SimpleConnectionPool.this.release(this.pooled);
+                    }
+                }
+                return null;
+            } else if ("isClosed".equals(name) && method.getParameterCount() == 0) {
+                return this.closed || this.pooled.physical.isClosed();
+            } else if ("equals".equals(name) && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            } else if ("toString".equals(name) && method.getParameterCount() == 0) {
+                return "Pooled" + this.pooled.physical;
+            }
+            if (this.closed) {
+                throw new SQLException("The connection has been returned to the pool");
+            }
+            if ("prepareStatement".equals(name) && method.getParameterCount() == 1) {
+                return this.pooled.prepare((String) args[0], (Connection) proxy);
+            }
+            return SimpleConnectionPool.invoke(this.pooled.physical, method, args);
+        }
+    }
+
+    /**
+     * A cached PreparedStatement, which goes back to the cache when it is closed
+     */
+    private static final class CachedStatementHandler implements InvocationHandler {
+
+        private final PooledConnection pooled;
+        private final PreparedStatement statement;
+        private final Connection handle;
+
+        /**
+         * The values of the {@link #RESETTABLE_SETTINGS} before they are changed through this handle
+         */
+        private final Map<String, Integer> changedSettings = new HashMap<>(4);
+
+        private boolean closed;
+
+        CachedStatementHandler(final PooledConnection pooled, final PreparedStatement statement,
+                final Connection handle) {
+            this.pooled = pooled;
+            this.statement = statement;
+            this.handle = handle;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            if ("close".equals(name) && method.getParameterCount() == 0) {
+                if (!this.closed) {
+                    this.closed = true;
+                    this.pooled.giveBack(this.statement, this.changedSettings);
+                }
+                return null;
+            } else if ("isClosed".equals(name) && method.getParameterCount() == 0) {
+                return this.closed || this.statement.isClosed();
+            } else if ("getConnection".equals(name) && method.getParameterCount() == 0) {
+                return this.handle;
+            } else if ("equals".equals(name) && method.getParameterCount() == 1) {
+                return proxy == args[0];
+            } else if ("hashCode".equals(name) && method.getParameterCount() == 0) {
+                return System.identityHashCode(proxy);
+            }
+            if (this.closed) {
+                throw new SQLException("The statement has been closed");
+            }
+            if (RESETTABLE_SETTINGS.contains(name) && !this.changedSettings.containsKey(name)) {
+                this.changedSettings.put(name, readSetting(this.statement, name));
+            }
+            return SimpleConnectionPool.invoke(this.statement, method, args);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+
+import lombok.Getter;
+
+/**
+ * A forward-only, read-only Statement configured by {@link DbMetaReader#openStreamingStatement}
+ * so that the rows of a query are fetched from a server-side cursor little by little
+ * instead of being buffered in the client memory all at once.
+ * Closing it also ends the transaction started for the cursor, if any,
+ * and restores the auto-commit mode of the connection.
+ */
+public class StreamingStatement implements AutoCloseable {
+
+    @Getter private final Statement statement;
+
+    private final Connection connection;
+
+    /**
+     * Whether the auto-commit mode of the connection was turned off for the cursor
+     */
+    private final boolean autoCommitTurnedOff;
+
+    public StreamingStatement(final Statement statement, final Connection connection,
+            final boolean autoCommitTurnedOff) {
+        this.statement = Objects.requireNonNull(statement, "statement must not be null");
+        this.connection = Objects.requireNonNull(connection, "connection must not be null");
+        this.autoCommitTurnedOff = autoCommitTurnedOff;
+    }
+
+    public ResultSet executeQuery(final String sql) throws SQLException {
+        return this.statement.executeQuery(sql);
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            this.statement.close();
+        } finally {
+            if (this.autoCommitTurnedOff) {
+                try {
+                    this.connection.rollback(); // nothing to commit for a query
+                } finally {
+                    this.connection.setAutoCommit(true);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.util.Comparator;
+
+import lombok.Getter;
+
+import tech.firas.db.vo.Table;
+import tech.firas.db.vo.TableStatistics;
+
+/**
+ * The estimated cost to copy a table, given by {@link MigrationTool#planTableData}
+ */
+public class TableCopyEstimate {
+
+    /**
+     * Longest first, with the unknown ones (which may be large) before all the others,
+     * so that the long copies start early when the tables are copied in parallel
+     */
+    public static final Comparator<TableCopyEstimate> LONGEST_FIRST = Comparator.comparingLong(
+            (TableCopyEstimate estimate) -> estimate.estimatedNanos < 0 ? Long.MAX_VALUE : estimate.estimatedNanos)
+            .reversed();
+
+    @Getter private final TableStatistics statistics;
+
+    /**
+     * {@link TableStatistics#UNKNOWN} if there is no statistics of the table
+     */
+    @Getter private final long estimatedNanos;
+
+    public TableCopyEstimate(final TableStatistics statistics, final long estimatedNanos) {
+        this.statistics = statistics;
+        this.estimatedNanos = estimatedNanos;
+    }
+
+    public Table getTable() {
+        return this.statistics.getTable();
+    }
+
+    @Override
+    public String toString() {
+        return "TableCopyEstimate{" +
+                "table=" + this.statistics.getTable() +
+                ", rowCount=" + this.statistics.getRowCount() +
+                ", dataSize=" + this.statistics.getDataSize() +
+                ", estimatedNanos=" + this.estimatedNanos +
+                '}';
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import lombok.extern.slf4j.Slf4j;
+
+import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.JavaTimeType;
+import tech.firas.db.vo.Column;
+
+/**
+ * A compact binary file of the rows of a table, so that the rows can be exported from the source DB
+ * and imported to the target DB later (e.g. across an air gap), or be imported many times.
+ * The rows are kept in blocks, each of which is an {@link OffHeapRowBatch} compressed by Deflater.
+ * <pre>
+ * file   := header block* 0:int
+ * header := "DBMT" version:int batchSize:int columnCount:int (name:string dataType:string)*
+ * string := length:int UTF-8 bytes
+ * block  := rowCount:int rawLength:int compressedLength:int deflated-OffHeapRowBatch
+ * </pre>
+ */
+@Slf4j
+public final class TableDataFile {
+
+    private static final int MAGIC = 0x44424D54; // "DBMT"
+    private static final int VERSION = 1;
+    private static final int MAX_MAPPED_SIZE = 1 << 30;
+
+    private TableDataFile() throws IllegalAccessException {
+        throw new IllegalAccessException();
+    }
+
+    /**
+     * Write all the rows remaining in the ResultSet to the file
+     * @param resultSet the source ResultSet with the columns in the same order as <code>columns</code>
+     * @param columns the columns of the table
+     * @param batchSize the maximum number of rows in a block
+     * @param file the file to be created or overwritten
+     * @return the number of rows written
+     * @throws SQLException if it failed to read from the ResultSet
+     * @throws IOException if it failed to write the file
+     */
+    public static long write(final ResultSet resultSet, final Collection<Column> columns, final int batchSize,
+            final Path file) throws SQLException, IOException {
+        final OffHeapRowBatch batch = new OffHeapRowBatch(columns, batchSize);
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            writeHeader(out, columns, batchSize);
+            ByteBuffer raw = ByteBuffer.allocate(1024);
+            byte[] compressed = new byte[1024];
+            long total = 0L;
+            while (batch.fill(resultSet) > 0) {
+                final int rawLength = batch.getSerializedSize();
+                if (raw.capacity() < rawLength) {
+                    raw = ByteBuffer.allocate(rawLength);
+                }
+                ((Buffer) raw).clear();
+                batch.writeTo(raw);
+
+                deflater.reset();
+                deflater.setInput(raw.array(), 0, rawLength);
+                deflater.finish();
+                int compressedLength = 0;
+                while (!deflater.finished()) {
+                    if (compressedLength == compressed.length) {
+                        compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                    }
+                    compressedLength += deflater.deflate(compressed, compressedLength,
+                            compressed.length - compressedLength);
+                }
+                out.writeInt(batch.getRowCount());
+                out.writeInt(rawLength);
+                out.writeInt(compressedLength);
+                out.write(compressed, 0, compressedLength);
+                total += batch.getRowCount();
+                if (log.isDebugEnabled()) {
+                    log.debug("A block of {} row(s) written to {}, {} byte(s) compressed to {}",
+                            batch.getRowCount(), file, rawLength, compressedLength);
+                }
+            }
+            out.writeInt(0);
+            return total;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Read the rows from the memory-mapped file and insert them block by block with the PreparedStatement
+     * @param file the file written by {@link #write}
+     * @param columns the columns of the table, which must be the same as those when the file is written
+     * @param preparedStatement the target PreparedStatement with the parameters in the same order as
+     *                          <code>columns</code>, whose batch is executed once per block
+     * @return the number of rows inserted
+     * @throws SQLException if it failed to insert
+     * @throws IOException if it failed to read the file or the file does not match the columns
+     */
+    public static long read(final Path file, final Collection<Column> columns,
+            final PreparedStatement preparedStatement) throws SQLException, IOException {
+        return read(file, columns, preparedStatement, (ps, rowCount, dataSize) -> ps.executeBatch());
+    }
+
+    /**
+     * Read the rows from the memory-mapped file and add them block by block to the PreparedStatement,
+     * whose batch is then executed by the BlockExecutor
+     * @param file the file written by {@link #write}
+     * @param columns the columns of the table, which must be the same as those when the file is written
+     * @param preparedStatement the target PreparedStatement with the parameters in the same order as
+     *                          <code>columns</code>
+     * @param executor executes the batch of each block, e.g. after waiting for a {@link Throttle}
+     * @return the number of rows inserted
+     * @throws SQLException if it failed to insert
+     * @throws IOException if it failed to read the file or the file does not match the columns
+     */
+    public static long read(final Path file, final Collection<Column> columns,
+            final PreparedStatement preparedStatement, final BlockExecutor executor)
+            throws SQLException, IOException {
+        final Inflater inflater = new Inflater();
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedInput in = new MappedInput(channel);
+            final int batchSize = readHeader(in, columns, file);
+            final OffHeapRowBatch batch = new OffHeapRowBatch(columns, batchSize);
+            byte[] compressed = new byte[1024];
+            byte[] raw = new byte[1024];
+            long total = 0L;
+            for (int rowCount = in.getInt(); rowCount > 0; rowCount = in.getInt()) {
+                final int rawLength = in.getInt();
+                final int compressedLength = in.getInt();
+                if (compressed.length < compressedLength) {
+                    compressed = new byte[compressedLength];
+                }
+                if (raw.length < rawLength) {
+                    raw = new byte[rawLength];
+                }
+                in.get(compressed, compressedLength);
+
+                inflater.reset();
+                inflater.setInput(compressed, 0, compressedLength);
+                try {
+                    if (inflater.inflate(raw, 0, rawLength) != rawLength) {
+                        throw new IOException("Truncated block in " + file);
+                    }
+                } catch (DataFormatException ex) {
+                    throw new IOException("Corrupted block in " + file, ex);
+                }
+                batch.readFrom(ByteBuffer.wrap(raw, 0, rawLength));
+                if (batch.getRowCount() != rowCount) {
+                    throw new IOException("Row count mismatch in " + file);
+                }
+                batch.addBatchTo(preparedStatement);
+                executor.execute(preparedStatement, rowCount, batch.getDataSize());
+                total += rowCount;
+                if (log.isDebugEnabled()) {
+                    log.debug("A block of {} row(s) read from {} and executed", rowCount, file);
+                }
+            }
+            return total;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Executes the batch of a block added to the PreparedStatement by {@link #read}
+     */
+    @FunctionalInterface
+    public interface BlockExecutor {
+        /**
+         * @param preparedStatement the PreparedStatement with the rows of the block added to its batch
+         * @param rowCount the number of rows in the block
+         * @param dataSize the size in bytes of the rows in the block
+         */
+        void execute(PreparedStatement preparedStatement, int rowCount, long dataSize) throws SQLException;
+    }
+
+    private static void writeHeader(final DataOutputStream out, final Collection<Column> columns,
+            final int batchSize) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(batchSize);
+        out.writeInt(columns.size());
+        for (final Column column : columns) {
+            writeString(out, column.getName());
+            writeString(out, JavaTimeType.unwrap(column.getDataType()).toString());
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * @return the batch size in the header
+     */
+    private static int readHeader(final MappedInput in, final Collection<Column> columns, final Path file)
+            throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a table data file: " + file);
+        }
+        final int version = in.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version " + version + " of " + file);
+        }
+        final int batchSize = in.getInt();
+        if (in.getInt() != columns.size()) {
+            throw new IOException("The number of columns in " + file + " does not match " + columns.size());
+        }
+        for (final Column column : columns) {
+            final String name = in.getString();
+            final String dataType = in.getString();
+            final DataType columnType = JavaTimeType.unwrap(column.getDataType());
+            if (!column.getName().equalsIgnoreCase(name) || !columnType.toString().equals(dataType)) {
+                throw new IOException("The column " + name + ' ' + dataType + " in " + file +
+                        " does not match " + column.getName() + ' ' + columnType);
+            }
+        }
+        return batchSize;
+    }
+
+    /**
+     * Read the file through a window of memory mapping, which moves forward when it is used up
+     */
+    private static final class MappedInput {
+
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private ByteBuffer window;
+
+        MappedInput(final FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.window = ByteBuffer.allocate(0);
+        }
+
+        int getInt() throws IOException {
+            return this.ensure(Integer.BYTES).getInt();
+        }
+
+        void get(final byte[] destination, final int length) throws IOException {
+            this.ensure(length).get(destination, 0, length);
+        }
+
+        String getString() throws IOException {
+            final int length = this.getInt();
+            final byte[] bytes = new byte[length];
+            this.get(bytes, length);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private ByteBuffer ensure(final int length) throws IOException {
+            if (this.window.remaining() < length) {
+                final long position = this.windowStart + this.window.position();
+                if (position + length > this.size) {
+                    throw new EOFException("Unexpected end of file at " + position);
+                }
+                final long mappedSize = Math.min(this.size - position, Math.max(length, MAX_MAPPED_SIZE));
+                this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, position, mappedSize);
+                this.windowStart = position;
+            }
+            return this.window;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Limit the rows per second and the bytes per second written to the target DB.
+ * A Throttle can have a parent, e.g. a Throttle for a table with a global Throttle shared by all the tables
+ * as its parent, so that a batch must pass both.
+ * <p>
+ * In the adaptive mode, it also watches how the target DB copes, by the latency of each batch
+ * (see {@link #setTargetBatchLatencyNanos}) and / or a query returning a lag, e.g. the replication lag
+ * in seconds (see {@link #setLagProbeSql}), and backs off by a factor (additive increase,
+ * multiplicative decrease): after a batch it pauses for as long as the batch took times
+ * (1 / factor - 1), so the copy only runs for a fraction "factor" of the time.
+ */
+@Slf4j
+public class Throttle {
+
+    private static final double MIN_FACTOR = 0.05;
+    private static final double DECREASE_RATIO = 0.5;
+    private static final double INCREASE_STEP = 0.05;
+    private static final long MAX_BURST_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Getter private final Throttle parent;
+
+    /**
+     * 0 for no limit
+     */
+    @Getter private final double maxRowsPerSecond;
+
+    /**
+     * 0 for no limit
+     */
+    @Getter private final double maxBytesPerSecond;
+
+    /**
+     * The latency of a batch above which the target DB is considered struggling, 0 (by default) to disable
+     */
+    @Getter @Setter private long targetBatchLatencyNanos;
+
+    /**
+     * A query returning a number in the first column of the first row, e.g. the replication lag in seconds,
+     * executed on the target DB; null (by default) to disable
+     */
+    @Getter @Setter private String lagProbeSql;
+
+    /**
+     * The lag above which the target DB is considered struggling
+     */
+    @Getter @Setter private double maxLag;
+
+    @Getter @Setter private long lagProbeIntervalNanos = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * The fraction of the time the copy runs, in [{@value #MIN_FACTOR}, 1]
+     */
+    @Getter private double factor = 1.0;
+
+    private long nextRowsNanos;
+    private long nextBytesNanos;
+    private long lastProbeNanos;
+    private boolean probed;
+
+    public Throttle(final double maxRowsPerSecond, final double maxBytesPerSecond) {
+        this(maxRowsPerSecond, maxBytesPerSecond, null);
+    }
+
+    public Throttle(final double maxRowsPerSecond, final double maxBytesPerSecond, final Throttle parent) {
+        if (maxRowsPerSecond < 0 || maxBytesPerSecond < 0) {
+            throw new IllegalArgumentException("The limits must not be negative");
+        }
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        this.maxBytesPerSecond = maxBytesPerSecond;
+        this.parent = parent;
+        this.nextRowsNanos = System.nanoTime();
+        this.nextBytesNanos = this.nextRowsNanos;
+    }
+
+    /**
+     * Wait until a batch can be written without exceeding the limits of this Throttle and its parents
+     * @param rows the number of rows in the batch
+     * @param bytes the (estimated) number of bytes in the batch
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void acquire(final long rows, final long bytes) throws InterruptedException {
+        final long waitNanos = this.reserve(rows, bytes);
+        if (waitNanos > 0) {
+            if (log.isTraceEnabled()) {
+                log.trace("Throttled for {} ns", waitNanos);
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        if (this.parent != null) {
+            this.parent.acquire(rows, bytes);
+        }
+    }
+
+    /**
+     * Report a batch executed on the target DB, to adapt the factor and to pause accordingly
+     * @param connection the Connection to the target DB, on which the lag probe query is executed
+     *                   if it is due
+     * @param latencyNanos how long the batch took
+     * @throws SQLException if it failed to execute the lag probe query
+     * @throws InterruptedException if the current thread is interrupted while pausing
+     */
+    public void afterBatch(final Connection connection, final long latencyNanos)
+            throws SQLException, InterruptedException {
+        this.adapt(connection, latencyNanos);
+        if (this.parent != null) {
+            this.parent.afterBatch(connection, latencyNanos);
+        }
+    }
+
+    private void adapt(final Connection connection, final long latencyNanos) throws SQLException, InterruptedException {
+        final double currentFactor;
+        synchronized (this) {
+            if (this.targetBatchLatencyNanos > 0) {
+                this.adjust(latencyNanos > this.targetBatchLatencyNanos);
+            }
+            currentFactor = this.factor;
+        }
+        if (this.lagProbeSql != null && this.isProbeDue()) {
+            final double lag = this.probeLag(connection);
+            synchronized (this) {
+                this.adjust(lag > this.maxLag);
+            }
+        }
+        if (currentFactor < 1.0) {
+            TimeUnit.NANOSECONDS.sleep((long) (latencyNanos * (1.0 / currentFactor - 1.0)));
+        }
+    }
+
+    private synchronized boolean isProbeDue() {
+        final long now = System.nanoTime();
+        if (this.probed && now - this.lastProbeNanos < this.lagProbeIntervalNanos) {
+            return false;
+        }
+        this.lastProbeNanos = now;
+        this.probed = true;
+        return true;
+    }
+
+    private double probeLag(final Connection connection) throws SQLException {
+        try (final Statement statement = connection.createStatement();
+                final ResultSet resultSet = statement.executeQuery(this.lagProbeSql)) {
+            final double result = resultSet.next() ? resultSet.getDouble(1) : 0.0;
+            if (log.isDebugEnabled()) {
+                log.debug("Lag of the target DB: {}", result);
+            }
+            return result;
+        }
+    }
+
+    private void adjust(final boolean struggling) {
+        final double previous = this.factor;
+        this.factor = struggling ? Math.max(MIN_FACTOR, this.factor * DECREASE_RATIO) :
+                Math.min(1.0, this.factor + INCREASE_STEP);
+        if (this.factor < previous && log.isInfoEnabled()) {
+            log.info("The target DB is struggling, slow down to {} of the full speed", this.factor);
+        }
+    }
+
+    /**
+     * Reserve the time slots for the rows and the bytes
+     * @return how long the caller should wait in nanoseconds
+     */
+    private synchronized long reserve(final long rows, final long bytes) {
+        final long now = System.nanoTime();
+        long waitNanos = 0L;
+        if (this.maxRowsPerSecond > 0) {
+            final long start = earliest(this.nextRowsNanos, now);
+            this.nextRowsNanos = start + (long) (rows * TimeUnit.SECONDS.toNanos(1) / this.maxRowsPerSecond);
+            waitNanos = Math.max(waitNanos, this.nextRowsNanos - now);
+        }
+        if (this.maxBytesPerSecond > 0) {
+            final long start = earliest(this.nextBytesNanos, now);
+            this.nextBytesNanos = start + (long) (bytes * TimeUnit.SECONDS.toNanos(1) / this.maxBytesPerSecond);
+            waitNanos = Math.max(waitNanos, this.nextBytesNanos - now);
+        }
+        return waitNanos;
+    }
+
+    /**
+     * The unused time slots before now are kept for a burst of at most {@value #MAX_BURST_NANOS} ns
+     * (compared by subtraction because System.nanoTime() may overflow)
+     */
+    private static long earliest(final long next, final long now) {
+        return next - (now - MAX_BURST_NANOS) < 0 ? now - MAX_BURST_NANOS : next;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import tech.firas.db.vo.TableStatistics;
+
+/**
+ * Estimate how long it takes to copy a table by one stream (a connection to each DB)
+ * by the rows per second and the bytes per second of a stream observed in the previous copies,
+ * smoothed by exponential moving average so that the recent copies weigh more.
+ * The bytes per second is only used after it has been calibrated by a run of a table with statistics,
+ * and the slower of the two rates decides the estimate.
+ * The model can be stored to and loaded from a properties file to be kept across runs.
+ */
+@Slf4j
+public class ThroughputModel {
+
+    public static final double DEFAULT_ROWS_PER_SECOND = 10_000.0;
+
+    private static final double SMOOTHING_FACTOR = 0.3;
+    private static final String ROWS_PER_SECOND = "rowsPerSecond";
+    private static final String BYTES_PER_SECOND = "bytesPerSecond";
+    private static final String SAMPLE_COUNT = "sampleCount";
+
+    @Getter private double rowsPerSecond = DEFAULT_ROWS_PER_SECOND;
+
+    /**
+     * 0 if not calibrated yet
+     */
+    @Getter private double bytesPerSecond;
+
+    /**
+     * The number of copies recorded, one for each table whatever the number of its streams
+     */
+    @Getter private int sampleCount;
+
+    /**
+     * Calibrate the model by a finished copy of a table by one stream
+     * @param statistics the statistics of the table read before the copy, or null if there is none;
+     *                   used to estimate the number of bytes copied by the average size of a row
+     * @param rowCount the number of rows copied
+     * @param elapsedNanos how long the copy took in nanoseconds
+     */
+    public void record(final TableStatistics statistics, final long rowCount, final long elapsedNanos) {
+        this.record(statistics, rowCount, elapsedNanos, 1);
+    }
+
+    /**
+     * Calibrate the model by a finished copy of a table by several streams at the same time
+     * (e.g. the partitions of {@link MigrationTool#migrateTableDataInPartitions}),
+     * taking the combined rate divided by the number of streams as the rate of a stream
+     * @param statistics the statistics of the table read before the copy, or null if there is none;
+     *                   used to estimate the number of bytes copied by the average size of a row
+     * @param rowCount the number of rows copied by all the streams
+     * @param elapsedNanos how long the copy took in nanoseconds
+     * @param streamCount the number of streams
+     */
+    public synchronized void record(final TableStatistics statistics, final long rowCount, final long elapsedNanos,
+            final int streamCount) {
+        if (streamCount < 1) {
+            throw new IllegalArgumentException("streamCount must be at least 1");
+        }
+        if (rowCount <= 0 || elapsedNanos <= 0) {
+            return;
+        }
+        final double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1) * streamCount;
+        this.rowsPerSecond = this.smooth(this.rowsPerSecond, rowCount / seconds);
+        if (statistics != null && statistics.getRowCount() > 0 && statistics.getDataSize() > 0) {
+            final double byteCount = rowCount * (statistics.getDataSize() / (double) statistics.getRowCount());
+            this.bytesPerSecond = this.bytesPerSecond <= 0 ? byteCount / seconds :
+                    this.smooth(this.bytesPerSecond, byteCount / seconds);
+        }
+        this.sampleCount += 1;
+        if (log.isDebugEnabled()) {
+            log.debug("Throughput calibrated: {} row(s)/s, {} byte(s)/s per stream after {} copies",
+                    this.rowsPerSecond, this.bytesPerSecond, this.sampleCount);
+        }
+    }
+
+    /**
+     * @param statistics the statistics of the table
+     * @return the estimated time to copy the table in nanoseconds,
+     *         or {@link TableStatistics#UNKNOWN} if the number of rows is unknown
+     */
+    public synchronized long estimateNanos(final TableStatistics statistics) {
+        if (statistics.getRowCount() < 0) {
+            return TableStatistics.UNKNOWN;
+        }
+        double seconds = statistics.getRowCount() / this.rowsPerSecond;
+        if (this.bytesPerSecond > 0 && statistics.getDataSize() > 0) {
+            seconds = Math.max(seconds, statistics.getDataSize() / this.bytesPerSecond);
+        }
+        return (long) (seconds * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * @param file a properties file written by {@link #store}
+     * @return the model in the file, or a new model if the file does not exist
+     * @throws IOException if it failed to read the file
+     */
+    public static ThroughputModel load(final Path file) throws IOException {
+        final ThroughputModel result = new ThroughputModel();
+        if (!Files.exists(file)) {
+            return result;
+        }
+        final Properties properties = new Properties();
+        try (final InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        try {
+            result.rowsPerSecond = Double.parseDouble(
+                    properties.getProperty(ROWS_PER_SECOND, String.valueOf(DEFAULT_ROWS_PER_SECOND)));
+            result.bytesPerSecond = Double.parseDouble(properties.getProperty(BYTES_PER_SECOND, "0"));
+            result.sampleCount = Integer.parseInt(properties.getProperty(SAMPLE_COUNT, "0"));
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid throughput model in " + file, ex);
+        }
+        if (result.rowsPerSecond <= 0) {
+            throw new IOException("Invalid " + ROWS_PER_SECOND + " in " + file);
+        }
+        return result;
+    }
+
+    /**
+     * @param file the properties file to be created or overwritten
+     * @throws IOException if it failed to write the file
+     */
+    public synchronized void store(final Path file) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty(ROWS_PER_SECOND, String.valueOf(this.rowsPerSecond));
+        properties.setProperty(BYTES_PER_SECOND, String.valueOf(this.bytesPerSecond));
+        properties.setProperty(SAMPLE_COUNT, String.valueOf(this.sampleCount));
+        try (final OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "Throughput model of the data migration");
+        }
+    }
+
+    private double smooth(final double previous, final double observed) {
+        return this.sampleCount == 0 ? observed : previous + SMOOTHING_FACTOR * (observed - previous);
+    }
+
+    @Override
+    public String toString() {
+        return "ThroughputModel{" +
+                "rowsPerSecond=" + this.rowsPerSecond +
+                ", bytesPerSecond=" + this.bytesPerSecond +
+                ", sampleCount=" + this.sampleCount +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Create the ExecutorServices for the copy workers, which are blocked on the I/O of JDBC most of the time.
+ * This version runs the workers on platform threads; the version in META-INF/versions/21 of the jar
+ * (built from src/main/java21) runs them on virtual threads.
+ */
+public final class WorkerExecutors {
+
+    private WorkerExecutors() throws IllegalAccessException {
+        throw new IllegalAccessException();
+    }
+
+    /**
+     * @param name the prefix of the names of the threads
+     * @param maxThreads the maximum number of workers running at the same time,
+     *                   which should be bounded by the connections available to the source DB and the target DB
+     * @return an ExecutorService running at most <code>maxThreads</code> workers at the same time
+     */
+    public static ExecutorService newWorkerExecutor(final String name, final int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be at least 1");
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        final ThreadFactory threadFactory = runnable -> {
+            final Thread thread = new Thread(runnable, name + '-' + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(maxThreads, threadFactory);
+    }
+
+    /**
+     * @return whether the workers run on virtual threads
+     */
+    public static boolean isVirtual() {
+        return false;
+    }
+}
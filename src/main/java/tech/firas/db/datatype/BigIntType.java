@@ -38,6 +38,11 @@ public class BigIntType implements DataType {
         return "DataType[BigInt]";
     }
 
+    @Override
+    public long estimateSize() {
+        return Long.BYTES;
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         final long result = resultSet.getLong(columnName);
@@ -53,4 +58,25 @@ public class BigIntType implements DataType {
             preparedStatement.setLong(index, ((Number) value).longValue());
         }
     }
+
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        final long value = resultSet.getLong(columnName);
+        if (resultSet.wasNull()) {
+            buffer.putNull();
+        } else {
+            buffer.putLong(value);
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        if (buffer.isNull(row)) {
+            preparedStatement.setNull(index, Types.INTEGER);
+        } else {
+            preparedStatement.setLong(index, buffer.getLong(row));
+        }
+    }
 }
@@ -39,6 +39,11 @@ public class BlobType implements DataType {
         return "DataType[Blob]";
     }
 
+    @Override
+    public long estimateSize() {
+        return LOB_SIZE;
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         return resultSet.getBlob(columnName);
@@ -53,4 +58,21 @@ public class BlobType implements DataType {
             preparedStatement.setBlob(index, (Blob) value);
         }
     }
+
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        buffer.putBytes(resultSet.getBytes(columnName));
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        final byte[] value = buffer.getBytes(row);
+        if (value == null) {
+            preparedStatement.setNull(index, Types.BLOB);
+        } else {
+            preparedStatement.setBytes(index, value);
+        }
+    }
 }
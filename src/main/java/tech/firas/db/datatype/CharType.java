@@ -29,20 +29,36 @@ public class CharType implements DataType {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Set on an instance returned by {@link DataTypes}, which may be shared by many columns
+     * (transient, so it is neither compared nor serialized)
+     */
+    private transient boolean shared;
+
     @Getter private int length;
 
     public void setLength(final int length) {
+        DataTypes.checkNotShared(this.shared, this);
         if (length < 0) {
             throw new IllegalArgumentException("Length is not expected to be negative, but is " + length);
         }
         this.length = length;
     }
 
+    void markShared() {
+        this.shared = true;
+    }
+
     @Override
     public String toString() {
         return "DataType[Char(" + this.length + ")]";
     }
 
+    @Override
+    public long estimateSize() {
+        return 2L * this.length; // UTF-16
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         return resultSet.getString(columnName);
@@ -42,6 +42,11 @@ public class ClobType implements DataType {
         return "DataType[Clob]";
     }
 
+    @Override
+    public long estimateSize() {
+        return LOB_SIZE;
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         log.debug("Get CLOB as String: {}", columnName);
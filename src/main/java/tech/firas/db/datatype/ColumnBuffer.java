@@ -0,0 +1,275 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.datatype;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import lombok.Getter;
+
+/**
+ * The values of one column of a batch of rows, kept in a direct (off-heap) ByteBuffer.
+ * A null value is recorded in the null bitmap and takes no space in the data;
+ * a fixed-width value is written as is; a variable-width value is prefixed with its length in bytes.
+ * The values are appended row by row and can then be read by the row number (starting from 0).
+ * The methods of ByteBuffer overriding those of Buffer (e.g. flip) are called via Buffer
+ * so that the class compiled by a newer JDK still runs on Java 8.
+ */
+public final class ColumnBuffer {
+
+    @Getter private final int capacity;
+
+    private final long[] nullBits;
+    private final int[] offsets;
+    private ByteBuffer data;
+
+    @Getter private int rowCount;
+
+    /**
+     * @param capacity the maximum number of rows
+     * @param initialDataSize the initial size in bytes of the off-heap data, which grows when it is full
+     */
+    public ColumnBuffer(final int capacity, final int initialDataSize) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.capacity = capacity;
+        this.nullBits = new long[(capacity + 63) >>> 6];
+        this.offsets = new int[capacity];
+        this.data = ByteBuffer.allocateDirect(Math.max(16, initialDataSize));
+    }
+
+    /**
+     * Discard all the values but keep the allocated memory for the next batch
+     */
+    public void clear() {
+        Arrays.fill(this.nullBits, 0L);
+        ((Buffer) this.data).clear();
+        this.rowCount = 0;
+    }
+
+    /**
+     * @return the number of bytes of the data (excluding the null bitmap)
+     */
+    public int getDataSize() {
+        return this.data.position();
+    }
+
+    /**
+     * @return the number of bytes written by {@link #writeTo}
+     */
+    public int getSerializedSize() {
+        return Integer.BYTES * 2 + Long.BYTES * ((this.rowCount + 63) >>> 6) +
+                Integer.BYTES * this.rowCount + this.data.position();
+    }
+
+    /**
+     * Write the row count, the null bitmap, the offsets and the data to the ByteBuffer
+     * @param out the ByteBuffer with at least {@link #getSerializedSize()} bytes remaining
+     */
+    public void writeTo(final ByteBuffer out) {
+        out.putInt(this.rowCount);
+        for (int i = 0; i < (this.rowCount + 63) >>> 6; i += 1) {
+            out.putLong(this.nullBits[i]);
+        }
+        for (int i = 0; i < this.rowCount; i += 1) {
+            out.putInt(this.offsets[i]);
+        }
+        final ByteBuffer view = this.data.duplicate();
+        ((Buffer) view).flip();
+        out.putInt(view.remaining());
+        out.put(view);
+    }
+
+    /**
+     * Replace the values with those written by {@link #writeTo}
+     * @param in the ByteBuffer positioned at the data written by {@link #writeTo}
+     */
+    public void readFrom(final ByteBuffer in) {
+        this.clear();
+        final int count = in.getInt();
+        if (count < 0 || count > this.capacity) {
+            throw new IllegalArgumentException("Invalid row count: " + count + ", capacity: " + this.capacity);
+        }
+        for (int i = 0; i < (count + 63) >>> 6; i += 1) {
+            this.nullBits[i] = in.getLong();
+        }
+        for (int i = 0; i < count; i += 1) {
+            this.offsets[i] = in.getInt();
+        }
+        final int dataSize = in.getInt();
+        if (this.data.capacity() < dataSize) {
+            this.data = ByteBuffer.allocateDirect(dataSize);
+        }
+        final ByteBuffer source = in.duplicate();
+        ((Buffer) source).limit(source.position() + dataSize);
+        this.data.put(source);
+        ((Buffer) in).position(in.position() + dataSize);
+        this.rowCount = count;
+    }
+
+    public void putNull() {
+        final int row = this.rowCount;
+        this.nextRow(0);
+        this.nullBits[row >>> 6] |= 1L << row;
+    }
+
+    public void putShort(final short value) {
+        this.nextRow(Short.BYTES).putShort(value);
+    }
+
+    public void putInt(final int value) {
+        this.nextRow(Integer.BYTES).putInt(value);
+    }
+
+    public void putLong(final long value) {
+        this.nextRow(Long.BYTES).putLong(value);
+    }
+
+    public void putFloat(final float value) {
+        this.nextRow(Float.BYTES).putFloat(value);
+    }
+
+    public void putDouble(final double value) {
+        this.nextRow(Double.BYTES).putDouble(value);
+    }
+
+    /**
+     * Append a long and an int, e.g. the seconds and the nanoseconds of a timestamp
+     */
+    public void putLongAndInt(final long longValue, final int intValue) {
+        this.nextRow(Long.BYTES + Integer.BYTES).putLong(longValue).putInt(intValue);
+    }
+
+    /**
+     * Append an int and a length-prefixed byte array, e.g. the scale and the unscaled value of a decimal
+     */
+    public void putIntAndBytes(final int intValue, final byte[] value) {
+        this.nextRow(Integer.BYTES * 2 + value.length).putInt(intValue).putInt(value.length).put(value);
+    }
+
+    /**
+     * @param value the bytes to be appended, or null
+     */
+    public void putBytes(final byte[] value) {
+        if (value == null) {
+            this.putNull();
+        } else {
+            this.nextRow(Integer.BYTES + value.length).putInt(value.length).put(value);
+        }
+    }
+
+    /**
+     * @param value the String to be appended in UTF-8, or null
+     */
+    public void putString(final String value) {
+        this.putBytes(value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isNull(final int row) {
+        this.checkRow(row);
+        return (this.nullBits[row >>> 6] & (1L << row)) != 0L;
+    }
+
+    public short getShort(final int row) {
+        return this.data.getShort(this.offsetOf(row));
+    }
+
+    public int getInt(final int row) {
+        return this.data.getInt(this.offsetOf(row));
+    }
+
+    public long getLong(final int row) {
+        return this.data.getLong(this.offsetOf(row));
+    }
+
+    public float getFloat(final int row) {
+        return this.data.getFloat(this.offsetOf(row));
+    }
+
+    public double getDouble(final int row) {
+        return this.data.getDouble(this.offsetOf(row));
+    }
+
+    /**
+     * @return the int following the long written by {@link #putLongAndInt}
+     */
+    public int getIntAfterLong(final int row) {
+        return this.data.getInt(this.offsetOf(row) + Long.BYTES);
+    }
+
+    /**
+     * @return the bytes following the int written by {@link #putIntAndBytes}
+     */
+    public byte[] getBytesAfterInt(final int row) {
+        return this.readBytes(this.offsetOf(row) + Integer.BYTES);
+    }
+
+    /**
+     * @return the bytes, or null if the value is null
+     */
+    public byte[] getBytes(final int row) {
+        return this.isNull(row) ? null : this.readBytes(this.offsets[row]);
+    }
+
+    /**
+     * @return the String, or null if the value is null
+     */
+    public String getString(final int row) {
+        final byte[] bytes = this.getBytes(row);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes(final int offset) {
+        final int length = this.data.getInt(offset);
+        final byte[] result = new byte[length];
+        final ByteBuffer view = this.data.duplicate();
+        ((Buffer) view).position(offset + Integer.BYTES);
+        view.get(result);
+        return result;
+    }
+
+    private int offsetOf(final int row) {
+        if (this.isNull(row)) {
+            throw new IllegalStateException("The value of row " + row + " is null");
+        }
+        return this.offsets[row];
+    }
+
+    private void checkRow(final int row) {
+        if (row < 0 || row >= this.rowCount) {
+            throw new IndexOutOfBoundsException("row: " + row + ", rowCount: " + this.rowCount);
+        }
+    }
+
+    private ByteBuffer nextRow(final int size) {
+        if (this.rowCount >= this.capacity) {
+            throw new IllegalStateException("The buffer is full, capacity: " + this.capacity);
+        }
+        if (this.data.remaining() < size) {
+            final ByteBuffer newData = ByteBuffer.allocateDirect(
+                    Math.max(this.data.capacity() * 2, this.data.position() + size));
+            ((Buffer) this.data).flip();
+            newData.put(this.data);
+            this.data = newData;
+        }
+        this.offsets[this.rowCount++] = this.data.position();
+        return this.data;
+    }
+}
@@ -23,6 +23,51 @@ import java.sql.SQLException;
 
 public interface DataType extends Serializable {
 
+    /**
+     * The estimated size of a value whose DataType does not tell its size
+     */
+    long DEFAULT_SIZE = 32L;
+
+    /**
+     * The estimated size of a large object, meaning that the actual size is decided by the caller
+     */
+    long LOB_SIZE = -1L;
+
     Object getFromResultSet(ResultSet resultSet, String columnName) throws SQLException;
     void setPreparedStatementParameter(PreparedStatement preparedStatement, int index, Object value) throws SQLException;
+
+    /**
+     * Append the value of the column in the current row of the ResultSet to the off-heap buffer.
+     * The default implementation keeps the value as a UTF-8 string.
+     * @param resultSet the ResultSet pointing to a row
+     * @param columnName the name of the column to be read
+     * @param buffer the ColumnBuffer to which the value is appended
+     * @throws SQLException if it failed to read from the ResultSet
+     */
+    default void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        buffer.putString(resultSet.getString(columnName));
+    }
+
+    /**
+     * Set the parameter of the PreparedStatement with a value written by {@link #writeToBuffer}
+     * @param preparedStatement the PreparedStatement
+     * @param index the index of the parameter (starting from 1)
+     * @param buffer the ColumnBuffer from which the value is read
+     * @param row the row number of the value in the buffer (starting from 0)
+     * @throws SQLException if it failed to set the parameter
+     */
+    default void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        this.setPreparedStatementParameter(preparedStatement, index, buffer.getString(row));
+    }
+
+    /**
+     * Estimate the number of bytes of a value of this DataType when it is buffered in memory,
+     * without the overhead of the Java object holding it
+     * @return the estimated number of bytes, or {@link #LOB_SIZE} for a large object
+     */
+    default long estimateSize() {
+        return DEFAULT_SIZE;
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.datatype;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Shared instances (flyweights) of the DataTypes with parameters, e.g. one VarCharType(255)
+ * for all the VARCHAR(255) columns of a catalog.
+ * The instances returned by this class are shared, so their setters throw UnsupportedOperationException;
+ * to change the type of a column, set another DataType on the column, e.g. <code>DataTypes.varChar(512)</code>.
+ * The instances passed in are never put into the pool, so modifying them later is harmless.
+ * The pool keeps at most {@value #MAX_POOL_SIZE} instances, beyond which new ones are returned unshared
+ * (but still unmodifiable), so that many catalogs with many distinct types (e.g. MySQL enums) cannot grow it
+ * without a bound.
+ */
+public final class DataTypes {
+
+    static final int MAX_POOL_SIZE = 4096;
+
+    private static final ConcurrentMap<DataType, DataType> POOL = new ConcurrentHashMap<>();
+
+    private DataTypes() throws IllegalAccessException {
+        throw new IllegalAccessException();
+    }
+
+    /**
+     * @param dataType a DataType, may be null
+     * @return the shared instance equal to the DataType;
+     *         the DataType itself if it is a singleton (e.g. {@link IntegerType#instance}) or null
+     */
+    public static DataType intern(final DataType dataType) {
+        if (dataType instanceof DecimalType) {
+            final DecimalType decimalType = (DecimalType) dataType;
+            return decimal(decimalType.getPrecision(), decimalType.getScale());
+        } else if (dataType instanceof VarCharType) {
+            return varChar(((VarCharType) dataType).getLength());
+        } else if (dataType instanceof CharType) {
+            return fixedChar(((CharType) dataType).getLength());
+        } else if (dataType instanceof TimestampType) {
+            return timestamp(((TimestampType) dataType).getPrecision());
+        } else if (dataType instanceof TimeType) {
+            return time(((TimeType) dataType).getPrecision());
+        } else if (dataType instanceof UnknownType) {
+            final UnknownType unknownType = (UnknownType) dataType;
+            return unknown(unknownType.getName(), unknownType.getNativeType());
+        }
+        return dataType;
+    }
+
+    public static DecimalType decimal(final int precision, final int scale) {
+        final DecimalType result = new DecimalType();
+        result.setPrecision(precision);
+        result.setScale(scale);
+        result.markShared();
+        return share(result);
+    }
+
+    public static VarCharType varChar(final int length) {
+        final VarCharType result = new VarCharType();
+        result.setLength(length);
+        result.markShared();
+        return share(result);
+    }
+
+    public static CharType fixedChar(final int length) {
+        final CharType result = new CharType();
+        result.setLength(length);
+        result.markShared();
+        return share(result);
+    }
+
+    public static TimestampType timestamp(final int precision) {
+        final TimestampType result = new TimestampType();
+        result.setPrecision(precision);
+        result.markShared();
+        return share(result);
+    }
+
+    public static TimeType time(final int precision) {
+        final TimeType result = new TimeType();
+        result.setPrecision(precision);
+        result.markShared();
+        return share(result);
+    }
+
+    public static UnknownType unknown(final String name) {
+        return unknown(name, null);
+    }
+
+    /**
+     * @param name the name of the data type in the catalog of the DB
+     * @param nativeType the data type as written in the DDL of the DB, null if it is the same as the name
+     */
+    public static UnknownType unknown(final String name, final String nativeType) {
+        final UnknownType result = new UnknownType();
+        result.setName(name);
+        result.setNativeType(nativeType == null || nativeType.equals(name) ? null : nativeType);
+        result.markShared();
+        return share(result);
+    }
+
+    /**
+     * @param shared whether the DataType is returned by this class
+     * @param dataType the DataType to be modified
+     * @throws UnsupportedOperationException if the DataType is shared
+     */
+    static void checkNotShared(final boolean shared, final DataType dataType) {
+        if (shared) {
+            throw new UnsupportedOperationException(dataType + " is shared by DataTypes and cannot be modified, " +
+                    "set another DataType on the column instead");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends DataType> T share(final T dataType) {
+        if (POOL.size() >= MAX_POOL_SIZE) {
+            final DataType existing = POOL.get(dataType);
+            return existing == null ? dataType : (T) existing;
+        }
+        final DataType existing = POOL.putIfAbsent(dataType, dataType);
+        return existing == null ? dataType : (T) existing;
+    }
+}
@@ -40,6 +40,11 @@ public class DateType implements DataType {
         return "DataType[Date]";
     }
 
+    @Override
+    public long estimateSize() {
+        return Long.BYTES;
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         return resultSet.getDate(columnName);
@@ -60,4 +65,28 @@ public class DateType implements DataType {
             preparedStatement.setDate(index, Date.valueOf((LocalDate) value));
         }
     }
+
+    /**
+     * The value is kept as the epoch day
+     */
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        final Date value = resultSet.getDate(columnName);
+        if (value == null) {
+            buffer.putNull();
+        } else {
+            buffer.putLong(value.toLocalDate().toEpochDay());
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        if (buffer.isNull(row)) {
+            preparedStatement.setNull(index, Types.DATE);
+        } else {
+            preparedStatement.setDate(index, Date.valueOf(LocalDate.ofEpochDay(buffer.getLong(row))));
+        }
+    }
 }
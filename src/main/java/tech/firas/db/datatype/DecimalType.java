@@ -31,10 +31,17 @@ public class DecimalType implements DataType {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Set on an instance returned by {@link DataTypes}, which may be shared by many columns
+     * (transient, so it is neither compared nor serialized)
+     */
+    private transient boolean shared;
+
     @Getter private int precision;
     @Getter private int scale;
 
     public void setPrecision(final int precision) {
+        DataTypes.checkNotShared(this.shared, this);
         if (precision < 0) {
             throw new IllegalArgumentException("Precision is not expected to be negative, but is " + precision);
         }
@@ -42,18 +49,28 @@ public class DecimalType implements DataType {
     }
 
     public void setScale(final int scale) {
+        DataTypes.checkNotShared(this.shared, this);
         if (scale < 0) {
             throw new IllegalArgumentException("Scale is not expected to be negative, but is " + scale);
         }
         this.scale = scale;
     }
 
+    void markShared() {
+        this.shared = true;
+    }
+
     @Override
     public String toString() {
         return "DataType[Decimal(" + this.precision +
                 ", " + this.scale + ")]";
     }
 
+    @Override
+    public long estimateSize() {
+        return Integer.BYTES + this.precision / 2 + 1; // about 2 decimal digits per byte
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         return resultSet.getBigDecimal(columnName);
@@ -78,4 +95,30 @@ public class DecimalType implements DataType {
             );
         }
     }
+
+    /**
+     * The value is kept as the scale followed by the two's-complement bytes of the unscaled value
+     */
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        final BigDecimal value = resultSet.getBigDecimal(columnName);
+        if (value == null) {
+            buffer.putNull();
+        } else {
+            buffer.putIntAndBytes(value.scale(), value.unscaledValue().toByteArray());
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        if (buffer.isNull(row)) {
+            preparedStatement.setNull(index, Types.DECIMAL);
+        } else {
+            preparedStatement.setBigDecimal(index, new BigDecimal(
+                    new BigInteger(buffer.getBytesAfterInt(row)), buffer.getInt(row)
+            ));
+        }
+    }
 }
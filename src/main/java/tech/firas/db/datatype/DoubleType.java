@@ -38,6 +38,11 @@ public class DoubleType implements DataType {
         return "DataType[Double]";
     }
 
+    @Override
+    public long estimateSize() {
+        return Double.BYTES;
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         final double result = resultSet.getDouble(columnName);
@@ -53,4 +58,25 @@ public class DoubleType implements DataType {
             preparedStatement.setDouble(index, ((Number) value).doubleValue());
         }
     }
+
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        final double value = resultSet.getDouble(columnName);
+        if (resultSet.wasNull()) {
+            buffer.putNull();
+        } else {
+            buffer.putDouble(value);
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        if (buffer.isNull(row)) {
+            preparedStatement.setNull(index, Types.DOUBLE);
+        } else {
+            preparedStatement.setDouble(index, buffer.getDouble(row));
+        }
+    }
 }
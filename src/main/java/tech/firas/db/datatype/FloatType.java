@@ -38,6 +38,11 @@ public class FloatType implements DataType {
         return "DataType[Double]";
     }
 
+    @Override
+    public long estimateSize() {
+        return Float.BYTES;
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         final float result = resultSet.getFloat(columnName);
@@ -53,4 +58,25 @@ public class FloatType implements DataType {
             preparedStatement.setFloat(index, ((Number) value).floatValue());
         }
     }
+
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        final float value = resultSet.getFloat(columnName);
+        if (resultSet.wasNull()) {
+            buffer.putNull();
+        } else {
+            buffer.putFloat(value);
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        if (buffer.isNull(row)) {
+            preparedStatement.setNull(index, Types.FLOAT);
+        } else {
+            preparedStatement.setFloat(index, buffer.getFloat(row));
+        }
+    }
 }
@@ -38,6 +38,11 @@ public class IntegerType implements DataType {
         return "DataType[Int]";
     }
 
+    @Override
+    public long estimateSize() {
+        return Integer.BYTES;
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         final int result = resultSet.getInt(columnName);
@@ -53,4 +58,25 @@ public class IntegerType implements DataType {
             preparedStatement.setInt(index, ((Number) value).intValue());
         }
     }
+
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        final int value = resultSet.getInt(columnName);
+        if (resultSet.wasNull()) {
+            buffer.putNull();
+        } else {
+            buffer.putInt(value);
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        if (buffer.isNull(row)) {
+            preparedStatement.setNull(index, Types.INTEGER);
+        } else {
+            preparedStatement.setInt(index, buffer.getInt(row));
+        }
+    }
 }
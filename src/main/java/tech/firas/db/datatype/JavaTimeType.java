@@ -0,0 +1,178 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.datatype;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Copy the values of a column of {@link TimestampType}, {@link DateType} or {@link TimeType}
+ * as LocalDateTime, LocalDate or LocalTime by the JDBC 4.2 {@link ResultSet#getObject(String, Class)}
+ * and {@link PreparedStatement#setObject(int, Object, int)}, instead of java.sql.Timestamp / Date / Time,
+ * so that neither a Calendar nor the default time zone of the JVM is involved.
+ * A timestamp is copied as the same local date time unless both the source zone and the target zone are given,
+ * in which case it is moved to the same instant in the target zone.
+ */
+@EqualsAndHashCode
+public class JavaTimeType implements DataType {
+
+    private static final long serialVersionUID = 1L;
+
+    @Getter private final DataType temporalType;
+
+    /**
+     * The time zone of the timestamps in the source DB, null for no conversion
+     */
+    @Getter private final ZoneId sourceZone;
+
+    /**
+     * The time zone of the timestamps in the target DB, null for no conversion
+     */
+    @Getter private final ZoneId targetZone;
+
+    private final int sqlType;
+
+    private final boolean convertZone;
+
+    /**
+     * @param temporalType a TimestampType, DateType or TimeType
+     * @param sourceZone the time zone of the timestamps in the source DB, null for no conversion
+     * @param targetZone the time zone of the timestamps in the target DB, null for no conversion
+     */
+    public JavaTimeType(final DataType temporalType, final ZoneId sourceZone, final ZoneId targetZone) {
+        if (temporalType instanceof TimestampType) {
+            this.sqlType = Types.TIMESTAMP;
+        } else if (temporalType instanceof DateType) {
+            this.sqlType = Types.DATE;
+        } else if (temporalType instanceof TimeType) {
+            this.sqlType = Types.TIME;
+        } else {
+            throw new IllegalArgumentException(temporalType + " is not a temporal type");
+        }
+        this.temporalType = temporalType;
+        this.sourceZone = sourceZone;
+        this.targetZone = targetZone;
+        this.convertZone = this.sqlType == Types.TIMESTAMP && sourceZone != null && targetZone != null &&
+                !sourceZone.equals(targetZone);
+    }
+
+    /**
+     * @param dataType a DataType
+     * @return whether the DataType can be copied by a JavaTimeType
+     */
+    public static boolean supports(final DataType dataType) {
+        return dataType instanceof TimestampType || dataType instanceof DateType || dataType instanceof TimeType;
+    }
+
+    /**
+     * A JavaTimeType keeps a value in a {@link ColumnBuffer} in the same way as its temporal type,
+     * so a file describes the column by the temporal type, whether it is written with a JavaTimeType or not
+     * @param dataType a DataType
+     * @return the temporal type if the DataType is a JavaTimeType, otherwise the DataType itself
+     */
+    public static DataType unwrap(final DataType dataType) {
+        return dataType instanceof JavaTimeType ? ((JavaTimeType) dataType).temporalType : dataType;
+    }
+
+    @Override
+    public String toString() {
+        return "DataType[JavaTime(" + this.temporalType + ")]";
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.temporalType.estimateSize();
+    }
+
+    @Override
+    public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
+        switch (this.sqlType) {
+            case Types.TIMESTAMP:
+                final LocalDateTime value = resultSet.getObject(columnName, LocalDateTime.class);
+                return value == null || !this.convertZone ? value :
+                        value.atZone(this.sourceZone).withZoneSameInstant(this.targetZone).toLocalDateTime();
+            case Types.DATE:
+                return resultSet.getObject(columnName, LocalDate.class);
+            default:
+                return resultSet.getObject(columnName, LocalTime.class);
+        }
+    }
+
+    /**
+     * @param value a value read by {@link #getFromResultSet}, or any value accepted by the temporal type
+     */
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement,
+            final int index, final Object value) throws SQLException {
+        if (value == null) {
+            preparedStatement.setNull(index, this.sqlType);
+        } else if (value instanceof LocalDateTime || value instanceof LocalDate || value instanceof LocalTime) {
+            preparedStatement.setObject(index, value, this.sqlType);
+        } else {
+            this.temporalType.setPreparedStatementParameter(preparedStatement, index, value);
+        }
+    }
+
+    /**
+     * The value is kept in the same way as the temporal type does, see {@link ColumnBuffer}
+     */
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        final Object value = this.getFromResultSet(resultSet, columnName);
+        if (value == null) {
+            buffer.putNull();
+        } else if (value instanceof LocalDateTime) {
+            final LocalDateTime localDateTime = (LocalDateTime) value;
+            buffer.putLongAndInt(localDateTime.toEpochSecond(ZoneOffset.UTC), localDateTime.getNano());
+        } else if (value instanceof LocalDate) {
+            buffer.putLong(((LocalDate) value).toEpochDay());
+        } else {
+            buffer.putLong(((LocalTime) value).toNanoOfDay());
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        if (buffer.isNull(row)) {
+            preparedStatement.setNull(index, this.sqlType);
+            return;
+        }
+        switch (this.sqlType) {
+            case Types.TIMESTAMP:
+                preparedStatement.setObject(index, LocalDateTime.ofEpochSecond(
+                        buffer.getLong(row), buffer.getIntAfterLong(row), ZoneOffset.UTC), this.sqlType);
+                break;
+            case Types.DATE:
+                preparedStatement.setObject(index, LocalDate.ofEpochDay(buffer.getLong(row)), this.sqlType);
+                break;
+            default:
+                preparedStatement.setObject(index, LocalTime.ofNanoOfDay(buffer.getLong(row)), this.sqlType);
+        }
+    }
+}
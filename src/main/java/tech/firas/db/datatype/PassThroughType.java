@@ -0,0 +1,100 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.datatype;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Copy the values of a column of an {@link UnknownType} between two DBs of the same kind as they are,
+ * by {@link ResultSet#getObject} and {@link PreparedStatement#setObject(int, Object, int)} with the SQL type
+ * from the ResultSetMetaData of the source, e.g. a PGobject for jsonb or the bytes of a MySQL geometry,
+ * instead of converting them to text and back as UnknownType does.
+ */
+@EqualsAndHashCode
+public class PassThroughType implements DataType {
+
+    private static final long serialVersionUID = 1L;
+
+    @Getter private final UnknownType unknownType;
+
+    /**
+     * See {@link Types}
+     */
+    @Getter private final int sqlType;
+
+    /**
+     * @param unknownType the DataType of the column read from the catalog
+     * @param sqlType the SQL type of the column from {@link java.sql.ResultSetMetaData#getColumnType}
+     */
+    public PassThroughType(final UnknownType unknownType, final int sqlType) {
+        this.unknownType = unknownType;
+        this.sqlType = sqlType;
+    }
+
+    @Override
+    public String toString() {
+        return "DataType[PassThrough(" + this.unknownType.getNativeType() + ", " + this.sqlType + ")]";
+    }
+
+    @Override
+    public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
+        return resultSet.getObject(columnName);
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement,
+            final int index, final Object value) throws SQLException {
+        if (value == null) {
+            preparedStatement.setNull(index, this.sqlType);
+        } else {
+            preparedStatement.setObject(index, value, this.sqlType);
+        }
+    }
+
+    /**
+     * An off-heap buffer cannot keep the driver objects, so a binary value is kept as its bytes
+     * and any other value as its text, which is bound with the SQL type so that the target DB parses it
+     * as the native type
+     */
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        if (this.isBinary()) {
+            buffer.putBytes(resultSet.getBytes(columnName));
+        } else {
+            buffer.putString(resultSet.getString(columnName));
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        final Object value = this.isBinary() ? buffer.getBytes(row) : buffer.getString(row);
+        this.setPreparedStatementParameter(preparedStatement, index, value);
+    }
+
+    private boolean isBinary() {
+        return this.sqlType == Types.BINARY || this.sqlType == Types.VARBINARY ||
+                this.sqlType == Types.LONGVARBINARY || this.sqlType == Types.BLOB;
+    }
+}
@@ -38,6 +38,11 @@ public class SmallIntType implements DataType {
         return "DataType[SmallInt]";
     }
 
+    @Override
+    public long estimateSize() {
+        return Short.BYTES;
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         final short result = resultSet.getShort(columnName);
@@ -53,4 +58,25 @@ public class SmallIntType implements DataType {
             preparedStatement.setShort(index, ((Number) value).shortValue());
         }
     }
+
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        final short value = resultSet.getShort(columnName);
+        if (resultSet.wasNull()) {
+            buffer.putNull();
+        } else {
+            buffer.putShort(value);
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        if (buffer.isNull(row)) {
+            preparedStatement.setNull(index, Types.INTEGER);
+        } else {
+            preparedStatement.setShort(index, buffer.getShort(row));
+        }
+    }
 }
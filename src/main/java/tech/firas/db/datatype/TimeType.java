@@ -31,21 +31,37 @@ public class TimeType implements DataType {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Set on an instance returned by {@link DataTypes}, which may be shared by many columns
+     * (transient, so it is neither compared nor serialized)
+     */
+    private transient boolean shared;
+
     @Getter
     private int precision;
 
     public void setPrecision(final int precision) {
+        DataTypes.checkNotShared(this.shared, this);
         if (precision < 0) {
             throw new IllegalArgumentException("Precision is not expected to be negative, but is " + precision);
         }
         this.precision = precision;
     }
 
+    void markShared() {
+        this.shared = true;
+    }
+
     @Override
     public String toString() {
         return "DataType[Time(" + this.precision + ")]";
     }
 
+    @Override
+    public long estimateSize() {
+        return Long.BYTES;
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         return resultSet.getTime(columnName);
@@ -63,7 +79,49 @@ public class TimeType implements DataType {
                     ((java.util.Date) value).getTime()
             ));
         } else if (value instanceof LocalTime) {
-            preparedStatement.setTime(index, Time.valueOf((LocalTime) value));
+            preparedStatement.setTime(index, toTime(((LocalTime) value).toNanoOfDay()));
+        }
+    }
+
+    /**
+     * The value is kept as the nanosecond of the day, with the milliseconds that a java.sql.Time carries
+     * (like the copy by {@link #getFromResultSet}); a finer precision needs a {@link JavaTimeType}
+     */
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        final Time value = resultSet.getTime(columnName);
+        if (value == null) {
+            buffer.putNull();
+        } else {
+            buffer.putLong(toNanoOfDay(value));
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        if (buffer.isNull(row)) {
+            preparedStatement.setNull(index, Types.TIME);
+        } else {
+            preparedStatement.setTime(index, toTime(buffer.getLong(row)));
         }
     }
+
+    /**
+     * Time.toLocalTime() keeps only the hours, minutes and seconds, so the milliseconds are added back
+     */
+    private static long toNanoOfDay(final Time value) {
+        return value.toLocalTime().toNanoOfDay() + Math.floorMod(value.getTime(), 1000L) * 1_000_000L;
+    }
+
+    /**
+     * Time.valueOf(LocalTime) drops the fraction of a second, so the milliseconds are added back
+     */
+    private static Time toTime(final long nanoOfDay) {
+        final LocalTime localTime = LocalTime.ofNanoOfDay(nanoOfDay);
+        final Time result = Time.valueOf(localTime);
+        result.setTime(result.getTime() + localTime.getNano() / 1_000_000);
+        return result;
+    }
 }
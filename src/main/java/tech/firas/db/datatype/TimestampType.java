@@ -24,6 +24,7 @@ import java.sql.Types;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 
 import lombok.EqualsAndHashCode;
@@ -34,20 +35,36 @@ public class TimestampType implements DataType {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Set on an instance returned by {@link DataTypes}, which may be shared by many columns
+     * (transient, so it is neither compared nor serialized)
+     */
+    private transient boolean shared;
+
     @Getter private int precision;
 
     public void setPrecision(final int precision) {
+        DataTypes.checkNotShared(this.shared, this);
         if (precision < 0) {
             throw new IllegalArgumentException("Precision is not expected to be negative, but is " + precision);
         }
         this.precision = precision;
     }
 
+    void markShared() {
+        this.shared = true;
+    }
+
     @Override
     public String toString() {
         return "DataType[Timestamp(" + this.precision + ")]";
     }
 
+    @Override
+    public long estimateSize() {
+        return Long.BYTES + Integer.BYTES;
+    }
+
     @Override
     public Object getFromResultSet(final ResultSet resultSet, final String columnName) throws SQLException {
         return resultSet.getTimestamp(columnName);
@@ -78,4 +95,32 @@ public class TimestampType implements DataType {
             ));
         }
     }
+
+    /**
+     * The value is kept as the seconds and the nanoseconds of the local date time,
+     * counted as if it were in UTC, so that no time zone conversion is involved
+     */
+    @Override
+    public void writeToBuffer(final ResultSet resultSet, final String columnName, final ColumnBuffer buffer)
+            throws SQLException {
+        final Timestamp value = resultSet.getTimestamp(columnName);
+        if (value == null) {
+            buffer.putNull();
+        } else {
+            final LocalDateTime localDateTime = value.toLocalDateTime();
+            buffer.putLongAndInt(localDateTime.toEpochSecond(ZoneOffset.UTC), localDateTime.getNano());
+        }
+    }
+
+    @Override
+    public void setPreparedStatementParameter(final PreparedStatement preparedStatement, final int index,
+            final ColumnBuffer buffer, final int row) throws SQLException {
+        if (buffer.isNull(row)) {
+            preparedStatement.setNull(index, Types.TIMESTAMP);
+        } else {
+            preparedStatement.setTimestamp(index, Timestamp.valueOf(LocalDateTime.ofEpochSecond(
+                    buffer.getLong(row), buffer.getIntAfterLong(row), ZoneOffset.UTC
+            )));
+        }
+    }
 }
@@ -21,18 +21,52 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.Setter;
 
+@EqualsAndHashCode
 public class UnknownType implements DataType {
 
     private static final long serialVersionUID = 1L;
 
-    @Getter @Setter private String name;
+    /**
+     * Set on an instance returned by {@link DataTypes}, which may be shared by many columns
+     * (transient, so it is neither compared nor serialized)
+     */
+    private transient boolean shared;
+
+    /**
+     * The name of the data type in the catalog of the DB
+     */
+    @Getter private String name;
+
+    /**
+     * The data type as written in the DDL of the source DB, e.g. "int4[]" or "enum('a','b')",
+     * null if it is the same as the name; only meaningful to a target DB of the same kind
+     */
+    private String nativeType;
+
+    public void setName(final String name) {
+        DataTypes.checkNotShared(this.shared, this);
+        this.name = name;
+    }
+
+    public void setNativeType(final String nativeType) {
+        DataTypes.checkNotShared(this.shared, this);
+        this.nativeType = nativeType;
+    }
+
+    void markShared() {
+        this.shared = true;
+    }
+
+    public String getNativeType() {
+        return this.nativeType == null ? this.name : this.nativeType;
+    }
 
     @Override
     public String toString() {
-        return "DataType[" + this.name + ']';
+        return "DataType[" + this.name + (this.nativeType == null ? "" : ", " + this.nativeType) + ']';
     }
 
     @Override
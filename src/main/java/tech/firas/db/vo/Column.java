@@ -48,10 +48,10 @@ public class Column implements Serializable {
     }
 
     public void setName(final String name) {
-        if (!Identifier.PATTERN.matcher(name).matches()) {
+        if (!Identifier.isValid(name)) {
             throw new IllegalArgumentException("Invalid column name: " + name);
         }
-        this.name = name;
+        this.name = Identifier.intern(name);
     }
 
     public Object getFromResultSet(final ResultSet resultSet) throws SQLException {
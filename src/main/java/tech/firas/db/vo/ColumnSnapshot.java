@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.vo;
+
+import java.io.Serializable;
+
+import lombok.Getter;
+
+import tech.firas.db.datatype.DataType;
+
+/**
+ * An immutable column of a {@link TableSnapshot}, created by {@link TableSnapshot.Builder}
+ */
+public final class ColumnSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Getter private final TableSnapshot table;
+
+    /**
+     * The position of the column in the table, starting from 0
+     */
+    @Getter private final int position;
+
+    @Getter private final String name;
+
+    /**
+     * A shared instance from {@link tech.firas.db.datatype.DataTypes}, which must not be modified
+     */
+    @Getter private final DataType dataType;
+
+    @Getter private final boolean notNull;
+
+    @Getter private final String comment;
+
+    private final int hash;
+
+    ColumnSnapshot(final TableSnapshot table, final int position, final String name, final DataType dataType,
+            final boolean notNull, final String comment) {
+        this.table = table;
+        this.position = position;
+        this.name = name;
+        this.dataType = dataType;
+        this.notNull = notNull;
+        this.comment = comment;
+        this.hash = 31 * table.hashCode() + name.hashCode();
+    }
+
+    /**
+     * @return a mutable Column with the same name, DataType, nullability and comment
+     */
+    public Column toColumn(final Table table) {
+        final Column result = new Column(this.name);
+        result.setTable(table);
+        result.setDataType(this.dataType);
+        result.setNotNull(this.notNull);
+        result.setComment(this.comment);
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ColumnSnapshot column = (ColumnSnapshot) o;
+        return this.hash == column.hash && this.name.equals(column.name) && this.table.equals(column.table);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnSnapshot{" +
+                "table='" + this.table + '\'' +
+                ", name='" + this.name + '\'' +
+                ", dataType=" + this.dataType +
+                ", notNull=" + this.notNull +
+                '}';
+    }
+}
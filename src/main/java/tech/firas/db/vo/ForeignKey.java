@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.vo;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A foreign key of a table, read from the DB by {@link java.sql.DatabaseMetaData#getImportedKeys}
+ */
+@NoArgsConstructor
+public class ForeignKey implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The referencing table
+     */
+    @Getter @Setter private Table table;
+
+    @Getter @Setter private String name;
+
+    /**
+     * The columns of the referencing table, in the order of the key
+     */
+    @Getter @Setter private List<String> columnNames;
+
+    @Getter @Setter private Table referencedTable;
+
+    /**
+     * The columns of the referenced table, in the same order as {@link #columnNames}
+     */
+    @Getter @Setter private List<String> referencedColumnNames;
+
+    public ForeignKey(final Table table, final String name, final List<String> columnNames,
+            final Table referencedTable, final List<String> referencedColumnNames) {
+        if (columnNames.size() != referencedColumnNames.size()) {
+            throw new IllegalArgumentException("The numbers of the columns of the foreign key " + name +
+                    " differ: " + columnNames + " referencing " + referencedColumnNames);
+        }
+        this.table = table;
+        this.name = name;
+        this.columnNames = columnNames;
+        this.referencedTable = referencedTable;
+        this.referencedColumnNames = referencedColumnNames;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final ForeignKey that = (ForeignKey) o;
+        return Objects.equals(table, that.table) && Objects.equals(name, that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(table, name);
+    }
+
+    @Override
+    public String toString() {
+        return "ForeignKey{" +
+                "table=" + table +
+                ", name='" + name + '\'' +
+                ", columnNames=" + columnNames +
+                ", referencedTable=" + referencedTable +
+                ", referencedColumnNames=" + referencedColumnNames +
+                '}';
+    }
+}
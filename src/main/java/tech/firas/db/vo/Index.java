@@ -47,10 +47,10 @@ public class Index implements Serializable {
     @Getter @Setter private List<Column> columns;
 
     public void setName(final String name) {
-        if (!Identifier.PATTERN.matcher(name).matches()) {
+        if (!Identifier.isValid(name)) {
             throw new IllegalArgumentException("Invalid index name: " + name);
         }
-        this.name = name;
+        this.name = Identifier.intern(name);
     }
 
     @Override
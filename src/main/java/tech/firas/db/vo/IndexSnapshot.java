@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.vo;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+import lombok.Getter;
+
+import tech.firas.db.vo.Index.IndexType;
+
+/**
+ * An immutable index of a {@link TableSnapshot}, created by {@link TableSnapshot.Builder}.
+ * The columns are kept as their positions in the table.
+ */
+public final class IndexSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Getter private final TableSnapshot table;
+
+    @Getter private final String name;
+
+    @Getter private final IndexType indexType;
+
+    private final int[] columnPositions;
+
+    private final int hash;
+
+    IndexSnapshot(final TableSnapshot table, final String name, final IndexType indexType,
+            final int[] columnPositions) {
+        this.table = table;
+        this.name = name;
+        this.indexType = indexType;
+        this.columnPositions = columnPositions;
+        this.hash = 31 * table.hashCode() + name.hashCode();
+    }
+
+    /**
+     * @return a read-only view of the columns of the index, in the order of the index
+     */
+    public List<ColumnSnapshot> getColumns() {
+        return new ColumnList();
+    }
+
+    /**
+     * @return a mutable Index of the table, with the columns of the table of the same names
+     */
+    public Index toIndex(final Table table) {
+        final Index result = new Index();
+        result.setTable(table);
+        result.setName(this.name);
+        result.setIndexType(this.indexType);
+        final List<Column> columns = new ArrayList<>(this.columnPositions.length);
+        for (final int position : this.columnPositions) {
+            columns.add(table.getColumn(this.table.getColumns().get(position).getName()));
+        }
+        result.setColumns(columns);
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final IndexSnapshot index = (IndexSnapshot) o;
+        return this.hash == index.hash && this.name.equals(index.name) && this.table.equals(index.table);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        final List<String> columnNames = new ArrayList<>(this.columnPositions.length);
+        for (final ColumnSnapshot column : this.getColumns()) {
+            columnNames.add(column.getName());
+        }
+        return "IndexSnapshot{" +
+                "table='" + this.table + '\'' +
+                ", name='" + this.name + '\'' +
+                ", indexType=" + this.indexType +
+                ", columns=" + columnNames +
+                '}';
+    }
+
+    private final class ColumnList extends AbstractList<ColumnSnapshot> implements RandomAccess {
+
+        @Override
+        public ColumnSnapshot get(final int index) {
+            return IndexSnapshot.this.table.getColumns().get(IndexSnapshot.this.columnPositions[index]);
+        }
+
+        @Override
+        public int size() {
+            return IndexSnapshot.this.columnPositions.length;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.vo;
+
+import java.sql.SQLException;
+
+/**
+ * Load a part of the metadata from the DB when it is accessed for the first time
+ * @param <T> the type of the metadata
+ */
+@FunctionalInterface
+public interface LazyLoader<T> {
+
+    T load() throws SQLException;
+
+    /**
+     * @param loader the LazyLoader
+     * @param what the description of the metadata for the error message
+     * @param <T> the type of the metadata
+     * @return the metadata loaded
+     * @throws IllegalStateException if it failed to query the DB, as the getters cannot throw SQLException
+     */
+    static <T> T loadOrThrow(final LazyLoader<T> loader, final String what) {
+        try {
+            return loader.load();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to load the " + what, ex);
+        }
+    }
+}
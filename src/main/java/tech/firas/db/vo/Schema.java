@@ -33,7 +33,12 @@ public class Schema implements Serializable {
 
     @Getter private String name;
 
-    @Getter @Setter private Set<Table> tables;
+    private Set<Table> tables;
+
+    /**
+     * Set by a lazy catalog to read the tables on the first call to {@link #getTables()}
+     */
+    private transient volatile LazyLoader<Set<Table>> tablesLoader;
 
     @Getter @Setter private String comment;
 
@@ -42,10 +47,32 @@ public class Schema implements Serializable {
     }
 
     public void setName(final String name) {
-        if (!Identifier.PATTERN.matcher(name).matches()) {
+        if (!Identifier.isValid(name)) {
             throw new IllegalArgumentException("Invalid schema name: " + name);
         }
-        this.name = name;
+        this.name = Identifier.intern(name);
+    }
+
+    public Set<Table> getTables() {
+        if (this.tablesLoader != null) {
+            synchronized (this) {
+                final LazyLoader<Set<Table>> loader = this.tablesLoader;
+                if (loader != null) {
+                    this.tables = LazyLoader.loadOrThrow(loader, "tables of " + this.name);
+                    this.tablesLoader = null;
+                }
+            }
+        }
+        return this.tables;
+    }
+
+    public synchronized void setTables(final Set<Table> tables) {
+        this.tables = tables;
+        this.tablesLoader = null;
+    }
+
+    public synchronized void setTablesLoader(final LazyLoader<Set<Table>> tablesLoader) {
+        this.tablesLoader = tablesLoader;
     }
 
     @Override
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.vo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import lombok.Getter;
+
+import tech.firas.db.Identifier;
+import tech.firas.db.IdentifierKey;
+
+/**
+ * An immutable schema with its tables, which can be shared by parallel workers without locks
+ */
+public final class SchemaSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Getter private final String name;
+
+    @Getter private final String comment;
+
+    private final TableSnapshot[] tables;
+
+    private final Map<IdentifierKey, TableSnapshot> tableLookup;
+
+    private final int hash;
+
+    private SchemaSnapshot(final Builder builder) {
+        this.name = builder.name;
+        this.comment = builder.comment;
+        this.hash = this.name.hashCode();
+        this.tables = builder.tables.toArray(new TableSnapshot[0]);
+        this.tableLookup = new HashMap<>(this.tables.length * 4 / 3 + 1);
+        for (final TableSnapshot table : this.tables) {
+            if (!this.name.equals(table.getSchemaName())) {
+                throw new IllegalArgumentException("The table " + table.getName() +
+                        " is not in schema " + this.name);
+            }
+            if (this.tableLookup.put(IdentifierKey.of(table.getName()), table) != null) {
+                throw new IllegalArgumentException("Duplicate table " + table.getName() + " in schema " + this.name);
+            }
+        }
+    }
+
+    public static Builder builder(final String name) {
+        return new Builder(name);
+    }
+
+    /**
+     * Take a snapshot of a mutable Schema with all its tables (loading them if they are lazy)
+     * @param schema the Schema with the tables
+     * @return the snapshot
+     */
+    public static SchemaSnapshot of(final Schema schema) {
+        final Builder builder = builder(schema.getName()).comment(schema.getComment());
+        if (schema.getTables() != null) {
+            for (final Table table : schema.getTables()) {
+                builder.table(TableSnapshot.of(table));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return a read-only, array-backed list of the tables
+     */
+    public List<TableSnapshot> getTables() {
+        return Collections.unmodifiableList(Arrays.asList(this.tables));
+    }
+
+    /**
+     * @param name the name of a table, case-insensitive
+     * @return the table, or null if there is no such table
+     */
+    public TableSnapshot getTable(final String name) {
+        return this.tableLookup.get(IdentifierKey.of(name));
+    }
+
+    /**
+     * @return a mutable Schema with the same tables
+     */
+    public Schema toSchema() {
+        final Schema result = new Schema(this.name);
+        result.setComment(this.comment);
+        final Set<Table> tableSet = new LinkedHashSet<>(this.tables.length * 4 / 3 + 1);
+        for (final TableSnapshot table : this.tables) {
+            tableSet.add(table.toTable(result));
+        }
+        result.setTables(tableSet);
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return this.name.equals(((SchemaSnapshot) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        return "SchemaSnapshot{" +
+                "name='" + this.name + '\'' +
+                '}';
+    }
+
+    public static final class Builder {
+
+        private final String name;
+        private String comment;
+        private final List<TableSnapshot> tables = new ArrayList<>();
+
+        private Builder(final String name) {
+            if (!Identifier.isValid(name)) {
+                throw new IllegalArgumentException("Invalid schema name: " + name);
+            }
+            this.name = Identifier.intern(name);
+        }
+
+        public Builder comment(final String comment) {
+            this.comment = comment;
+            return this;
+        }
+
+        public Builder table(final TableSnapshot table) {
+            this.tables.add(table);
+            return this;
+        }
+
+        public SchemaSnapshot build() {
+            return new SchemaSnapshot(this);
+        }
+    }
+}
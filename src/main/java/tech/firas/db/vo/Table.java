@@ -18,6 +18,7 @@ package tech.firas.db.vo;
 
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -26,6 +27,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import tech.firas.db.Identifier;
+import tech.firas.db.IdentifierKey;
 import tech.firas.db.vo.Index.IndexType;
 
 @NoArgsConstructor
@@ -37,9 +39,32 @@ public class Table implements Serializable {
 
     @Getter private String name;
 
-    @Getter private Map<String, Column> columnMap;
+    private Map<String, Column> columnMap;
 
-    @Getter private Map<String, Index> indexMap;
+    private Map<String, Index> indexMap;
+
+    /**
+     * Set by a lazy catalog to read the columns on the first call to {@link #getColumnMap()}
+     */
+    private transient volatile LazyLoader<Map<String, Column>> columnMapLoader;
+
+    /**
+     * Set by a lazy catalog to read the indexes on the first call to {@link #getIndexMap()}
+     */
+    private transient volatile LazyLoader<Map<String, Index>> indexMapLoader;
+
+    /**
+     * Separate locks for the columns and the indexes, as loading the indexes of a table
+     * may load the columns of the other tables
+     */
+    private final transient Object columnMapLock = new Object();
+    private final transient Object indexMapLock = new Object();
+
+    /**
+     * The case-insensitive indexes of the columns and the indexes by name, built on the first lookup
+     */
+    private transient volatile Lookup<Column> columnLookup;
+    private transient volatile Lookup<Index> indexLookup;
 
     @Getter @Setter private String comment;
 
@@ -53,10 +78,44 @@ public class Table implements Serializable {
     }
 
     public void setName(final String name) {
-        if (!Identifier.PATTERN.matcher(name).matches()) {
+        if (!Identifier.isValid(name)) {
             throw new IllegalArgumentException("Invalid table name: " + name);
         }
-        this.name = name;
+        this.name = Identifier.intern(name);
+    }
+
+    public Map<String, Column> getColumnMap() {
+        if (this.columnMapLoader != null) {
+            synchronized (this.columnMapLock) {
+                final LazyLoader<Map<String, Column>> loader = this.columnMapLoader;
+                if (loader != null) {
+                    this.columnMap = LazyLoader.loadOrThrow(loader, "columns of " + this.name);
+                    this.columnMapLoader = null;
+                }
+            }
+        }
+        return this.columnMap;
+    }
+
+    public Map<String, Index> getIndexMap() {
+        if (this.indexMapLoader != null) {
+            synchronized (this.indexMapLock) {
+                final LazyLoader<Map<String, Index>> loader = this.indexMapLoader;
+                if (loader != null) {
+                    this.indexMap = LazyLoader.loadOrThrow(loader, "indexes of " + this.name);
+                    this.indexMapLoader = null;
+                }
+            }
+        }
+        return this.indexMap;
+    }
+
+    public void setColumnMapLoader(final LazyLoader<Map<String, Column>> columnMapLoader) {
+        this.columnMapLoader = columnMapLoader;
+    }
+
+    public void setIndexMapLoader(final LazyLoader<Map<String, Index>> indexMapLoader) {
+        this.indexMapLoader = indexMapLoader;
     }
 
     public void setColumnMap(final Map<String, Column> columnMap) {
@@ -77,6 +136,7 @@ public class Table implements Serializable {
             }
         }
         this.columnMap = columnMap;
+        this.columnMapLoader = null;
     }
 
     public void setIndexMap(final Map<String, Index> indexMap) {
@@ -97,6 +157,51 @@ public class Table implements Serializable {
             }
         }
         this.indexMap = indexMap;
+        this.indexMapLoader = null;
+    }
+
+    /**
+     * Look up a column by its name case-insensitively, e.g. a name read from another DB
+     * @param name the name of the column
+     * @return the column, or null if there is no such column
+     */
+    public Column getColumn(final String name) {
+        final Map<String, Column> map = this.getColumnMap();
+        if (map == null) {
+            return null;
+        }
+        final Column column = map.get(name);
+        if (column != null) {
+            return column;
+        }
+        Lookup<Column> lookup = this.columnLookup;
+        if (lookup == null || !lookup.isFor(map)) {
+            lookup = new Lookup<>(map);
+            this.columnLookup = lookup;
+        }
+        return lookup.get(name);
+    }
+
+    /**
+     * Look up an index by its name case-insensitively, e.g. a name read from another DB
+     * @param name the name of the index
+     * @return the index, or null if there is no such index
+     */
+    public Index getIndex(final String name) {
+        final Map<String, Index> map = this.getIndexMap();
+        if (map == null) {
+            return null;
+        }
+        final Index index = map.get(name);
+        if (index != null) {
+            return index;
+        }
+        Lookup<Index> lookup = this.indexLookup;
+        if (lookup == null || !lookup.isFor(map)) {
+            lookup = new Lookup<>(map);
+            this.indexLookup = lookup;
+        }
+        return lookup.get(name);
     }
 
     public Collection<Column> getPrimaryKeyColumns() {
@@ -132,4 +237,32 @@ public class Table implements Serializable {
                 ", name='" + name + '\'' +
                 '}';
     }
+
+    /**
+     * A snapshot of a name map keyed by {@link IdentifierKey},
+     * rebuilt when the map is replaced or its size changes
+     */
+    private static final class Lookup<T> {
+
+        private final Map<String, T> source;
+        private final int size;
+        private final Map<IdentifierKey, T> map;
+
+        Lookup(final Map<String, T> source) {
+            this.source = source;
+            this.size = source.size();
+            this.map = new HashMap<>(this.size * 4 / 3 + 1);
+            for (final Map.Entry<String, T> entry : source.entrySet()) {
+                this.map.putIfAbsent(IdentifierKey.of(entry.getKey()), entry.getValue());
+            }
+        }
+
+        boolean isFor(final Map<String, T> map) {
+            return this.source == map && this.size == map.size();
+        }
+
+        T get(final String name) {
+            return this.map.get(IdentifierKey.of(name));
+        }
+    }
 }
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.vo;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import lombok.Getter;
+
+import tech.firas.db.Identifier;
+import tech.firas.db.IdentifierKey;
+import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.DataTypes;
+import tech.firas.db.vo.Index.IndexType;
+
+/**
+ * An immutable table with its columns and indexes, which can be shared by parallel workers without locks.
+ * Unlike {@link Table}, the hash code is computed once, the columns are kept in an array,
+ * the DataTypes are shared instances from {@link DataTypes}, and the schema is referred to by its name only.
+ */
+public final class TableSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Getter private final String schemaName;
+
+    @Getter private final String name;
+
+    @Getter private final String comment;
+
+    private final ColumnSnapshot[] columns;
+
+    private final IndexSnapshot[] indexes;
+
+    private final Map<IdentifierKey, ColumnSnapshot> columnLookup;
+
+    private final Map<IdentifierKey, IndexSnapshot> indexLookup;
+
+    private final int hash;
+
+    private TableSnapshot(final Builder builder) {
+        this.schemaName = builder.schemaName;
+        this.name = builder.name;
+        this.comment = builder.comment;
+        this.hash = 31 * Objects.hashCode(this.schemaName) + this.name.hashCode();
+
+        this.columns = new ColumnSnapshot[builder.columns.size()];
+        this.columnLookup = new HashMap<>(this.columns.length * 4 / 3 + 1);
+        for (int i = 0; i < this.columns.length; i += 1) {
+            final ColumnSpec spec = builder.columns.get(i);
+            this.columns[i] = new ColumnSnapshot(this, i, spec.name, spec.dataType, spec.notNull, spec.comment);
+            if (this.columnLookup.put(IdentifierKey.of(spec.name), this.columns[i]) != null) {
+                throw new IllegalArgumentException("Duplicate column " + spec.name + " in table " + this.name);
+            }
+        }
+
+        this.indexes = new IndexSnapshot[builder.indexes.size()];
+        this.indexLookup = new HashMap<>(this.indexes.length * 4 / 3 + 1);
+        boolean hasPrimaryKey = false;
+        for (int i = 0; i < this.indexes.length; i += 1) {
+            final IndexSpec spec = builder.indexes.get(i);
+            if (spec.indexType == IndexType.PRIMARY_KEY) {
+                if (hasPrimaryKey) {
+                    throw new IllegalArgumentException("There must be at most one primary key for one table");
+                }
+                hasPrimaryKey = true;
+            }
+            final int[] positions = new int[spec.columnNames.length];
+            for (int j = 0; j < positions.length; j += 1) {
+                final ColumnSnapshot column = this.columnLookup.get(IdentifierKey.of(spec.columnNames[j]));
+                if (column == null) {
+                    throw new IllegalArgumentException("The column " + spec.columnNames[j] + " of index " +
+                            spec.name + " is not in table " + this.name);
+                }
+                positions[j] = column.getPosition();
+            }
+            this.indexes[i] = new IndexSnapshot(this, spec.name, spec.indexType, positions);
+            this.indexLookup.put(IdentifierKey.of(spec.name), this.indexes[i]);
+        }
+    }
+
+    public static Builder builder(final String schemaName, final String name) {
+        return new Builder(schemaName, name);
+    }
+
+    /**
+     * Take a snapshot of a mutable Table, reading its columns and indexes (loading them if they are lazy)
+     * @param table the Table with the columns
+     * @return the snapshot
+     */
+    public static TableSnapshot of(final Table table) {
+        final Builder builder = builder(table.getSchema() == null ? null : table.getSchema().getName(),
+                table.getName()).comment(table.getComment());
+        Objects.requireNonNull(table.getColumnMap(), "table.columnMap must not be null");
+        for (final Column column : table.getColumnMap().values()) {
+            builder.column(column.getName(), column.getDataType(), column.isNotNull(), column.getComment());
+        }
+        if (table.getIndexMap() != null) {
+            for (final Index index : table.getIndexMap().values()) {
+                final List<Column> indexColumns = index.getColumns() == null ?
+                        Collections.emptyList() : index.getColumns();
+                final String[] columnNames = new String[indexColumns.size()];
+                for (int i = 0; i < columnNames.length; i += 1) {
+                    final Column column = indexColumns.get(i);
+                    if (column == null) {
+                        throw new IllegalArgumentException("There is at least one unknown column in index " +
+                                index.getName());
+                    }
+                    columnNames[i] = column.getName();
+                }
+                builder.index(index.getName(), index.getIndexType(), columnNames);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return a read-only, array-backed list of the columns in the order of the table
+     */
+    public List<ColumnSnapshot> getColumns() {
+        return Collections.unmodifiableList(Arrays.asList(this.columns));
+    }
+
+    public List<IndexSnapshot> getIndexes() {
+        return Collections.unmodifiableList(Arrays.asList(this.indexes));
+    }
+
+    /**
+     * @param name the name of a column, case-insensitive
+     * @return the column, or null if there is no such column
+     */
+    public ColumnSnapshot getColumn(final String name) {
+        return this.columnLookup.get(IdentifierKey.of(name));
+    }
+
+    /**
+     * @param name the name of an index, case-insensitive
+     * @return the index, or null if there is no such index
+     */
+    public IndexSnapshot getIndex(final String name) {
+        return this.indexLookup.get(IdentifierKey.of(name));
+    }
+
+    /**
+     * @param schema the Schema of the Table to be created, whose name should be {@link #getSchemaName()}
+     * @return a mutable Table with the same columns and indexes
+     */
+    public Table toTable(final Schema schema) {
+        final Table result = new Table(schema, this.name);
+        result.setComment(this.comment);
+        final Map<String, Column> columnMap = new LinkedHashMap<>(this.columns.length * 4 / 3 + 1);
+        for (final ColumnSnapshot column : this.columns) {
+            columnMap.put(column.getName(), column.toColumn(result));
+        }
+        result.setColumnMap(columnMap);
+        final Map<String, Index> indexMap = new LinkedHashMap<>(this.indexes.length * 4 / 3 + 1);
+        for (final IndexSnapshot index : this.indexes) {
+            indexMap.put(index.getName(), index.toIndex(result));
+        }
+        result.setIndexMap(indexMap);
+        return result;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final TableSnapshot table = (TableSnapshot) o;
+        return this.hash == table.hash && this.name.equals(table.name) &&
+                Objects.equals(this.schemaName, table.schemaName);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hash;
+    }
+
+    @Override
+    public String toString() {
+        return "TableSnapshot{" +
+                "schemaName='" + this.schemaName + '\'' +
+                ", name='" + this.name + '\'' +
+                '}';
+    }
+
+    public static final class Builder {
+
+        private final String schemaName;
+        private final String name;
+        private String comment;
+        private final List<ColumnSpec> columns = new ArrayList<>();
+        private final List<IndexSpec> indexes = new ArrayList<>();
+
+        private Builder(final String schemaName, final String name) {
+            if (schemaName != null && !Identifier.isValid(schemaName)) {
+                throw new IllegalArgumentException("Invalid schema name: " + schemaName);
+            }
+            if (!Identifier.isValid(name)) {
+                throw new IllegalArgumentException("Invalid table name: " + name);
+            }
+            this.schemaName = Identifier.intern(schemaName);
+            this.name = Identifier.intern(name);
+        }
+
+        public Builder comment(final String comment) {
+            this.comment = comment;
+            return this;
+        }
+
+        public Builder column(final String name, final DataType dataType, final boolean notNull,
+                final String comment) {
+            if (!Identifier.isValid(name)) {
+                throw new IllegalArgumentException("Invalid column name: " + name);
+            }
+            this.columns.add(new ColumnSpec(Identifier.intern(name),
+                    DataTypes.intern(Objects.requireNonNull(dataType, "dataType must not be null")),
+                    notNull, comment));
+            return this;
+        }
+
+        /**
+         * @param columnNames the names of the columns added by {@link #column}, in the order of the index
+         */
+        public Builder index(final String name, final IndexType indexType, final String... columnNames) {
+            if (!Identifier.isValid(name)) {
+                throw new IllegalArgumentException("Invalid index name: " + name);
+            }
+            this.indexes.add(new IndexSpec(Identifier.intern(name),
+                    Objects.requireNonNull(indexType, "indexType must not be null"), columnNames.clone()));
+            return this;
+        }
+
+        public TableSnapshot build() {
+            if (this.columns.isEmpty()) {
+                throw new IllegalStateException("There must be at least one column in table " + this.name);
+            }
+            return new TableSnapshot(this);
+        }
+    }
+
+    private static final class ColumnSpec {
+        private final String name;
+        private final DataType dataType;
+        private final boolean notNull;
+        private final String comment;
+
+        ColumnSpec(final String name, final DataType dataType, final boolean notNull, final String comment) {
+            this.name = name;
+            this.dataType = dataType;
+            this.notNull = notNull;
+            this.comment = comment;
+        }
+    }
+
+    private static final class IndexSpec {
+        private final String name;
+        private final IndexType indexType;
+        private final String[] columnNames;
+
+        IndexSpec(final String name, final IndexType indexType, final String[] columnNames) {
+            this.name = name;
+            this.indexType = indexType;
+            this.columnNames = columnNames;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.vo;
+
+import java.io.Serializable;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The size of a table estimated by the statistics of the DB, which may be stale
+ * if the table has not been analyzed recently
+ */
+@NoArgsConstructor
+public class TableStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final long UNKNOWN = -1L;
+
+    @Getter @Setter private Table table;
+
+    /**
+     * The estimated number of rows, {@link #UNKNOWN} if the table has never been analyzed
+     */
+    @Getter @Setter private long rowCount = UNKNOWN;
+
+    /**
+     * The estimated number of bytes of the data, {@link #UNKNOWN} if the table has never been analyzed
+     */
+    @Getter @Setter private long dataSize = UNKNOWN;
+
+    public TableStatistics(final Table table, final long rowCount, final long dataSize) {
+        this.table = table;
+        this.rowCount = rowCount;
+        this.dataSize = dataSize;
+    }
+
+    @Override
+    public String toString() {
+        return "TableStatistics{" +
+                "table=" + this.table +
+                ", rowCount=" + this.rowCount +
+                ", dataSize=" + this.dataSize +
+                '}';
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Create the ExecutorServices for the copy workers, which are blocked on the I/O of JDBC most of the time.
+ * This version, in META-INF/versions/21 of the jar, runs the workers on virtual threads,
+ * so hundreds of workers cost no thread stacks; the number of workers running at the same time
+ * is still bounded as in the version for the older JDKs, by the connections available.
+ */
+public final class WorkerExecutors {
+
+    private WorkerExecutors() throws IllegalAccessException {
+        throw new IllegalAccessException();
+    }
+
+    /**
+     * @param name the prefix of the names of the threads
+     * @param maxThreads the maximum number of workers running at the same time,
+     *                   which should be bounded by the connections available to the source DB and the target DB
+     * @return an ExecutorService running at most <code>maxThreads</code> workers at the same time
+     */
+    public static ExecutorService newWorkerExecutor(final String name, final int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be at least 1");
+        }
+        return Executors.newFixedThreadPool(maxThreads, Thread.ofVirtual().name(name + '-', 1).factory());
+    }
+
+    /**
+     * @return whether the workers run on virtual threads
+     */
+    public static boolean isVirtual() {
+        return true;
+    }
+}
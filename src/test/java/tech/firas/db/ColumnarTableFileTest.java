@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import tech.firas.db.datatype.BigIntType;
+import tech.firas.db.datatype.BlobType;
+import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.DataTypes;
+import tech.firas.db.datatype.DateType;
+import tech.firas.db.datatype.DoubleType;
+import tech.firas.db.datatype.FloatType;
+import tech.firas.db.datatype.IntegerType;
+import tech.firas.db.datatype.SmallIntType;
+import tech.firas.db.vo.Column;
+
+public class ColumnarTableFileTest {
+
+    private static final List<String> LABELS = Arrays.asList("s", "i", "l", "f", "d", "amount", "day", "at_time",
+            "at", "name", "data");
+
+    @TempDir Path tempDir;
+
+    private static Column column(final String name, final DataType dataType, final boolean notNull) {
+        final Column result = new Column(name);
+        result.setDataType(dataType);
+        result.setNotNull(notNull);
+        return result;
+    }
+
+    private static List<Column> columns() {
+        return Arrays.asList(column("s", SmallIntType.instance, false), column("i", IntegerType.instance, true),
+                column("l", BigIntType.instance, false), column("f", FloatType.instance, false),
+                column("d", DoubleType.instance, false), column("amount", DataTypes.decimal(12, 3), false),
+                column("day", DateType.instance, false), column("at_time", DataTypes.time(0), false),
+                column("at", DataTypes.timestamp(6), false), column("name", DataTypes.varChar(20), false),
+                column("data", BlobType.instance, false));
+    }
+
+    @Test
+    public void testColumns() throws Exception {
+        final Path file = this.tempDir.resolve("empty.dbmc");
+        Assertions.assertEquals(0L, ColumnarTableFile.write(
+                JdbcStubs.resultSet(LABELS, Collections.emptyList()), columns(), file, 10, 1L << 20));
+
+        final List<ColumnarTableFile.ColumnMeta> metas = ColumnarTableFile.readColumns(file);
+        Assertions.assertEquals(LABELS.size(), metas.size());
+        final String[] logicalTypes = { "INT16", "INT32", "INT64", "FLOAT", "DOUBLE", "DECIMAL", "DATE", "TIME",
+                "TIMESTAMP", "STRING", "BINARY" };
+        for (int i = 0; i < metas.size(); i += 1) {
+            Assertions.assertEquals(LABELS.get(i), metas.get(i).getName());
+            Assertions.assertEquals(logicalTypes[i], metas.get(i).getLogicalType(), metas.get(i).getName());
+            Assertions.assertEquals(i != 1, metas.get(i).isNullable(), metas.get(i).getName());
+        }
+        Assertions.assertEquals(12, metas.get(5).getPrecision());
+        Assertions.assertEquals(3, metas.get(5).getScale());
+        Assertions.assertEquals(6, metas.get(8).getPrecision());
+        Assertions.assertEquals(20, metas.get(9).getPrecision());
+
+        final List<Object[]> read = new ArrayList<>();
+        Assertions.assertEquals(0L, ColumnarTableFile.read(file, null, read::add));
+        Assertions.assertTrue(read.isEmpty());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final LocalDateTime at = LocalDateTime.of(2023, 3, 14, 15, 9, 26, 535_897_000);
+        final List<Object[]> rows = Arrays.asList(
+                new Object[] { (short) 7, 1, 10000000000L, 1.5F, 2.25D, new BigDecimal("-12345.678"),
+                        Date.valueOf(LocalDate.of(1999, 12, 31)), Time.valueOf(LocalTime.of(23, 59, 58)),
+                        Timestamp.valueOf(at), "数据", new byte[] { 1, 2, 3 } },
+                new Object[] { null, 2, null, null, null, null, null, null, null, null, null },
+                new Object[] { (short) -1, 3, -1L, -0.5F, 0D, new BigDecimal("0.100"),
+                        Date.valueOf(LocalDate.of(1970, 1, 1)), Time.valueOf(LocalTime.MIDNIGHT),
+                        Timestamp.valueOf(LocalDateTime.of(1900, 1, 1, 0, 0)), "", new byte[0] });
+        final Path file = this.tempDir.resolve("all.dbmc");
+
+        // two row groups
+        Assertions.assertEquals(rows.size(), ColumnarTableFile.write(JdbcStubs.resultSet(LABELS, rows), columns(),
+                file, 2, 1L << 20));
+
+        final List<Object[]> read = new ArrayList<>();
+        Assertions.assertEquals(rows.size(), ColumnarTableFile.read(file, null, read::add));
+        Assertions.assertEquals(rows.size(), read.size());
+        final Object[] first = read.get(0);
+        Assertions.assertEquals((short) 7, first[0]);
+        Assertions.assertEquals(1, first[1]);
+        Assertions.assertEquals(10000000000L, first[2]);
+        Assertions.assertEquals(1.5F, first[3]);
+        Assertions.assertEquals(2.25D, first[4]);
+        // the scale is kept, not only the value
+        Assertions.assertEquals(new BigDecimal("-12345.678"), first[5]);
+        Assertions.assertEquals(LocalDate.of(1999, 12, 31), first[6]);
+        Assertions.assertEquals(LocalTime.of(23, 59, 58), first[7]);
+        // the microseconds of TIMESTAMP(6) are kept
+        Assertions.assertEquals(at, first[8]);
+        Assertions.assertEquals("数据", first[9]);
+        Assertions.assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) first[10]);
+
+        Assertions.assertArrayEquals(new Object[] { null, 2, null, null, null, null, null, null, null, null, null },
+                read.get(1));
+
+        final Object[] third = read.get(2);
+        Assertions.assertEquals(new BigDecimal("0.100"), third[5]);
+        Assertions.assertEquals(3, ((BigDecimal) third[5]).scale());
+        Assertions.assertEquals(LocalDateTime.of(1900, 1, 1, 0, 0), third[8]);
+        Assertions.assertEquals("", third[9]);
+        Assertions.assertArrayEquals(new byte[0], (byte[]) third[10]);
+    }
+
+    @Test
+    public void testReadSomeColumns() throws Exception {
+        final List<Object[]> rows = Arrays.asList(
+                new Object[] { null, 1, null, null, null, new BigDecimal("1.500"), null, null, null, "a", null },
+                new Object[] { null, 2, null, null, null, null, null, null, null, "b", null });
+        final Path file = this.tempDir.resolve("some.dbmc");
+        ColumnarTableFile.write(JdbcStubs.resultSet(LABELS, rows), columns(), file, 10, 1L << 20);
+
+        final List<Object[]> read = new ArrayList<>();
+        ColumnarTableFile.read(file, Arrays.asList("NAME", "amount", "i"), read::add);
+
+        Assertions.assertArrayEquals(new Object[] { "a", new BigDecimal("1.500"), 1 }, read.get(0));
+        Assertions.assertArrayEquals(new Object[] { "b", null, 2 }, read.get(1));
+        Assertions.assertThrows(IOException.class,
+                () -> ColumnarTableFile.read(file, Collections.singletonList("missing"), values -> { }));
+    }
+
+    @Test
+    public void testNotColumnarFile() throws Exception {
+        final Path file = this.tempDir.resolve("other.dbmc");
+        Files.write(file, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+
+        Assertions.assertThrows(IOException.class, () -> ColumnarTableFile.readColumns(file));
+    }
+}
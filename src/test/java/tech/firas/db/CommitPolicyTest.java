@@ -0,0 +1,157 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.firas.db;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CommitPolicyTest {
+
+    /**
+     * A Connection recording the commits, the rollbacks and the statements executed
+     */
+    private static class StubConnection {
+
+        private final List<String> events = new ArrayList<>();
+        private boolean autoCommit;
+
+        StubConnection(final boolean autoCommit) {
+            this.autoCommit = autoCommit;
+        }
+
+        Connection connection() {
+            final Statement statement = JdbcStubs.stub(Statement.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "execute":
+                        this.events.add((String) args[0]);
+                        return false;
+                    case "close":
+                        return null;
+                    default:
+                        throw JdbcStubs.unsupported(method);
+                }
+            });
+            return JdbcStubs.stub(Connection.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "getAutoCommit":
+                        return this.autoCommit;
+                    case "setAutoCommit":
+                        this.autoCommit = (Boolean) args[0];
+                        return null;
+                    case "commit":
+                    case "rollback":
+                        this.events.add(method.getName());
+                        return null;
+                    case "createStatement":
+                        return statement;
+                    default:
+                        throw JdbcStubs.unsupported(method);
+                }
+            });
+        }
+    }
+
+    @Test
+    public void testNegative() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CommitPolicy(-1, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new CommitPolicy(0, -1));
+    }
+
+    @Test
+    public void testEveryBatches() throws Exception {
+        final StubConnection stub = new StubConnection(true);
+        final CommitPolicy.Committer committer = new CommitPolicy(2, 0).begin(stub.connection(), null);
+        Assertions.assertFalse(stub.autoCommit);
+
+        for (int i = 0; i < 5; i += 1) {
+            committer.afterBatch(100L);
+        }
+        Assertions.assertEquals(2, committer.getCommitCount());
+        committer.finish();
+
+        Assertions.assertEquals(3, committer.getCommitCount());
+        Assertions.assertEquals(Arrays.asList("commit", "commit", "commit"), stub.events);
+        Assertions.assertTrue(stub.autoCommit);
+    }
+
+    @Test
+    public void testEveryBytes() throws Exception {
+        final StubConnection stub = new StubConnection(true);
+        final CommitPolicy.Committer committer = new CommitPolicy(0, 250L).begin(stub.connection(), null);
+
+        for (int i = 0; i < 5; i += 1) {
+            committer.afterBatch(100L);
+        }
+        // committed after the 3rd batch (300 bytes), then 200 bytes since
+        Assertions.assertEquals(1, committer.getCommitCount());
+    }
+
+    @Test
+    public void testWholeCopyInOneTransaction() throws Exception {
+        final StubConnection stub = new StubConnection(true);
+        final CommitPolicy.Committer committer = new CommitPolicy(0, 0).begin(stub.connection(), null);
+
+        for (int i = 0; i < 100; i += 1) {
+            committer.afterBatch(1L << 20);
+        }
+        Assertions.assertEquals(0, committer.getCommitCount());
+        committer.finish();
+        Assertions.assertEquals(1, committer.getCommitCount());
+    }
+
+    @Test
+    public void testTransactionSql() throws Exception {
+        final StubConnection stub = new StubConnection(true);
+        final CommitPolicy.Committer committer = new CommitPolicy(1, 0).begin(stub.connection(), "BEGIN UNLOGGED");
+
+        committer.afterBatch(1L);
+        committer.finish();
+
+        Assertions.assertEquals(Arrays.asList("BEGIN UNLOGGED", "commit", "BEGIN UNLOGGED", "commit"), stub.events);
+    }
+
+    @Test
+    public void testAbort() throws Exception {
+        final StubConnection stub = new StubConnection(true);
+        final CommitPolicy.Committer committer = new CommitPolicy(2, 0).begin(stub.connection(), null);
+
+        committer.afterBatch(1L);
+        committer.afterBatch(1L);
+        committer.afterBatch(1L);
+        committer.abort();
+
+        Assertions.assertEquals(Arrays.asList("commit", "rollback"), stub.events);
+        Assertions.assertTrue(stub.autoCommit);
+    }
+
+    @Test
+    public void testAutoCommitAlreadyOff() throws Exception {
+        final StubConnection stub = new StubConnection(false);
+        final CommitPolicy.Committer committer = new CommitPolicy(1, 0).begin(stub.connection(), null);
+
+        committer.finish();
+
+        Assertions.assertFalse(stub.autoCommit);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.firas.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.firas.db.datatype.IntegerType;
+import tech.firas.db.vo.Column;
+import tech.firas.db.vo.Index;
+import tech.firas.db.vo.Index.IndexType;
+import tech.firas.db.vo.Schema;
+import tech.firas.db.vo.Table;
+
+public class DbMetaReaderPostgreTest {
+
+    private static Table table(final Schema schema, final String name, final String... columnNames) {
+        final Table result = new Table(schema, name);
+        final Map<String, Column> columnMap = new LinkedHashMap<>();
+        for (final String columnName : columnNames) {
+            final Column column = new Column(columnName);
+            column.setTable(result);
+            column.setDataType(IntegerType.instance);
+            columnMap.put(columnName, column);
+        }
+        result.setColumnMap(columnMap);
+        return result;
+    }
+
+    /**
+     * A Connection whose query returns the rows of pg_indexes joined with information_schema.table_constraints
+     */
+    private static Connection indexConnection(final List<Object[]> rows, final List<Object> parameters) {
+        final PreparedStatement ps = JdbcStubs.stub(PreparedStatement.class, (method, args) -> {
+            switch (method.getName()) {
+                case "setString":
+                    parameters.add(args[1]);
+                    return null;
+                case "executeQuery":
+                    return JdbcStubs.resultSet(
+                            Arrays.asList("tableName", "indexName", "indexDef", "constraint_type"), rows);
+                case "close":
+                    return null;
+                default:
+                    throw JdbcStubs.unsupported(method);
+            }
+        });
+        return JdbcStubs.stub(Connection.class, (method, args) -> {
+            if ("prepareStatement".equals(method.getName())) {
+                return ps;
+            }
+            throw JdbcStubs.unsupported(method);
+        });
+    }
+
+    @Test
+    public void testReadIndexes() throws Exception {
+        final Schema schema = new Schema("public");
+        final Table orders = table(schema, "orders", "id", "code", "customer_id");
+        final List<Object> parameters = new ArrayList<>();
+        final Connection connection = indexConnection(Arrays.asList(
+                new Object[] { "orders", "orders_code_key",
+                        "CREATE UNIQUE INDEX orders_code_key ON public.orders USING btree (code)", "UNIQUE" },
+                new Object[] { "orders", "orders_customer",
+                        "CREATE INDEX orders_customer ON public.orders USING btree (customer_id)", null },
+                new Object[] { "orders", "orders_pkey",
+                        "CREATE UNIQUE INDEX orders_pkey ON public.orders USING btree (id)", "PRIMARY KEY" }
+        ), parameters);
+
+        final Map<String, Index> indexes = new DbMetaReaderPostgre()
+                .readIndexes(connection, schema, Collections.singletonList(orders)).get(orders);
+
+        Assertions.assertEquals(Arrays.asList("public", "orders"), parameters);
+        Assertions.assertEquals(IndexType.PRIMARY_KEY, indexes.get("orders_pkey").getIndexType());
+        Assertions.assertEquals(Collections.singletonList(orders.getColumn("id")),
+                indexes.get("orders_pkey").getColumns());
+        Assertions.assertEquals(IndexType.UNIQUE_KEY, indexes.get("orders_code_key").getIndexType());
+        Assertions.assertEquals(IndexType.NORMAL, indexes.get("orders_customer").getIndexType());
+
+        orders.setIndexMap(indexes);
+        Assertions.assertEquals(Collections.singletonList(orders.getColumn("id")), orders.getPrimaryKeyColumns());
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DdlBatchTest {
+
+    private static final String BAD = "CREATE BAD";
+
+    /**
+     * How the stubbed driver reports a failed statement in a batch
+     */
+    private enum DriverBehaviour {
+        /**
+         * Stop at the failed statement, with the update counts of the statements before it
+         */
+        STOP_AT_FAILED,
+        /**
+         * Report every statement as failed, like PgJDBC does when the auto-commit mode is off
+         */
+        ALL_FAILED,
+        /**
+         * Continue after the failed statement, with EXECUTE_FAILED for it
+         */
+        CONTINUE
+    }
+
+    /**
+     * A Connection whose Statement fails for {@link #BAD} and keeps the statements committed
+     */
+    private static class StubConnection {
+
+        private final DriverBehaviour behaviour;
+        private final Set<String> badSqls = Collections.singleton(BAD);
+
+        private final List<String> committed = new ArrayList<>();
+        private final List<String> uncommitted = new ArrayList<>();
+        private final List<String> batch = new ArrayList<>();
+        private boolean autoCommit;
+        private int batchCount;
+
+        StubConnection(final DriverBehaviour behaviour, final boolean autoCommit) {
+            this.behaviour = behaviour;
+            this.autoCommit = autoCommit;
+        }
+
+        Connection connection() {
+            return JdbcStubs.stub(Connection.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "getAutoCommit":
+                        return this.autoCommit;
+                    case "setAutoCommit":
+                        this.autoCommit = (Boolean) args[0];
+                        return null;
+                    case "commit":
+                        this.committed.addAll(this.uncommitted);
+                        this.uncommitted.clear();
+                        return null;
+                    case "rollback":
+                        this.uncommitted.clear();
+                        return null;
+                    case "createStatement":
+                        return this.statement();
+                    default:
+                        throw JdbcStubs.unsupported(method);
+                }
+            });
+        }
+
+        private Statement statement() {
+            return JdbcStubs.stub(Statement.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "addBatch":
+                        this.batch.add((String) args[0]);
+                        return null;
+                    case "clearBatch":
+                        this.batch.clear();
+                        return null;
+                    case "executeBatch":
+                        return this.executeBatch();
+                    case "close":
+                        return null;
+                    default:
+                        throw JdbcStubs.unsupported(method);
+                }
+            });
+        }
+
+        private int[] executeBatch() throws BatchUpdateException {
+            this.batchCount += 1;
+            final List<String> sqls = new ArrayList<>(this.batch);
+            this.batch.clear();
+            final int[] updateCounts = new int[sqls.size()];
+            boolean failed = false;
+            for (int i = 0; i < sqls.size(); i += 1) {
+                if (this.badSqls.contains(sqls.get(i))) {
+                    failed = true;
+                    if (this.behaviour == DriverBehaviour.STOP_AT_FAILED) {
+                        throw new BatchUpdateException("failed: " + sqls.get(i), Arrays.copyOf(updateCounts, i));
+                    }
+                    updateCounts[i] = Statement.EXECUTE_FAILED;
+                } else {
+                    this.uncommitted.add(sqls.get(i));
+                    updateCounts[i] = 0;
+                }
+            }
+            if (this.autoCommit) {
+                this.committed.addAll(this.uncommitted);
+                this.uncommitted.clear();
+            }
+            if (failed) {
+                if (this.behaviour == DriverBehaviour.ALL_FAILED) {
+                    Arrays.fill(updateCounts, Statement.EXECUTE_FAILED);
+                }
+                throw new BatchUpdateException("failed", updateCounts);
+            }
+            return updateCounts;
+        }
+    }
+
+    private static DdlBatch batchWithOneBad(final DbMetaWriter writer) {
+        return new DdlBatch(writer).add("CREATE A").add(BAD).add("CREATE C").add("CREATE D");
+    }
+
+    private static List<Integer> failedIndexes(final List<DdlBatch.Failure> failures) {
+        return failures.stream().map(DdlBatch.Failure::getIndex).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testTransactionalStoppedAtFailed() throws Exception {
+        final StubConnection stub = new StubConnection(DriverBehaviour.STOP_AT_FAILED, true);
+        final List<DdlBatch.Failure> failures = batchWithOneBad(new DbMetaWriterPostgre()).execute(stub.connection());
+
+        Assertions.assertEquals(Collections.singletonList(1), failedIndexes(failures));
+        Assertions.assertEquals(Arrays.asList("CREATE A", "CREATE C", "CREATE D"), stub.committed);
+        Assertions.assertTrue(stub.autoCommit);
+    }
+
+    @Test
+    public void testTransactionalAllReportedFailed() throws Exception {
+        final StubConnection stub = new StubConnection(DriverBehaviour.ALL_FAILED, true);
+        final List<DdlBatch.Failure> failures = batchWithOneBad(new DbMetaWriterPostgre()).execute(stub.connection());
+
+        Assertions.assertEquals(Collections.singletonList(1), failedIndexes(failures));
+        Assertions.assertEquals(Arrays.asList("CREATE A", "CREATE C", "CREATE D"), stub.committed);
+        Assertions.assertTrue(stub.autoCommit);
+    }
+
+    @Test
+    public void testTransactionalFirstReportedFailed() throws Exception {
+        final StubConnection stub = new StubConnection(DriverBehaviour.CONTINUE, true);
+        final List<DdlBatch.Failure> failures = batchWithOneBad(new DbMetaWriterPostgre()).execute(stub.connection());
+
+        Assertions.assertEquals(Collections.singletonList(1), failedIndexes(failures));
+        Assertions.assertEquals(Arrays.asList("CREATE A", "CREATE C", "CREATE D"), stub.committed);
+        Assertions.assertEquals(2, stub.batchCount);
+    }
+
+    @Test
+    public void testNonTransactionalStoppedAtFailed() throws Exception {
+        final StubConnection stub = new StubConnection(DriverBehaviour.STOP_AT_FAILED, true);
+        final List<DdlBatch.Failure> failures = batchWithOneBad(new DbMetaWriterMySql()).execute(stub.connection());
+
+        Assertions.assertEquals(Collections.singletonList(1), failedIndexes(failures));
+        Assertions.assertEquals(Arrays.asList("CREATE A", "CREATE C", "CREATE D"), stub.committed);
+    }
+
+    @Test
+    public void testNonTransactionalContinued() throws Exception {
+        final StubConnection stub = new StubConnection(DriverBehaviour.CONTINUE, true);
+        final List<DdlBatch.Failure> failures = batchWithOneBad(new DbMetaWriterMySql()).execute(stub.connection());
+
+        Assertions.assertEquals(Collections.singletonList(1), failedIndexes(failures));
+        Assertions.assertEquals(Arrays.asList("CREATE A", "CREATE C", "CREATE D"), stub.committed);
+        Assertions.assertEquals(1, stub.batchCount);
+    }
+
+    @Test
+    public void testAllSucceeded() throws Exception {
+        final StubConnection stub = new StubConnection(DriverBehaviour.ALL_FAILED, true);
+        final List<DdlBatch.Failure> failures = new DdlBatch(new DbMetaWriterPostgre())
+                .add("CREATE A").add("CREATE B").execute(stub.connection());
+
+        Assertions.assertTrue(failures.isEmpty());
+        Assertions.assertEquals(Arrays.asList("CREATE A", "CREATE B"), stub.committed);
+    }
+
+    @Test
+    public void testTransactionalRefusesOpenTransaction() {
+        final StubConnection stub = new StubConnection(DriverBehaviour.ALL_FAILED, false);
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> batchWithOneBad(new DbMetaWriterPostgre()).execute(stub.connection()));
+        Assertions.assertTrue(stub.committed.isEmpty());
+    }
+}
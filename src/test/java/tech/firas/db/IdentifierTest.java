@@ -0,0 +1,53 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.firas.db;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class IdentifierTest {
+
+    private static final String CHARACTERS = "aZ_$-09 .\"`é";
+
+    private static void assertSameAsPattern(final String name) {
+        Assertions.assertEquals(Identifier.PATTERN.matcher(name).matches(), Identifier.isValid(name), name);
+    }
+
+    @Test
+    public void testIsValid() {
+        final List<String> names = Arrays.asList("orders", "ORDER_ITEMS", "_tmp", "$x", "a-b", "t1",
+                "", "1abc", "-a", "a b", "a.b", "\"a\"", "a`b", "café", "ｏｒｄｅｒｓ");
+        for (final String name : names) {
+            assertSameAsPattern(name);
+        }
+        Assertions.assertFalse(Identifier.isValid(null));
+    }
+
+    @Test
+    public void testIsValidSameAsPatternForShortNames() {
+        for (int i = 0; i < CHARACTERS.length(); i += 1) {
+            assertSameAsPattern(String.valueOf(CHARACTERS.charAt(i)));
+            for (int j = 0; j < CHARACTERS.length(); j += 1) {
+                assertSameAsPattern(new String(new char[] { CHARACTERS.charAt(i), CHARACTERS.charAt(j) }));
+            }
+        }
+    }
+}
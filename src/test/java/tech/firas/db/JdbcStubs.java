@@ -0,0 +1,125 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.firas.db;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Stubs of the JDBC interfaces for the tests, as there is no DB in the unit tests
+ */
+final class JdbcStubs {
+
+    /**
+     * Handles a call to a method of the stubbed interface other than those of Object
+     */
+    @FunctionalInterface
+    interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    private JdbcStubs() throws IllegalAccessException {
+        throw new IllegalAccessException();
+    }
+
+    /**
+     * @param type a JDBC interface, e.g. Connection
+     * @param handler the handler of the calls, which may throw {@link #unsupported} for the methods not stubbed
+     * @return a stub of the interface
+     */
+    static <T> T stub(final Class<T> type, final Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return type.getSimpleName() + " stub";
+                        default:
+                            return handler.invoke(method, args == null ? new Object[0] : args);
+                    }
+                }));
+    }
+
+    static UnsupportedOperationException unsupported(final Method method) {
+        return new UnsupportedOperationException(method.getName());
+    }
+
+    /**
+     * A forward-only ResultSet over the rows, whose getters take a column label in <code>labels</code>
+     * or a column index (starting from 1). A getter of a primitive returns 0 (or false) for a null,
+     * and {@link ResultSet#wasNull} tells whether the last value read was null.
+     * @param labels the labels of the columns
+     * @param rows the rows, with the values in the order of <code>labels</code>
+     * @return a stub of ResultSet
+     */
+    static ResultSet resultSet(final List<String> labels, final List<Object[]> rows) {
+        final int[] current = { -1 };
+        final boolean[] wasNull = { false };
+        return stub(ResultSet.class, (method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    current[0] += 1;
+                    return current[0] < rows.size();
+                case "wasNull":
+                    return wasNull[0];
+                case "close":
+                    return null;
+                default:
+                    if (!method.getName().startsWith("get") || args.length == 0) {
+                        throw unsupported(method);
+                    }
+                    final int column = args[0] instanceof Integer ? (Integer) args[0] - 1 :
+                            labels.indexOf((String) args[0]);
+                    if (column < 0) {
+                        throw new IllegalArgumentException("No such column: " + args[0]);
+                    }
+                    final Object value = rows.get(current[0])[column];
+                    wasNull[0] = value == null;
+                    return convert(value, method);
+            }
+        });
+    }
+
+    private static Object convert(final Object value, final Method getter) {
+        final Class<?> type = getter.getReturnType();
+        if (!type.isPrimitive()) {
+            return type == String.class && value != null ? value.toString() : value;
+        }
+        if (type == boolean.class) {
+            return value != null && (Boolean) value;
+        }
+        final Number number = value == null ? 0 : (Number) value;
+        if (type == int.class) {
+            return number.intValue();
+        } else if (type == long.class) {
+            return number.longValue();
+        } else if (type == short.class) {
+            return number.shortValue();
+        } else if (type == byte.class) {
+            return number.byteValue();
+        } else if (type == float.class) {
+            return number.floatValue();
+        }
+        return number.doubleValue();
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.Connection;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.firas.db.datatype.DataTypes;
+import tech.firas.db.datatype.UnknownType;
+
+public class MigrationToolTest {
+
+    private static MigrationTool postgreToPostgre(final DbMetaWriter targetWriter) {
+        return new MigrationTool(new DbMetaReaderPostgre(), (Connection) null, new DbMetaReaderPostgre(),
+                targetWriter, (Connection) null);
+    }
+
+    @Test
+    public void testNativePassThroughRestoresRenderer() {
+        final DbMetaWriter writer = new DbMetaWriterPostgre();
+        final DataTypeRegistry registry = writer.getDataTypeRegistry();
+        final DataTypeRegistry.Renderer<UnknownType> custom = dataType -> "text";
+        registry.registerRenderer(UnknownType.class, custom);
+        final MigrationTool tool = postgreToPostgre(writer);
+
+        tool.setNativePassThrough(true);
+        Assertions.assertEquals("geometry(Point)", registry.render(DataTypes.unknown("geometry", "geometry(Point)")));
+        tool.setNativePassThrough(true);
+        tool.setNativePassThrough(false);
+        Assertions.assertSame(custom, registry.getRenderer(UnknownType.class));
+        tool.setNativePassThrough(false);
+        Assertions.assertSame(custom, registry.getRenderer(UnknownType.class));
+    }
+
+    @Test
+    public void testNativePassThroughWithoutRenderer() {
+        final DbMetaWriter writer = new DbMetaWriterPostgre();
+        final DataTypeRegistry registry = writer.getDataTypeRegistry();
+        registry.removeRenderer(UnknownType.class);
+        final MigrationTool tool = postgreToPostgre(writer);
+
+        // never set, so unsetting does not touch the registry
+        tool.setNativePassThrough(false);
+        Assertions.assertNull(registry.getRenderer(UnknownType.class));
+        tool.setNativePassThrough(true);
+        Assertions.assertNotNull(registry.getRenderer(UnknownType.class));
+        tool.setNativePassThrough(false);
+        Assertions.assertNull(registry.getRenderer(UnknownType.class));
+    }
+}
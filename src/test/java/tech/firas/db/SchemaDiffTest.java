@@ -0,0 +1,204 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.firas.db;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.IntegerType;
+import tech.firas.db.datatype.VarCharType;
+import tech.firas.db.vo.Column;
+import tech.firas.db.vo.Index;
+import tech.firas.db.vo.Index.IndexType;
+import tech.firas.db.vo.Schema;
+import tech.firas.db.vo.Table;
+
+public class SchemaDiffTest {
+
+    private static VarCharType varChar(final int length) {
+        final VarCharType result = new VarCharType();
+        result.setLength(length);
+        return result;
+    }
+
+    private static Column column(final String name, final DataType dataType, final boolean notNull) {
+        final Column result = new Column(name);
+        result.setDataType(dataType);
+        result.setNotNull(notNull);
+        return result;
+    }
+
+    private static Index index(final String name, final IndexType indexType, final String... columnNames) {
+        final Index result = new Index();
+        if (name != null) {
+            result.setName(name);
+        }
+        result.setIndexType(indexType);
+        final List<Column> columns = new ArrayList<>(columnNames.length);
+        for (final String columnName : columnNames) {
+            columns.add(new Column(columnName));
+        }
+        result.setColumns(columns);
+        return result;
+    }
+
+    private static Table table(final String name, final List<Column> columns, final List<Index> indexes) {
+        final Table result = new Table(new Schema("public"), name);
+        final Map<String, Column> columnMap = new LinkedHashMap<>();
+        for (final Column column : columns) {
+            column.setTable(result);
+            columnMap.put(column.getName(), column);
+        }
+        result.setColumnMap(columnMap);
+        final Map<String, Index> indexMap = new LinkedHashMap<>();
+        for (final Index index : indexes) {
+            index.setTable(result);
+            indexMap.put(index.getName(), index);
+        }
+        result.setIndexMap(indexMap);
+        return result;
+    }
+
+    @Test
+    public void testSameTableIgnoringCase() {
+        final Table source = table("orders",
+                Arrays.asList(column("id", IntegerType.instance, true), column("note", varChar(10), false)),
+                Arrays.asList(index("orders_pkey", IndexType.PRIMARY_KEY, "id"),
+                        index("orders_note", IndexType.NORMAL, "note")));
+        final Table target = table("ORDERS",
+                Arrays.asList(column("ID", IntegerType.instance, true), column("NOTE", varChar(10), false)),
+                Arrays.asList(index("SQL230101", IndexType.PRIMARY_KEY, "ID"),
+                        index("ORDERS_NOTE", IndexType.NORMAL, "NOTE")));
+
+        Assertions.assertTrue(SchemaDiff.compare(source, target).isEmpty());
+    }
+
+    @Test
+    public void testColumns() {
+        final Column sourceAmount = column("amount", IntegerType.instance, true);
+        final Column sourceNote = column("note", varChar(20), false);
+        final Column missing = column("created_by", varChar(10), false);
+        final Column extra = column("legacy", IntegerType.instance, false);
+        final Table source = table("orders",
+                Arrays.asList(column("id", IntegerType.instance, true), sourceAmount, sourceNote, missing),
+                Collections.emptyList());
+        final Table target = table("orders",
+                Arrays.asList(column("id", IntegerType.instance, true), column("amount", IntegerType.instance, false),
+                        column("note", varChar(10), false), extra),
+                Collections.emptyList());
+
+        final SchemaDiff diff = SchemaDiff.compare(source, target);
+
+        Assertions.assertEquals(Collections.singletonList(missing), diff.getMissingColumns());
+        Assertions.assertEquals(Collections.singletonList(extra), diff.getExtraColumns());
+        Assertions.assertEquals(1, diff.getTypeChangedColumns().size());
+        final SchemaDiff.Change<Column> typeChange = diff.getTypeChangedColumns().get(0);
+        Assertions.assertSame(sourceNote, typeChange.getSource());
+        Assertions.assertEquals(varChar(20), typeChange.getDesired().getDataType());
+        Assertions.assertSame(target, typeChange.getDesired().getTable());
+        Assertions.assertEquals(1, diff.getNullabilityChangedColumns().size());
+        final SchemaDiff.Change<Column> nullabilityChange = diff.getNullabilityChangedColumns().get(0);
+        Assertions.assertSame(sourceAmount, nullabilityChange.getSource());
+        Assertions.assertTrue(nullabilityChange.getDesired().isNotNull());
+    }
+
+    @Test
+    public void testIndexes() {
+        final Index missing = index("orders_customer", IndexType.NORMAL, "customer_id");
+        final Index changedSource = index("orders_code", IndexType.UNIQUE_KEY, "code");
+        final Index changedTarget = index("orders_code", IndexType.NORMAL, "code");
+        final Index extra = index("orders_legacy", IndexType.NORMAL, "code");
+        final Index sourcePrimaryKey = index("orders_pkey", IndexType.PRIMARY_KEY, "id");
+        final Index targetPrimaryKey = index("pk_orders", IndexType.PRIMARY_KEY, "id", "code");
+        final Table source = table("orders", columns(),
+                Arrays.asList(sourcePrimaryKey, missing, changedSource));
+        final Table target = table("orders", columns(),
+                Arrays.asList(targetPrimaryKey, changedTarget, extra));
+
+        final SchemaDiff diff = SchemaDiff.compare(source, target);
+
+        Assertions.assertEquals(Collections.singletonList(missing), diff.getMissingIndexes());
+        Assertions.assertEquals(Collections.singletonList(extra), diff.getExtraIndexes());
+        Assertions.assertEquals(2, diff.getChangedIndexes().size());
+        Assertions.assertSame(sourcePrimaryKey, diff.getChangedIndexes().get(0).getSource());
+        Assertions.assertSame(targetPrimaryKey, diff.getChangedIndexes().get(0).getTarget());
+        Assertions.assertSame(changedSource, diff.getChangedIndexes().get(1).getSource());
+        Assertions.assertSame(changedTarget, diff.getChangedIndexes().get(1).getTarget());
+    }
+
+    @Test
+    public void testIndexWithoutName() {
+        final Table source = table("orders", columns(),
+                Collections.singletonList(index(null, IndexType.UNIQUE_KEY, "code")));
+        final Table sameTarget = table("orders", columns(),
+                Collections.singletonList(index(null, IndexType.UNIQUE_KEY, "CODE")));
+        final Table otherTarget = table("orders", columns(),
+                Collections.singletonList(index(null, IndexType.UNIQUE_KEY, "customer_id")));
+
+        Assertions.assertTrue(SchemaDiff.compare(source, sameTarget).isEmpty());
+        final SchemaDiff diff = SchemaDiff.compare(source, otherTarget);
+        Assertions.assertEquals(1, diff.getMissingIndexes().size());
+        Assertions.assertEquals(1, diff.getExtraIndexes().size());
+    }
+
+    @Test
+    public void testDdlPlan() {
+        final DbMetaWriter writer = new DbMetaWriterPostgre();
+        final Column missingColumn = column("created_by", varChar(10), false);
+        final Column extraColumn = column("legacy", IntegerType.instance, false);
+        final Index missingIndex = index("orders_customer", IndexType.NORMAL, "customer_id");
+        final Index changedSource = index("orders_code", IndexType.UNIQUE_KEY, "code");
+        final Index changedTarget = index("orders_code", IndexType.NORMAL, "code");
+        final Index extraIndex = index("orders_legacy", IndexType.NORMAL, "code");
+        final List<Column> sourceColumns = columns();
+        sourceColumns.add(missingColumn);
+        final List<Column> targetColumns = columns();
+        targetColumns.add(extraColumn);
+        final Table source = table("orders", sourceColumns, Arrays.asList(missingIndex, changedSource));
+        final Table target = table("orders", targetColumns, Arrays.asList(changedTarget, extraIndex));
+        final SchemaDiff diff = SchemaDiff.compare(source, target);
+
+        Assertions.assertEquals(Arrays.asList(
+                writer.createStatementFor(missingColumn),
+                writer.dropIndexSqlFor(changedTarget),
+                writer.createStatementFor(changedSource),
+                writer.createStatementFor(missingIndex)
+        ), diff.toDdlPlan(writer, false).getStatements());
+        Assertions.assertEquals(Arrays.asList(
+                writer.createStatementFor(missingColumn),
+                writer.dropIndexSqlFor(changedTarget),
+                writer.dropIndexSqlFor(extraIndex),
+                writer.createStatementFor(changedSource),
+                writer.createStatementFor(missingIndex),
+                writer.dropColumnSqlFor(extraColumn)
+        ), diff.toDdlPlan(writer, true).getStatements());
+    }
+
+    private static List<Column> columns() {
+        return new ArrayList<>(Arrays.asList(column("id", IntegerType.instance, true),
+                column("code", varChar(10), false), column("customer_id", IntegerType.instance, false)));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SimpleConnectionPoolTest {
+
+    /**
+     * A PreparedStatement keeping its settings, with the fetch size of a driver by default
+     */
+    private static PreparedStatement preparedStatement() {
+        final Map<String, Integer> settings = new HashMap<>();
+        settings.put("FetchSize", 10);
+        settings.put("MaxRows", 0);
+        settings.put("QueryTimeout", 0);
+        return JdbcStubs.stub(PreparedStatement.class, (method, args) -> {
+            final String name = method.getName();
+            if (name.startsWith("get") && settings.containsKey(name.substring(3))) {
+                return settings.get(name.substring(3));
+            } else if (name.startsWith("set") && settings.containsKey(name.substring(3))) {
+                settings.put(name.substring(3), (Integer) args[0]);
+                return null;
+            } else if ("clearBatch".equals(name) || "clearParameters".equals(name) || "close".equals(name)) {
+                return null;
+            }
+            throw JdbcStubs.unsupported(method);
+        });
+    }
+
+    private static Connection connection(final List<PreparedStatement> prepared) {
+        return JdbcStubs.stub(Connection.class, (method, args) -> {
+            switch (method.getName()) {
+                case "prepareStatement":
+                    final PreparedStatement result = preparedStatement();
+                    prepared.add(result);
+                    return result;
+                case "getAutoCommit":
+                    return true;
+                case "getTransactionIsolation":
+                    return Connection.TRANSACTION_READ_COMMITTED;
+                case "isReadOnly":
+                case "isClosed":
+                    return false;
+                case "getCatalog":
+                case "getSchema":
+                case "close":
+                    return null;
+                default:
+                    throw JdbcStubs.unsupported(method);
+            }
+        });
+    }
+
+    @Test
+    public void testCachedStatementSettingsRestored() throws Exception {
+        final List<PreparedStatement> prepared = new ArrayList<>();
+        final DataSource dataSource = JdbcStubs.stub(DataSource.class, (method, args) -> {
+            if ("getConnection".equals(method.getName()) && method.getParameterCount() == 0) {
+                return connection(prepared);
+            }
+            throw JdbcStubs.unsupported(method);
+        });
+        try (final SimpleConnectionPool pool = new SimpleConnectionPool(dataSource, 1)) {
+            try (final Connection connection = pool.getConnection();
+                    final PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+                statement.setFetchSize(1000);
+                statement.setMaxRows(1);
+                statement.setQueryTimeout(30);
+                statement.setFetchSize(2000);
+            }
+            try (final Connection connection = pool.getConnection();
+                    final PreparedStatement statement = connection.prepareStatement("SELECT 1")) {
+                Assertions.assertEquals(1, prepared.size(), "the cached statement is reused");
+                Assertions.assertEquals(10, statement.getFetchSize());
+                Assertions.assertEquals(0, statement.getMaxRows());
+                Assertions.assertEquals(0, statement.getQueryTimeout());
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.firas.db;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Time;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import tech.firas.db.datatype.BigIntType;
+import tech.firas.db.datatype.DataType;
+import tech.firas.db.datatype.DataTypes;
+import tech.firas.db.datatype.IntegerType;
+import tech.firas.db.datatype.JavaTimeType;
+import tech.firas.db.datatype.VarCharType;
+import tech.firas.db.vo.Column;
+
+public class TableDataFileTest {
+
+    @TempDir Path tempDir;
+
+    private static Column column(final String name, final DataType dataType) {
+        final Column result = new Column(name);
+        result.setDataType(dataType);
+        return result;
+    }
+
+    private static List<Column> columns() {
+        final VarCharType varChar = new VarCharType();
+        varChar.setLength(20);
+        return Arrays.asList(column("id", IntegerType.instance), column("amount", BigIntType.instance),
+                column("name", varChar));
+    }
+
+    private static ResultSet noRows() {
+        return JdbcStubs.resultSet(Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * A PreparedStatement collecting the rows added to its batches, and the size of every batch executed
+     */
+    private static PreparedStatement preparedStatement(final int columnCount, final List<Object[]> rows,
+            final List<Integer> batchSizes) {
+        final Object[][] current = { new Object[columnCount] };
+        final int[] pending = { 0 };
+        return JdbcStubs.stub(PreparedStatement.class, (method, args) -> {
+            switch (method.getName()) {
+                case "setNull":
+                    current[0][(Integer) args[0] - 1] = null;
+                    return null;
+                case "setInt":
+                case "setLong":
+                case "setString":
+                case "setTime":
+                    current[0][(Integer) args[0] - 1] = args[1];
+                    return null;
+                case "addBatch":
+                    rows.add(current[0]);
+                    current[0] = new Object[columnCount];
+                    pending[0] += 1;
+                    return null;
+                case "executeBatch":
+                    batchSizes.add(pending[0]);
+                    final int[] result = new int[pending[0]];
+                    pending[0] = 0;
+                    return result;
+                default:
+                    throw JdbcStubs.unsupported(method);
+            }
+        });
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final List<Object[]> rows = Arrays.asList(
+                new Object[] { 1, 10000000000L, "first" },
+                new Object[] { 2, null, "数据" },
+                new Object[] { null, -1L, null },
+                new Object[] { 4, 0L, "" },
+                new Object[] { 5, Long.MAX_VALUE, "last" });
+        final Path file = this.tempDir.resolve("orders.dbmt");
+
+        final long written = TableDataFile.write(JdbcStubs.resultSet(Arrays.asList("id", "amount", "name"), rows),
+                columns(), 2, file);
+        Assertions.assertEquals(rows.size(), written);
+
+        final List<Object[]> read = new ArrayList<>();
+        final List<Integer> batchSizes = new ArrayList<>();
+        final long count = TableDataFile.read(file, columns(), preparedStatement(3, read, batchSizes));
+
+        Assertions.assertEquals(rows.size(), count);
+        Assertions.assertEquals(Arrays.asList(2, 2, 1), batchSizes);
+        Assertions.assertEquals(rows.size(), read.size());
+        for (int i = 0; i < rows.size(); i += 1) {
+            Assertions.assertArrayEquals(rows.get(i), read.get(i), "row " + i);
+        }
+    }
+
+    @Test
+    public void testBlockExecutor() throws Exception {
+        final List<Object[]> rows = Arrays.asList(new Object[] { 1, 1L, "a" }, new Object[] { 2, 2L, "bb" },
+                new Object[] { 3, 3L, "ccc" });
+        final Path file = this.tempDir.resolve("blocks.dbmt");
+        TableDataFile.write(JdbcStubs.resultSet(Arrays.asList("id", "amount", "name"), rows), columns(), 2, file);
+
+        final List<Integer> batchSizes = new ArrayList<>();
+        final List<Integer> rowCounts = new ArrayList<>();
+        final List<Long> dataSizes = new ArrayList<>();
+        final long count = TableDataFile.read(file, columns(), preparedStatement(3, new ArrayList<>(), batchSizes),
+                (ps, rowCount, dataSize) -> {
+                    rowCounts.add(rowCount);
+                    dataSizes.add(dataSize);
+                    ps.executeBatch();
+                });
+
+        Assertions.assertEquals(rows.size(), count);
+        Assertions.assertEquals(Arrays.asList(2, 1), rowCounts);
+        Assertions.assertEquals(rowCounts, batchSizes);
+        Assertions.assertTrue(dataSizes.get(0) > dataSizes.get(1), dataSizes.toString());
+    }
+
+    @Test
+    public void testSubSecondTime() throws Exception {
+        final Time time = Time.valueOf(LocalTime.of(13, 45, 30));
+        time.setTime(time.getTime() + 123L);
+        final List<Object[]> rows = Arrays.asList(new Object[] { 1, time }, new Object[] { 2, null });
+        final List<Column> columns = Arrays.asList(column("id", IntegerType.instance),
+                column("at", DataTypes.time(3)));
+        final Path file = this.tempDir.resolve("times.dbmt");
+
+        TableDataFile.write(JdbcStubs.resultSet(Arrays.asList("id", "at"), rows), columns, 10, file);
+        final List<Object[]> read = new ArrayList<>();
+        TableDataFile.read(file, columns, preparedStatement(2, read, new ArrayList<>()));
+
+        // the same as the object path, which binds the Time read as it is
+        Assertions.assertEquals(time, read.get(0)[1]);
+        Assertions.assertEquals(123L, Math.floorMod(((Time) read.get(0)[1]).getTime(), 1000L));
+        Assertions.assertNull(read.get(1)[1]);
+    }
+
+    @Test
+    public void testJavaTimeSameAsTemporalType() throws Exception {
+        final LocalTime localTime = LocalTime.of(13, 45, 30, 123_000_000);
+        final List<Column> javaTimeColumns = Arrays.asList(column("id", IntegerType.instance),
+                column("at", new JavaTimeType(DataTypes.time(3), null, null)));
+        final Path file = this.tempDir.resolve("java-times.dbmt");
+
+        TableDataFile.write(JdbcStubs.resultSet(Arrays.asList("id", "at"),
+                Collections.singletonList(new Object[] { 1, localTime })), javaTimeColumns, 10, file);
+        final List<Object[]> read = new ArrayList<>();
+        TableDataFile.read(file, Arrays.asList(column("id", IntegerType.instance), column("at", DataTypes.time(3))),
+                preparedStatement(2, read, new ArrayList<>()));
+
+        final Time expected = Time.valueOf(LocalTime.of(13, 45, 30));
+        expected.setTime(expected.getTime() + 123L);
+        Assertions.assertEquals(expected, read.get(0)[1]);
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final Path file = this.tempDir.resolve("empty.dbmt");
+
+        Assertions.assertEquals(0L, TableDataFile.write(noRows(), columns(), 10, file));
+        Assertions.assertEquals(0L, TableDataFile.read(file, columns(),
+                preparedStatement(3, new ArrayList<>(), new ArrayList<>())));
+    }
+
+    @Test
+    public void testColumnsMismatch() throws Exception {
+        final Path file = this.tempDir.resolve("orders.dbmt");
+        TableDataFile.write(noRows(), columns(), 10, file);
+
+        final List<Column> otherColumns = Arrays.asList(column("id", IntegerType.instance),
+                column("amount", IntegerType.instance), column("name", IntegerType.instance));
+        Assertions.assertThrows(IOException.class, () -> TableDataFile.read(file, otherColumns,
+                preparedStatement(3, new ArrayList<>(), new ArrayList<>())));
+        Assertions.assertThrows(IOException.class, () -> TableDataFile.read(file, columns().subList(0, 2),
+                preparedStatement(2, new ArrayList<>(), new ArrayList<>())));
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package tech.firas.db;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ThrottleTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    private static long acquireNanos(final Throttle throttle, final long rows, final long bytes)
+            throws InterruptedException {
+        final long start = System.nanoTime();
+        throttle.acquire(rows, bytes);
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * A Connection whose query returns the lag, recording the SQLs executed
+     */
+    private static Connection lagConnection(final double lag, final List<String> sqls) {
+        final Statement statement = JdbcStubs.stub(Statement.class, (method, args) -> {
+            switch (method.getName()) {
+                case "executeQuery":
+                    sqls.add((String) args[0]);
+                    return JdbcStubs.resultSet(Collections.singletonList("lag"),
+                            Collections.singletonList(new Object[] { lag }));
+                case "close":
+                    return null;
+                default:
+                    throw JdbcStubs.unsupported(method);
+            }
+        });
+        return JdbcStubs.stub(Connection.class, (method, args) -> {
+            if ("createStatement".equals(method.getName())) {
+                return statement;
+            }
+            throw JdbcStubs.unsupported(method);
+        });
+    }
+
+    @Test
+    public void testNegativeLimit() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Throttle(-1, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new Throttle(0, -1));
+    }
+
+    @Test
+    public void testNoLimit() throws Exception {
+        final Throttle throttle = new Throttle(0, 0);
+        Assertions.assertTrue(acquireNanos(throttle, 1_000_000L, 1L << 30) < 100 * MILLIS);
+    }
+
+    @Test
+    public void testRowsPerSecond() throws Exception {
+        final Throttle throttle = new Throttle(100, 0);
+        // 20 rows at 100 rows per second take 200 ms, the same for the bytes not limited
+        Assertions.assertTrue(acquireNanos(throttle, 20, 1L << 30) >= 150 * MILLIS);
+        Assertions.assertTrue(acquireNanos(throttle, 10, 0) >= 50 * MILLIS);
+    }
+
+    @Test
+    public void testBytesPerSecond() throws Exception {
+        final Throttle throttle = new Throttle(0, 1000);
+        Assertions.assertTrue(acquireNanos(throttle, 1_000_000L, 200) >= 150 * MILLIS);
+    }
+
+    @Test
+    public void testParent() throws Exception {
+        final Throttle parent = new Throttle(100, 0);
+        final Throttle child = new Throttle(0, 0, parent);
+        Assertions.assertTrue(acquireNanos(child, 20, 0) >= 150 * MILLIS);
+        // the time slots are taken from the parent shared by another child
+        Assertions.assertTrue(acquireNanos(new Throttle(0, 0, parent), 10, 0) >= 50 * MILLIS);
+    }
+
+    @Test
+    public void testAdaptiveByLatency() throws Exception {
+        final Throttle throttle = new Throttle(0, 0);
+        throttle.setTargetBatchLatencyNanos(10 * MILLIS);
+
+        throttle.afterBatch(null, 20L);
+        Assertions.assertEquals(1.0, throttle.getFactor(), 1e-9);
+
+        throttle.afterBatch(null, 20 * MILLIS);
+        Assertions.assertEquals(0.5, throttle.getFactor(), 1e-9);
+        throttle.afterBatch(null, 20 * MILLIS);
+        Assertions.assertEquals(0.25, throttle.getFactor(), 1e-9);
+
+        throttle.afterBatch(null, 20L);
+        Assertions.assertEquals(0.3, throttle.getFactor(), 1e-9);
+    }
+
+    @Test
+    public void testAdaptiveByLag() throws Exception {
+        final List<String> sqls = new ArrayList<>();
+        final Throttle throttle = new Throttle(0, 0);
+        throttle.setLagProbeSql("SELECT lag");
+        throttle.setMaxLag(1.0);
+
+        throttle.afterBatch(lagConnection(5.0, sqls), 20L);
+        Assertions.assertEquals(0.5, throttle.getFactor(), 1e-9);
+        // not probed again within the interval
+        throttle.afterBatch(lagConnection(5.0, sqls), 20L);
+        Assertions.assertEquals(0.5, throttle.getFactor(), 1e-9);
+        Assertions.assertEquals(1, sqls.size());
+
+        throttle.setLagProbeIntervalNanos(0L);
+        throttle.afterBatch(lagConnection(0.0, sqls), 20L);
+        Assertions.assertEquals(0.55, throttle.getFactor(), 1e-9);
+        Assertions.assertEquals(2, sqls.size());
+    }
+}
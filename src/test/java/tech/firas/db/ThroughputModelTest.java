@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import tech.firas.db.vo.Schema;
+import tech.firas.db.vo.Table;
+import tech.firas.db.vo.TableStatistics;
+
+public class ThroughputModelTest {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @TempDir Path tempDir;
+
+    private static TableStatistics statistics(final long rowCount, final long dataSize) {
+        return new TableStatistics(new Table(new Schema("app"), "orders"), rowCount, dataSize);
+    }
+
+    @Test
+    public void testRecordPerStream() {
+        final ThroughputModel model = new ThroughputModel();
+        // 4 partitions copying 8000 rows of 100 bytes in a second together
+        model.record(statistics(8000, 800_000), 8000, ONE_SECOND, 4);
+
+        Assertions.assertEquals(2000.0, model.getRowsPerSecond(), 0.001);
+        Assertions.assertEquals(200_000.0, model.getBytesPerSecond(), 0.001);
+        Assertions.assertEquals(1, model.getSampleCount());
+        // a table of the same size takes 4 seconds by one stream
+        Assertions.assertEquals(4 * ONE_SECOND, model.estimateNanos(statistics(8000, 800_000)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> model.record(null, 1, ONE_SECOND, 0));
+    }
+
+    @Test
+    public void testSmoothing() {
+        final ThroughputModel model = new ThroughputModel();
+        model.record(null, 1000, ONE_SECOND);
+        model.record(null, 2000, ONE_SECOND);
+
+        Assertions.assertEquals(1300.0, model.getRowsPerSecond(), 0.001);
+        Assertions.assertEquals(0.0, model.getBytesPerSecond());
+        Assertions.assertEquals(2, model.getSampleCount());
+        // nothing copied, nothing recorded
+        model.record(null, 0, ONE_SECOND);
+        Assertions.assertEquals(2, model.getSampleCount());
+    }
+
+    @Test
+    public void testStoreAndLoad() throws Exception {
+        final ThroughputModel model = new ThroughputModel();
+        model.record(statistics(1000, 50_000), 1000, ONE_SECOND);
+        final Path file = this.tempDir.resolve("throughput.properties");
+        model.store(file);
+
+        final ThroughputModel loaded = ThroughputModel.load(file);
+        Assertions.assertEquals(model.getRowsPerSecond(), loaded.getRowsPerSecond());
+        Assertions.assertEquals(model.getBytesPerSecond(), loaded.getBytesPerSecond());
+        Assertions.assertEquals(1, loaded.getSampleCount());
+        Assertions.assertEquals(0, ThroughputModel.load(this.tempDir.resolve("missing.properties")).getSampleCount());
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2023
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tech.firas.db.datatype;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class DataTypesTest {
+
+    @Test
+    public void testSharedInstance() {
+        Assertions.assertSame(DataTypes.varChar(10), DataTypes.varChar(10));
+        Assertions.assertSame(DataTypes.decimal(12, 2), DataTypes.intern(DataTypes.decimal(12, 2)));
+    }
+
+    @Test
+    public void testSharedInstanceIsUnmodifiable() {
+        final VarCharType shared = DataTypes.varChar(10);
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> shared.setLength(20));
+        Assertions.assertEquals(10, DataTypes.varChar(10).getLength());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> DataTypes.decimal(12, 2).setScale(4));
+        Assertions.assertThrows(UnsupportedOperationException.class,
+                () -> DataTypes.unknown("geometry").setNativeType("geometry(Point)"));
+    }
+
+    @Test
+    public void testInternDoesNotShareTheArgument() {
+        final VarCharType own = new VarCharType();
+        own.setLength(30);
+        final VarCharType shared = (VarCharType) DataTypes.intern(own);
+        Assertions.assertNotSame(own, shared);
+        own.setLength(40);
+        Assertions.assertEquals(30, shared.getLength());
+    }
+}